@@ -16,6 +16,8 @@ android {
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
         buildConfigField( "String", "FOOD_PROXY_BASE_URL", "\"https://foodie-macrotracker.onrender.com\"")
+        // Ask the proxy for MessagePack instead of JSON (see server/foodie-usda-proxy: npm run bench:wire)
+        buildConfigField("boolean", "PROXY_MSGPACK", "false")
     }
 
     buildTypes {
@@ -27,6 +29,10 @@ android {
             )
         }
     }
+    // foods.bin (offline food database) is memory-mapped straight out of the APK
+    androidResources {
+        noCompress += "bin"
+    }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
@@ -35,6 +41,7 @@ android {
 
 dependencies {
 
+    implementation(project(":core"))
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.activity)
@@ -53,6 +60,8 @@ dependencies {
     implementation("com.squareup.retrofit2:retrofit:2.9.0")
     implementation("com.squareup.retrofit2:converter-gson:2.9.0")
     implementation("com.squareup.okhttp3:logging-interceptor:4.12.0")
+    implementation("com.squareup.okhttp3:okhttp-brotli:4.12.0")
+    testImplementation("com.squareup.okhttp3:mockwebserver:4.12.0")
 
     implementation("com.google.android.gms:play-services-code-scanner:16.1.0")
 }
\ No newline at end of file
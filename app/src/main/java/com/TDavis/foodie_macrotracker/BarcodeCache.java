@@ -0,0 +1,350 @@
+package com.TDavis.foodie_macrotracker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.LruCache;
+
+import com.TDavis.foodie_macrotracker.FoodModels.BarcodeBatchResponse;
+import com.TDavis.foodie_macrotracker.FoodModels.BarcodeLookupResponse;
+import com.TDavis.foodie_macrotracker.FoodModels.BarcodeResult;
+import com.TDavis.foodie_macrotracker.FoodModels.NormalizedFoodItem;
+import com.TDavis.foodie_macrotracker.net.RetroFitProvider;
+import com.TDavis.foodie_macrotracker.net.UsdaProxyService;
+import com.google.gson.Gson;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Barcode lookups with a two-level cache: in-memory LRU in front of a small prefs file.
+ *
+ * - Keyed by the normalized code, so UPC-A, EAN-13 and GTIN-14 forms of one product share an entry.
+ * - Found products are fresh for {@link #FRESH_MS}; after that they are still returned right away
+ *   and refreshed in the background (stale-while-revalidate), so repeat scans also work offline.
+ * - "Product not found" (404) is remembered for {@link #NEGATIVE_MS}.
+ * - {@link #lookupAll} resolves many codes (scan sessions): cache hits right away, the misses in
+ *   one batch request.
+ * - {@link CacheWarmJob} refreshes entries about to go stale while the phone is idle.
+ * - Eviction (oldest fetch first, past {@link #DISK_ENTRIES}) and {@link #expiringCodes} use an
+ *   in-memory index of code -> fetch time, read from the file once per process.
+ *
+ * Main thread only, like the rest of the UI-side stores; {@link #expiringCodes} may also be
+ * called from a worker thread.
+ */
+public final class BarcodeCache {
+
+    private static final String PREFS = "FoodieBarcodes";
+    private static final int MEMORY_ENTRIES = 64;
+    static final int DISK_ENTRIES = 500;
+    static final long FRESH_MS = TimeUnit.DAYS.toMillis(7);
+    static final long NEGATIVE_MS = TimeUnit.DAYS.toMillis(1);
+    static final int MAX_BATCH = 20; // proxy limit per /api/barcodes request
+
+    /** Where a result came from. */
+    public enum Source { MEMORY, DISK, NETWORK }
+
+    public interface Listener {
+        /** item is null when the product is known not to exist. */
+        void onResult(NormalizedFoodItem item, Source source);
+        void onError(Throwable t);
+    }
+
+    /** Per-code results of {@link #lookupAll}; code is the raw code that was passed in. */
+    public interface BatchListener {
+        void onResult(String code, NormalizedFoodItem item, Source source);
+        void onError(String code, Throwable t);
+    }
+
+    private static class Entry {
+        NormalizedFoodItem item; // null for a negative entry
+        long fetchedAt;
+        boolean notFound;
+    }
+
+    /** What the index keeps of a stored entry. */
+    private static final class Stamp {
+        final long fetchedAt;
+        final boolean notFound;
+        Stamp(long fetchedAt, boolean notFound) { this.fetchedAt = fetchedAt; this.notFound = notFound; }
+    }
+
+    private static BarcodeCache INSTANCE;
+
+    private final SharedPreferences prefs;
+    private final UsdaProxyService api;        // scans the user is waiting on
+    private final UsdaProxyService refreshApi; // stale-while-revalidate refreshes
+    private final Gson gson = GsonProvider.get();
+    private final LruCache<String, Entry> memory = new LruCache<>(MEMORY_ENTRIES);
+    private final Set<String> revalidating = new HashSet<>();
+    private LinkedHashMap<String, Stamp> index; // stored codes, oldest fetch first; guarded by this
+
+    // Counters (since process start)
+    private final AtomicInteger memoryHits = new AtomicInteger();
+    private final AtomicInteger diskHits = new AtomicInteger();
+    private final AtomicInteger staleHits = new AtomicInteger();
+    private final AtomicInteger negativeHits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    private BarcodeCache(Context ctx, UsdaProxyService api, UsdaProxyService refreshApi) {
+        this.prefs = ctx.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.api = api;
+        this.refreshApi = refreshApi;
+    }
+
+    /** Shared instance, so the memory level survives activity recreation. */
+    public static synchronized BarcodeCache get(Context ctx) {
+        if (INSTANCE == null) INSTANCE = new BarcodeCache(ctx, RetroFitProvider.get(ctx), RetroFitProvider.background(ctx));
+        return INSTANCE;
+    }
+
+    /** Resolve a scanned code: cache first, network only on a miss or an expired negative. */
+    public void lookup(String rawCode, Listener l) {
+        final String key = normalize(rawCode);
+        if (key.isEmpty()) { l.onResult(null, Source.MEMORY); return; }
+        if (!fromCache(key, l)) fetch(key, l, memory.get(key));
+    }
+
+    /**
+     * Resolve several codes (at most {@link #MAX_BATCH} misses per request): cache hits are answered
+     * right away, the misses with one batch request. A proxy without the batch route gets one
+     * lookup per code instead.
+     */
+    public void lookupAll(List<String> rawCodes, BatchListener l) {
+        LinkedHashMap<String, List<String>> missing = new LinkedHashMap<>(); // key -> raw codes
+        for (String raw : rawCodes) {
+            String key = normalize(raw);
+            if (key.isEmpty()) { l.onResult(raw, null, Source.MEMORY); continue; }
+            List<String> same = missing.get(key);
+            if (same != null) { same.add(raw); continue; }
+            List<String> raws = new ArrayList<>();
+            raws.add(raw);
+            if (!fromCache(key, fanOut(raws, l))) missing.put(key, raws);
+        }
+        List<String> keys = new ArrayList<>(missing.keySet());
+        for (int i = 0; i < keys.size(); i += MAX_BATCH) {
+            fetchBatch(new ArrayList<>(keys.subList(i, Math.min(keys.size(), i + MAX_BATCH))), missing, l);
+        }
+    }
+
+    /**
+     * Codes of found products that go stale within `withinMs` (or already have), most recently
+     * fetched first. For {@link CacheWarmJob}: refreshing them ahead of time keeps scans fresh.
+     */
+    public List<String> expiringCodes(long withinMs, int max) {
+        long cutoff = System.currentTimeMillis() - FRESH_MS + withinMs;
+        ArrayList<String> out = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<String, Stamp> it : index().entrySet()) { // oldest first
+                if (it.getValue().fetchedAt > cutoff) break;
+                if (!it.getValue().notFound) out.add(it.getKey());
+            }
+        }
+        Collections.reverse(out);
+        return out.size() > max ? new ArrayList<>(out.subList(0, max)) : out;
+    }
+
+    /** Re-fetch a code at background priority; done runs once the request has ended. */
+    public void refresh(String rawCode, Runnable done) {
+        String key = normalize(rawCode);
+        if (key.isEmpty()) { done.run(); return; }
+        revalidate(key, done);
+    }
+
+    public int memoryHits()   { return memoryHits.get(); }
+    public int diskHits()     { return diskHits.get(); }
+    public int staleHits()    { return staleHits.get(); }
+    public int negativeHits() { return negativeHits.get(); }
+    public int misses()       { return misses.get(); }
+
+    @Override
+    public String toString() {
+        return "BarcodeCache{memory=" + memoryHits + ", disk=" + diskHits + ", stale=" + staleHits
+                + ", negative=" + negativeHits + ", misses=" + misses + "}";
+    }
+
+    /* ==============================  internals  ============================== */
+
+    // Answers l and returns true when the cache can; false on a miss (counted)
+    private boolean fromCache(String key, Listener l) {
+        Source source = Source.MEMORY;
+        Entry e = memory.get(key);
+        if (e == null) {
+            e = readDisk(key);
+            source = Source.DISK;
+            if (e != null) memory.put(key, e);
+        }
+
+        long age = (e == null) ? Long.MAX_VALUE : System.currentTimeMillis() - e.fetchedAt;
+        if (e != null && e.notFound && age < NEGATIVE_MS) {
+            negativeHits.incrementAndGet();
+            l.onResult(null, source);
+            return true;
+        }
+        if (e != null && !e.notFound) {
+            (source == Source.MEMORY ? memoryHits : diskHits).incrementAndGet();
+            if (age >= FRESH_MS) {
+                staleHits.incrementAndGet();
+                revalidate(key, null); // refresh quietly; this scan is answered from cache
+            }
+            l.onResult(e.item, source);
+            return true;
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    private static Listener fanOut(List<String> raws, BatchListener l) {
+        return new Listener() {
+            @Override public void onResult(NormalizedFoodItem item, Source source) { for (String r : raws) l.onResult(r, item, source); }
+            @Override public void onError(Throwable t) { for (String r : raws) l.onError(r, t); }
+        };
+    }
+
+    private void fetchBatch(List<String> keys, Map<String, List<String>> raws, BatchListener l) {
+        api.getByBarcodesNormalized(String.join(",", keys)).enqueue(new Callback<BarcodeBatchResponse>() {
+            @Override public void onResponse(Call<BarcodeBatchResponse> call, Response<BarcodeBatchResponse> resp) {
+                if (resp.code() == 404) { // older proxy without /api/barcodes
+                    for (String key : keys) fetch(key, fanOut(raws.get(key), l), memory.get(key));
+                    return;
+                }
+                BarcodeBatchResponse body = resp.body();
+                if (!resp.isSuccessful() || body == null || body.results == null) {
+                    onFailure(call, new RuntimeException("HTTP " + resp.code()));
+                    return;
+                }
+                Set<String> answered = new HashSet<>();
+                for (BarcodeResult r : body.results) {
+                    String key = normalize(r.code);
+                    if (!raws.containsKey(key) || !answered.add(key)) continue;
+                    Listener each = fanOut(raws.get(key), l);
+                    if (r.item != null) { store(key, r.item); each.onResult(r.item, Source.NETWORK); }
+                    else if (r.notFound) { store(key, null); each.onResult(null, Source.NETWORK); }
+                    else failed(key, each, new RuntimeException(r.error != null ? r.error : "Lookup failed"));
+                }
+                for (String key : keys) {
+                    if (!answered.contains(key)) failed(key, fanOut(raws.get(key), l), new RuntimeException("Missing from batch"));
+                }
+            }
+
+            @Override public void onFailure(Call<BarcodeBatchResponse> call, Throwable t) {
+                for (String key : keys) failed(key, fanOut(raws.get(key), l), t);
+            }
+        });
+    }
+
+    // A miss the network couldn't answer: an expired "not found" still beats an error
+    private void failed(String key, Listener l, Throwable t) {
+        Entry e = memory.get(key);
+        if (e != null && e.notFound) l.onResult(null, Source.DISK);
+        else l.onError(t);
+    }
+
+    // fallback: an expired entry to use if the network fails
+    private void fetch(String key, Listener l, Entry fallback) {
+        api.getByBarcodeNormalized(key).enqueue(new Callback<BarcodeLookupResponse>() {
+            @Override public void onResponse(Call<BarcodeLookupResponse> call, Response<BarcodeLookupResponse> resp) {
+                if (resp.isSuccessful() && resp.body() != null && resp.body().item != null) {
+                    store(key, resp.body().item);
+                    l.onResult(resp.body().item, Source.NETWORK);
+                } else if (resp.code() == 404) {
+                    store(key, null);
+                    l.onResult(null, Source.NETWORK);
+                } else {
+                    onFailure(call, new RuntimeException("HTTP " + resp.code()));
+                }
+            }
+
+            @Override public void onFailure(Call<BarcodeLookupResponse> call, Throwable t) {
+                if (fallback != null && fallback.notFound) l.onResult(null, Source.DISK);
+                else l.onError(t);
+            }
+        });
+    }
+
+    // Background refresh; done (optional) runs once it has ended, whatever the outcome
+    private void revalidate(String key, Runnable done) {
+        if (!revalidating.add(key)) { if (done != null) done.run(); return; } // already refreshing this code
+
+        refreshApi.getByBarcodeNormalized(key).enqueue(new Callback<BarcodeLookupResponse>() {
+            @Override public void onResponse(Call<BarcodeLookupResponse> call, Response<BarcodeLookupResponse> resp) {
+                revalidating.remove(key);
+                if (resp.isSuccessful() && resp.body() != null && resp.body().item != null) store(key, resp.body().item);
+                else if (resp.code() == 404) store(key, null);
+                if (done != null) done.run();
+            }
+
+            @Override public void onFailure(Call<BarcodeLookupResponse> call, Throwable t) {
+                revalidating.remove(key);
+                if (done != null) done.run();
+            }
+        });
+    }
+
+    private void store(String key, NormalizedFoodItem item) {
+        Entry e = new Entry();
+        e.item = item;
+        e.notFound = (item == null);
+        e.fetchedAt = System.currentTimeMillis();
+        memory.put(key, e);
+
+        SharedPreferences.Editor ed = prefs.edit().putString(key, gson.toJson(e));
+        synchronized (this) {
+            LinkedHashMap<String, Stamp> idx = index();
+            idx.remove(key);
+            idx.put(key, new Stamp(e.fetchedAt, e.notFound)); // newest last
+            while (idx.size() > DISK_ENTRIES) {
+                String oldest = idx.keySet().iterator().next();
+                idx.remove(oldest);
+                ed.remove(oldest);
+                memory.remove(oldest);
+            }
+        }
+        ed.apply();
+    }
+
+    // The one pass over the file; every later store or query uses the index
+    private LinkedHashMap<String, Stamp> index() {
+        if (index != null) return index;
+        ArrayList<Map.Entry<String, Stamp>> stamps = new ArrayList<>();
+        for (Map.Entry<String, ?> it : prefs.getAll().entrySet()) {
+            Entry d = parse(it.getValue());
+            stamps.add(new AbstractMap.SimpleEntry<>(it.getKey(),
+                    d == null ? new Stamp(0, true) : new Stamp(d.fetchedAt, d.notFound))); // unreadable: evicted first
+        }
+        Collections.sort(stamps, (a, b) -> Long.compare(a.getValue().fetchedAt, b.getValue().fetchedAt));
+        index = new LinkedHashMap<>();
+        for (Map.Entry<String, Stamp> it : stamps) index.put(it.getKey(), it.getValue());
+        return index;
+    }
+
+    private Entry readDisk(String key) { return parse(prefs.getString(key, null)); }
+
+    private Entry parse(Object json) {
+        if (!(json instanceof String)) return null;
+        try { return gson.fromJson((String) json, Entry.class); } catch (Exception ex) { return null; }
+    }
+
+    /**
+     * Digits only; 12-digit UPC-A becomes its EAN-13 form and a GTIN-14 with a zero
+     * indicator drops it, so the same product always maps to one key.
+     */
+    static String normalize(String code) {
+        if (code == null) return "";
+        String d = code.replaceAll("[^0-9]", "");
+        if (d.length() == 12) d = "0" + d;
+        if (d.length() == 14 && d.charAt(0) == '0') d = d.substring(1);
+        return d;
+    }
+}
@@ -0,0 +1,160 @@
+package com.TDavis.foodie_macrotracker;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.TDavis.foodie_macrotracker.FoodModels.NormalizedFoodItem;
+import com.TDavis.foodie_macrotracker.net.RequestScheduler;
+import com.TDavis.foodie_macrotracker.net.RetroFitProvider;
+import com.TDavis.foodie_macrotracker.net.SearchPager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily job, run only while the phone is idle, charging and on an unmetered network, that fetches
+ * what the user will likely look up next, so daily logging is answered from cache:
+ *
+ * - details (GET api/foods/{fdcId}) of the foods most often picked from search results
+ *   ({@link SearchRanker}) and of the top hits of recent searches, through
+ *   {@link FoodDetailCache#warm}. They land in the HTTP cache; bundled foods are skipped;
+ * - barcode records that go stale within {@link #EXPIRING_WITHIN_MS}
+ *   ({@link BarcodeCache#expiringCodes}), refreshed ahead of time.
+ *
+ * Requests go one at a time on the background service, so {@link RequestScheduler} keeps the
+ * user's reserve and lets interactive calls first. A run stops as soon as the proxy answers 429
+ * or the scheduler drops a request, after {@link #MAX_FAILURES} failures, and once the HTTP cache
+ * holds {@link #CACHE_SHARE} of its size: warming must not evict what the user fetched.
+ *
+ * Job callbacks and the requests are on the main thread. Picking what to fetch reads the picks file,
+ * the bundled database and the barcode index, so it runs on a worker thread first.
+ */
+public class CacheWarmJob extends JobService {
+
+    private static final String TAG = "CacheWarmJob";
+    static final int JOB_ID = 4801;
+    private static final long PERIOD_MS = TimeUnit.DAYS.toMillis(1);
+    static final int MAX_DETAILS = 30;
+    static final int MAX_BARCODES = 20;
+    private static final int MAX_FAILURES = 3;
+    private static final double CACHE_SHARE = 0.6;
+    static final long EXPIRING_WITHIN_MS = TimeUnit.DAYS.toMillis(2); // covers the gap to the next run
+
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private Run run;
+
+    /** Schedule the daily job; no-op when it is already scheduled. */
+    public static void schedule(Context ctx) {
+        JobScheduler js = ctx.getSystemService(JobScheduler.class);
+        if (js == null || js.getPendingJob(JOB_ID) != null) return;
+        JobInfo.Builder b = new JobInfo.Builder(JOB_ID, new ComponentName(ctx, CacheWarmJob.class))
+                .setRequiresDeviceIdle(true)
+                .setRequiresCharging(true)
+                .setRequiredNetworkType(JobInfo.NETWORK_TYPE_UNMETERED)
+                .setPeriodic(PERIOD_MS);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) b.setRequiresStorageNotLow(true);
+        js.schedule(b.build());
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        if (RetroFitProvider.breaker().isOpen()) return false; // proxy down: try again next period
+        run = new Run(params);
+        run.start();
+        return true; // finished from the run, once it knows whether there is anything to fetch
+    }
+
+    // Idle, charging or Wi-Fi ended: drop the rest of this run
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        if (run != null) run.stopped = true;
+        run = null;
+        return false; // the next period comes anyway
+    }
+
+    /* ==============================  internals  ============================== */
+
+    private final class Run {
+        final JobParameters params;
+        final ArrayDeque<Long> details = new ArrayDeque<>();
+        final ArrayDeque<String> barcodes = new ArrayDeque<>();
+        final RequestScheduler scheduler = RetroFitProvider.scheduler();
+        final long rateLimitedAtStart = scheduler.rateLimitedResponses();
+        final long droppedAtStart = scheduler.dropped(RequestScheduler.Priority.BACKGROUND);
+        final long cacheBudget = (long) (RetroFitProvider.cacheMaxBytes() * CACHE_SHARE);
+        int sent, failures;
+        boolean stopped;
+
+        Run(JobParameters params) { this.params = params; }
+
+        /** Pick what to fetch on a worker thread, then send from the main thread. */
+        void start() {
+            Context ctx = CacheWarmJob.this;
+            // Recent searches live on the main thread: copy their queries and first pages here
+            ArrayList<String> queries = new ArrayList<>();
+            ArrayList<List<NormalizedFoodItem>> pages = new ArrayList<>();
+            for (SearchPager p : SearchPager.recent()) { // only while the app process is still around
+                queries.add(p.query());
+                pages.add(new ArrayList<>(p.page(1)));
+            }
+            new Thread(() -> {
+                SearchRanker ranker = SearchRanker.load(ctx, null);
+                OfflineFoodDb local = OfflineFoodDb.get(ctx);
+                LinkedHashSet<Long> ids = new LinkedHashSet<>();
+                for (int i = 0; i < queries.size(); i++) {
+                    List<NormalizedFoodItem> top = ranker.rank(queries.get(i), pages.get(i));
+                    if (!top.isEmpty() && FoodDetailCache.worthFetching(top.get(0))) ids.add(top.get(0).fdcId);
+                }
+                for (long id : ranker.mostPickedFdcIds(MAX_DETAILS)) {
+                    if (local == null || !local.contains(id)) ids.add(id);
+                }
+                List<String> expiring = BarcodeCache.get(ctx).expiringCodes(EXPIRING_WITHIN_MS, MAX_BARCODES);
+                main.post(() -> {
+                    for (long id : ids) if (details.size() < MAX_DETAILS) details.add(id);
+                    barcodes.addAll(expiring);
+                    next();
+                });
+            }, TAG).start();
+        }
+
+        void next() {
+            if (stopped) return;
+            String stop = stopReason();
+            if (stop != null || (details.isEmpty() && barcodes.isEmpty())) {
+                Log.d(TAG, sent + " requests, " + failures + " failed" + (stop != null ? "; stopped: " + stop : ""));
+                run = null;
+                jobFinished(params, false);
+                return;
+            }
+            sent++;
+            if (!details.isEmpty()) {
+                FoodDetailCache.get(CacheWarmJob.this).warm(details.poll(), new FoodDetailCache.Listener() {
+                    @Override public void onDetail(NormalizedFoodItem detail) { next(); }
+                    @Override public void onFailed() { failures++; next(); }
+                });
+            } else {
+                BarcodeCache.get(CacheWarmJob.this).refresh(barcodes.poll(), this::next);
+            }
+        }
+
+        String stopReason() {
+            if (scheduler.rateLimitedResponses() > rateLimitedAtStart) return "rate limited by proxy";
+            if (scheduler.dropped(RequestScheduler.Priority.BACKGROUND) > droppedAtStart) return "request budget exhausted";
+            if (RetroFitProvider.breaker().isOpen()) return "proxy unreachable";
+            if (failures >= MAX_FAILURES) return "too many failures";
+            if (RetroFitProvider.cacheBytes() >= cacheBudget) return "cache budget reached";
+            return null;
+        }
+    }
+}
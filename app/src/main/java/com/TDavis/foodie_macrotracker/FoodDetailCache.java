@@ -0,0 +1,127 @@
+package com.TDavis.foodie_macrotracker;
+
+import android.content.Context;
+import android.util.LruCache;
+
+import com.TDavis.foodie_macrotracker.FoodModels.FoodDetailResponse;
+import com.TDavis.foodie_macrotracker.FoodModels.NormalizedFoodItem;
+import com.TDavis.foodie_macrotracker.FoodModels.Unit;
+import com.TDavis.foodie_macrotracker.net.RetroFitProvider;
+import com.TDavis.foodie_macrotracker.net.UsdaProxyService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Full USDA details (GET api/foods/{fdcId}) fetched only for foods the user actually picks, or
+ * speculatively for the top hit, and kept in a bounded fdcId-keyed LRU. Search pages stay small;
+ * the unit dropdown gets its household measures from here. {@link CacheWarmJob} also fetches the
+ * user's usual foods while the phone is idle, so the HTTP cache answers those during the day.
+ *
+ * Main thread only.
+ */
+public final class FoodDetailCache {
+
+    private static final int MAX_ITEMS = 100;
+
+    public interface Listener {
+        /** Called when details arrive. */
+        void onDetail(NormalizedFoodItem detail);
+        /** The lookup failed; most callers ignore this (search units still work). */
+        default void onFailed() {}
+    }
+
+    private static FoodDetailCache INSTANCE;
+
+    private final UsdaProxyService api;         // the user picked this food
+    private final UsdaProxyService prefetchApi; // speculative
+    private final UsdaProxyService warmApi;     // idle-time cache warming
+    private final LruCache<Long, NormalizedFoodItem> cache = new LruCache<>(MAX_ITEMS);
+    private final HashMap<Long, List<Listener>> pending = new HashMap<>();
+
+    private FoodDetailCache(UsdaProxyService api, UsdaProxyService prefetchApi, UsdaProxyService warmApi) {
+        this.api = api;
+        this.prefetchApi = prefetchApi;
+        this.warmApi = warmApi;
+    }
+
+    public static synchronized FoodDetailCache get(Context ctx) {
+        if (INSTANCE == null) INSTANCE = new FoodDetailCache(RetroFitProvider.get(ctx), RetroFitProvider.prefetch(ctx), RetroFitProvider.background(ctx));
+        return INSTANCE;
+    }
+
+    public NormalizedFoodItem peek(long fdcId) { return cache.get(fdcId); }
+
+    /** Details for a picked food: from cache right away, else joins/starts a request. */
+    public void fetch(long fdcId, Listener l) {
+        NormalizedFoodItem hit = cache.get(fdcId);
+        if (hit != null) { l.onDetail(hit); return; }
+        request(fdcId, l, api);
+    }
+
+    /** Warm the cache for a likely pick (the top hit); no-op if cached or already loading. */
+    public void prefetch(NormalizedFoodItem item) {
+        if (!worthFetching(item) || cache.get(item.fdcId) != null) return;
+        request(item.fdcId, null, prefetchApi);
+    }
+
+    /** Fetch at background priority for the cache warmer; l hears the outcome (onFailed too). */
+    public void warm(long fdcId, Listener l) {
+        NormalizedFoodItem hit = cache.get(fdcId);
+        if (hit != null) { l.onDetail(hit); return; }
+        request(fdcId, l, warmApi);
+    }
+
+    /**
+     * Only USDA items (fdcId > 0) that came without household measures: offline-db items already
+     * carry all of theirs, and Open Food Facts products have no fdcId.
+     */
+    public static boolean worthFetching(NormalizedFoodItem f) {
+        if (f == null || f.fdcId <= 0) return false;
+        if (f.units != null) for (Unit u : f.units) {
+            String lbl = u.label == null ? "" : u.label.toLowerCase(Locale.US);
+            if (!lbl.equals("gram (g)") && !lbl.equals("ounce (oz)") && !lbl.equals("serving")) return false;
+        }
+        return true;
+    }
+
+    /* ==============================  internals  ============================== */
+
+    private void request(long fdcId, Listener l, UsdaProxyService via) {
+        List<Listener> waiting = pending.get(fdcId);
+        if (waiting != null) { if (l != null) waiting.add(l); return; } // already on the way
+
+        waiting = new ArrayList<>();
+        if (l != null) waiting.add(l);
+        pending.put(fdcId, waiting);
+
+        via.getFoodDetailNormalized(fdcId).enqueue(new Callback<FoodDetailResponse>() {
+            @Override public void onResponse(Call<FoodDetailResponse> call, Response<FoodDetailResponse> resp) {
+                List<Listener> ls = pending.remove(fdcId);
+                if (!resp.isSuccessful() || resp.body() == null || resp.body().item == null) {
+                    if (ls != null) for (Listener each : ls) each.onFailed();
+                    return;
+                }
+                NormalizedFoodItem detail = resp.body().item;
+                cache.put(fdcId, detail);
+                if (ls != null) for (Listener each : ls) each.onDetail(detail);
+            }
+
+            @Override public void onFailure(Call<FoodDetailResponse> call, Throwable t) {
+                List<Listener> ls = pending.remove(fdcId);
+                // A dropped prefetch someone has since asked for: go again as an interactive call
+                if (via != api && ls != null) for (Listener each : ls) {
+                    if (each == l) each.onFailed(); // the warmer itself: don't escalate its request
+                    else request(fdcId, each, api);
+                }
+                else if (ls != null) for (Listener each : ls) each.onFailed();
+            }
+        });
+    }
+}
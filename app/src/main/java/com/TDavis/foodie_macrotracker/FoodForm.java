@@ -0,0 +1,184 @@
+package com.TDavis.foodie_macrotracker;
+
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.widget.AutoCompleteTextView;
+import android.widget.EditText;
+
+import com.TDavis.foodie_macrotracker.FoodModels.Per100g;
+import com.TDavis.foodie_macrotracker.FoodModels.Unit;
+
+/**
+ * State of the food form (name, quantity, unit, macros) kept apart from its EditTexts.
+ *
+ * Typing only updates this model; the derived values (macros scaled from per-100 g, Search vs Add
+ * mode) are worked out once per frame and written to the views in one pass. Writes that come from
+ * here are not seen by the form's own watchers (see {@link #isApplying()} for other watchers), so
+ * a quantity keystroke costs one scale and at most four setText calls however fast it comes in.
+ *
+ * Main thread only.
+ */
+final class FoodForm {
+
+    /** Called after a frame's update when Search vs Add mode flipped. */
+    interface Listener { void onModeChanged(boolean searchMode); }
+
+    private static final int NAME = 1, QUANTITY = 1 << 1, MACROS = 1 << 2; // views to write
+    private static final int N_MACROS = 4; // kcal, protein, carbs, fat
+
+    private final AutoCompleteTextView nameView;
+    private final EditText quantityView;
+    private final EditText[] macroViews;
+    private final Listener listener;
+
+    private String name = "";
+    private String quantity = "1";
+    private final String[] macros = {"", "", "", ""};
+    private Unit unit;
+    private Per100g base = new Per100g();
+
+    private int dirty;           // views behind the model
+    private boolean rescale;     // macros should follow quantity x unit
+    private boolean framePosted;
+    private int applying;        // > 0 while this writes to the views
+    private boolean lastMode;    // last mode reported to the listener
+
+    private final Runnable frame = this::render;
+
+    FoodForm(AutoCompleteTextView name, EditText quantity, EditText cal, EditText pro, EditText carbs, EditText fat, Listener l) {
+        this.nameView = name;
+        this.quantityView = quantity;
+        this.macroViews = new EditText[] {cal, pro, carbs, fat};
+        this.listener = l;
+
+        name.addTextChangedListener(new Watcher() {
+            @Override void onEdit(String s) { FoodForm.this.name = s; invalidate(); }
+        });
+        quantity.addTextChangedListener(new Watcher() {
+            @Override void onEdit(String s) { FoodForm.this.quantity = s; rescale = true; invalidate(); }
+        });
+        for (int i = 0; i < N_MACROS; i++) {
+            final int idx = i;
+            macroViews[i].addTextChangedListener(new Watcher() {
+                @Override void onEdit(String s) { macros[idx] = s; rescale = false; invalidate(); } // typed values win
+            });
+        }
+        this.name = text(name);
+        if (!text(quantity).isEmpty()) this.quantity = text(quantity); else dirty |= QUANTITY;
+        for (int i = 0; i < N_MACROS; i++) macros[i] = text(macroViews[i]);
+        lastMode = computeSearchMode();
+        invalidate();
+    }
+
+    /* ==============================  reads (always current)  ============================== */
+
+    String name() { return name.trim(); }
+    String macro(int i) { return macros[i]; }
+    Unit unit() { return unit; }
+    /** Name typed but no macros yet: the button searches instead of adding. */
+    boolean searchMode() { return computeSearchMode(); }
+
+    /** True while the form writes its own values; other watchers on these views should ignore those. */
+    boolean isApplying() { return applying > 0; }
+
+    /* ==============================  programmatic updates  ============================== */
+
+    void setName(String s) { name = s == null ? "" : s; dirty |= NAME; invalidate(); }
+
+    void setQuantity(String s) { quantity = s == null ? "" : s; dirty |= QUANTITY; rescale = true; invalidate(); }
+
+    /** Selecting the unit already in use (e.g. after the unit list grew) keeps the current macros. */
+    void setUnit(Unit u) {
+        if (u == unit) return;
+        unit = u;
+        rescale = true;
+        invalidate();
+    }
+
+    /** Per-100 g values that quantity x unit scales; empty when the food has none (personal foods). */
+    void setBase(Per100g b) { base = b == null ? new Per100g() : b; }
+
+    /** Exact values (a label serving, a remembered food); they stay until quantity or unit change. */
+    void setMacros(String cal, String pro, String carbs, String fat) {
+        macros[0] = cal; macros[1] = pro; macros[2] = carbs; macros[3] = fat;
+        rescale = false;
+        dirty |= MACROS;
+        invalidate();
+    }
+
+    /** Recompute the macros from quantity x unit now (e.g. after choosing a food). */
+    void rescale() { rescale = true; invalidate(); }
+
+    void clear() {
+        name = "";
+        setMacros("", "", "", "");
+        dirty |= NAME;
+    }
+
+    /* ==============================  internals  ============================== */
+
+    private void invalidate() {
+        if (framePosted) return;
+        framePosted = true;
+        nameView.postOnAnimation(frame);
+    }
+
+    // Once per frame: derive, write what changed, report a mode flip
+    private void render() {
+        framePosted = false;
+        if (rescale) {
+            rescale = false;
+            if (unit != null && hasAny(base)) {
+                double qty = MacroScaling.parseQuantity(quantity);
+                double[] m = MacroScaling.scalePer100g(base, qty * unit.gramsPerUnit);
+                macros[0] = Double.isNaN(m[0]) ? "" : String.valueOf((int) m[0]);
+                for (int i = 1; i < N_MACROS; i++) macros[i] = Double.isNaN(m[i]) ? "" : String.valueOf(m[i]);
+                dirty |= MACROS;
+            }
+        }
+
+        int write = dirty;
+        dirty = 0;
+        applying++;
+        try {
+            if ((write & NAME) != 0 && !name.equals(text(nameView))) {
+                nameView.setText(name, false); // no dropdown for a filled-in name
+                nameView.setSelection(name.length());
+            }
+            if ((write & QUANTITY) != 0 && !quantity.equals(text(quantityView))) quantityView.setText(quantity);
+            if ((write & MACROS) != 0) {
+                for (int i = 0; i < N_MACROS; i++) if (!macros[i].equals(text(macroViews[i]))) macroViews[i].setText(macros[i]);
+            }
+        } finally {
+            applying--;
+        }
+
+        boolean mode = computeSearchMode();
+        if (mode != lastMode) {
+            lastMode = mode;
+            if (listener != null) listener.onModeChanged(mode);
+        }
+    }
+
+    private boolean computeSearchMode() {
+        if (name.trim().isEmpty()) return false;
+        for (String m : macros) if (!m.trim().isEmpty()) return false;
+        return true;
+    }
+
+    private static boolean hasAny(Per100g b) {
+        return b.hasCalories() || b.hasProtein() || b.hasCarbs() || b.hasFat();
+    }
+
+    private static String text(EditText v) {
+        return v.getText() == null ? "" : v.getText().toString();
+    }
+
+    // Ignores the form's own writes
+    private abstract class Watcher implements TextWatcher {
+        abstract void onEdit(String s);
+        @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+        @Override public void onTextChanged(CharSequence s, int start, int before, int count) {}
+        @Override public void afterTextChanged(Editable s) { if (applying == 0) onEdit(s.toString()); }
+    }
+}
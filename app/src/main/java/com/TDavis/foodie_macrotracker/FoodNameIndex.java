@@ -0,0 +1,215 @@
+package com.TDavis.foodie_macrotracker;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Personal autocomplete: every distinct food name the user has logged, with the macros and
+ * meal type from its last use. Word prefixes live in a sorted map, so a lookup is a
+ * short range scan instead of a pass over history. Updated from every logged entry (or batch);
+ * edits refresh a name's values without counting as a use.
+ *
+ * Stored in its own small prefs file so loading it never touches the entries/history JSON.
+ * Changes are written {@link #SAVE_DELAY_MS} after the last one (one write for a run of
+ * logging), or on {@link #flush}.
+ */
+public final class FoodNameIndex {
+
+    private static final String PREFS = "FoodieNameIndex";
+    private static final String KEY = "names";
+    static final long SAVE_DELAY_MS = 2000;
+
+    /** One distinct food name with its last-used values. */
+    public static class Suggestion {
+        public String name;
+        public int calories, protein, carbs, fat;
+        public String mealType;
+        public long lastUsed;
+        public int uses;
+    }
+
+    private final Context ctx;
+    private final Map<String, Suggestion> byKey = new HashMap<>();           // normalized name -> suggestion
+    private final TreeMap<String, Set<String>> byWord = new TreeMap<>();     // word -> normalized names
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final Runnable saveLater = this::flush;
+    private boolean dirty;
+
+    private FoodNameIndex(Context ctx) { this.ctx = ctx.getApplicationContext(); }
+
+    /**
+     * Loads the saved index; on first run seeds it once from the existing history so
+     * people upgrading keep their foods (the supplier is only called then).
+     */
+    public static FoodNameIndex load(Context ctx, Supplier<? extends Map<String, ? extends List<FoodEntry>>> historyForSeed) {
+        FoodNameIndex idx = new FoodNameIndex(ctx);
+        SharedPreferences prefs = ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        String json = prefs.getString(KEY, null);
+        if (json != null) {
+            Type listType = new TypeToken<ArrayList<Suggestion>>(){}.getType();
+            ArrayList<Suggestion> saved = GsonProvider.get().fromJson(json, listType);
+            if (saved != null) for (Suggestion s : saved) idx.put(s);
+        } else if (historyForSeed != null) {
+            Map<String, ? extends List<FoodEntry>> history = historyForSeed.get();
+            if (history != null) for (List<FoodEntry> day : history.values()) {
+                if (day != null) for (FoodEntry e : day) idx.upsert(e);
+            }
+            idx.save();
+        }
+        return idx;
+    }
+
+    /** Record one logged entry (new name or refreshed macros/meal of a known one). */
+    public synchronized void record(FoodEntry e) {
+        if (upsert(e)) saveSoon();
+    }
+
+    /** Record a batch (a whole meal) with one save. */
+    public synchronized void recordAll(List<FoodEntry> batch) {
+        boolean changed = false;
+        for (FoodEntry e : batch) changed |= upsert(e);
+        if (changed) saveSoon();
+    }
+
+    /**
+     * An entry was edited: if it is its name's latest use, the suggestion takes the corrected
+     * macros and meal type. Not a new use, and names only ever edited in are not added.
+     */
+    public synchronized void correct(FoodEntry e) {
+        if (e == null || e.name == null) return;
+        Suggestion s = byKey.get(normalize(e.name));
+        if (s == null || e.createdAt < s.lastUsed) return;
+        s.calories = e.calories; s.protein = e.protein; s.carbs = e.carbs; s.fat = e.fat;
+        s.mealType = e.mealType;
+        saveSoon();
+    }
+
+    /** Write pending changes now (activity stopping). */
+    public synchronized void flush() {
+        main.removeCallbacks(saveLater);
+        if (dirty) save();
+    }
+
+    /**
+     * Names whose words start with every query word, most used first.
+     * Cost is a range scan over the matching words, not over all names.
+     */
+    public synchronized ArrayList<Suggestion> lookup(CharSequence query, int limit) {
+        ArrayList<Suggestion> out = new ArrayList<>();
+        List<String> words = words(query == null ? "" : query.toString());
+        if (words.isEmpty()) return out;
+
+        // Seed candidates from the longest (most selective) word, then filter by the rest
+        String seed = words.get(0);
+        for (String w : words) if (w.length() > seed.length()) seed = w;
+        Set<String> candidates = new HashSet<>();
+        for (Set<String> keys : prefixRange(seed).values()) candidates.addAll(keys);
+
+        for (String key : candidates) {
+            if (matchesAll(key, words)) out.add(byKey.get(key));
+        }
+        Collections.sort(out, (a, b) -> a.uses != b.uses ? Integer.compare(b.uses, a.uses) : Long.compare(b.lastUsed, a.lastUsed));
+        return out.size() > limit ? new ArrayList<>(out.subList(0, limit)) : out;
+    }
+
+    public synchronized int size() { return byKey.size(); }
+
+    /** How often this exact name (case and spacing ignored) was logged; 0 if never. */
+    public synchronized int uses(String name) {
+        Suggestion s = name == null ? null : byKey.get(normalize(name));
+        return s == null ? 0 : s.uses;
+    }
+
+    /* ==============================  internals  ============================== */
+
+    private boolean upsert(FoodEntry e) {
+        if (e == null || e.name == null || e.name.trim().isEmpty()) return false;
+        String key = normalize(e.name);
+        Suggestion s = byKey.get(key);
+        if (s == null) {
+            s = new Suggestion();
+            put(key, s);
+        } else if (e.createdAt < s.lastUsed) {
+            s.uses++; // older entry (seeding): count it but keep the newer values
+            return true;
+        }
+        s.name = e.name.trim();
+        s.calories = e.calories; s.protein = e.protein; s.carbs = e.carbs; s.fat = e.fat;
+        s.mealType = e.mealType;
+        s.lastUsed = e.createdAt;
+        s.uses++;
+        return true;
+    }
+
+    private void put(Suggestion s) {
+        if (s == null || s.name == null) return;
+        put(normalize(s.name), s);
+    }
+
+    private void put(String key, Suggestion s) {
+        byKey.put(key, s);
+        for (String w : words(key)) {
+            Set<String> keys = byWord.get(w);
+            if (keys == null) { keys = new HashSet<>(); byWord.put(w, keys); }
+            keys.add(key);
+        }
+    }
+
+    private NavigableMap<String, Set<String>> prefixRange(String prefix) {
+        // every word that starts with prefix
+        return byWord.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static boolean matchesAll(String key, List<String> words) {
+        List<String> have = words(key);
+        for (String w : words) {
+            boolean hit = false;
+            for (String h : have) if (h.startsWith(w)) { hit = true; break; }
+            if (!hit) return false;
+        }
+        return true;
+    }
+
+    private void saveSoon() {
+        dirty = true;
+        main.removeCallbacks(saveLater);
+        main.postDelayed(saveLater, SAVE_DELAY_MS);
+    }
+
+    private void save() {
+        dirty = false;
+        ArrayList<Suggestion> all = new ArrayList<>(byKey.values());
+        ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE).edit()
+                .putString(KEY, GsonProvider.get().toJson(all))
+                .apply();
+    }
+
+    static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.US).replaceAll("\\s+", " ");
+    }
+
+    private static List<String> words(String text) {
+        ArrayList<String> out = new ArrayList<>();
+        for (String w : text.toLowerCase(Locale.US).split("[^\\p{L}\\p{N}]+")) {
+            if (!w.isEmpty()) out.add(w);
+        }
+        return out;
+    }
+}
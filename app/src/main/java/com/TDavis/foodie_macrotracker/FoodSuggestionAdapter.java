@@ -0,0 +1,121 @@
+package com.TDavis.foodie_macrotracker;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.Filter;
+import android.widget.Filterable;
+import android.widget.TextView;
+
+import com.TDavis.foodie_macrotracker.FoodModels.NormalizedFoodItem;
+import com.TDavis.foodie_macrotracker.FoodModels.PerServing;
+import com.TDavis.foodie_macrotracker.FoodModels.Per100g;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Dropdown for etFood: the user's own foods from {@link FoodNameIndex} first, then live
+ * proxy matches pushed in by the typeahead ({@link #setRemote}).
+ * Rows are either a {@link FoodNameIndex.Suggestion} or a {@link NormalizedFoodItem}.
+ */
+public class FoodSuggestionAdapter extends BaseAdapter implements Filterable {
+
+    private static final int MAX_SUGGESTIONS = 8;
+    private static final int MAX_REMOTE = 6;
+
+    private final Context context;
+    private final FoodNameIndex index;
+    private List<FoodNameIndex.Suggestion> personal = new ArrayList<>();
+    private volatile List<NormalizedFoodItem> remote = Collections.emptyList(); // read by the filter thread
+    private final List<Object> rows = new ArrayList<>();
+
+    public FoodSuggestionAdapter(Context context, FoodNameIndex index) {
+        this.context = context;
+        this.index = index;
+    }
+
+    /** Replace the proxy rows (main thread). */
+    public void setRemote(List<NormalizedFoodItem> items) {
+        remote = (items == null) ? Collections.emptyList()
+                : new ArrayList<>(items.subList(0, Math.min(items.size(), MAX_REMOTE)));
+        rebuild();
+    }
+
+    @Override public int getCount() { return rows.size(); }
+    @Override public Object getItem(int position) { return rows.get(position); }
+    @Override public long getItemId(int position) { return position; }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        View v = convertView != null ? convertView
+                : LayoutInflater.from(context).inflate(android.R.layout.simple_list_item_2, parent, false);
+        TextView t1 = v.findViewById(android.R.id.text1);
+        TextView t2 = v.findViewById(android.R.id.text2);
+        Object row = rows.get(position);
+        if (row instanceof FoodNameIndex.Suggestion) {
+            FoodNameIndex.Suggestion s = (FoodNameIndex.Suggestion) row;
+            t1.setText(s.name);
+            String mt = (s.mealType == null ? "" : " • " + s.mealType);
+            t2.setText(s.calories + " kcal • P" + s.protein + "/C" + s.carbs + "/F" + s.fat + " g" + mt);
+        } else {
+            NormalizedFoodItem f = (NormalizedFoodItem) row;
+            t1.setText(displayName(f));
+            t2.setText(remoteLine(f));
+        }
+        return v;
+    }
+
+    @Override
+    public Filter getFilter() {
+        return new Filter() {
+            @Override
+            protected FilterResults performFiltering(CharSequence constraint) {
+                FilterResults r = new FilterResults();
+                List<FoodNameIndex.Suggestion> found = index.lookup(constraint, MAX_SUGGESTIONS);
+                r.values = found;
+                r.count = found.size() + remote.size();
+                return r;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            protected void publishResults(CharSequence constraint, FilterResults results) {
+                personal = (results != null && results.values != null)
+                        ? (List<FoodNameIndex.Suggestion>) results.values : new ArrayList<>();
+                rebuild();
+            }
+
+            @Override
+            public CharSequence convertResultToString(Object resultValue) {
+                return (resultValue instanceof FoodNameIndex.Suggestion)
+                        ? ((FoodNameIndex.Suggestion) resultValue).name
+                        : displayName((NormalizedFoodItem) resultValue);
+            }
+        };
+    }
+
+    private void rebuild() {
+        rows.clear();
+        rows.addAll(personal);
+        rows.addAll(remote);
+        if (rows.isEmpty()) notifyDataSetInvalidated(); else notifyDataSetChanged();
+    }
+
+    // ---- small utils ----
+    static String displayName(NormalizedFoodItem f) {
+        String brand = (f.brandName != null && !f.brandName.isEmpty()) ? f.brandName + " " : "";
+        return (brand + (f.description != null ? f.description : "")).trim();
+    }
+
+    private static String remoteLine(NormalizedFoodItem f) {
+        PerServing ps = (f.servings != null) ? f.servings.perServing : null;
+        Per100g p = (f.servings != null) ? f.servings.per100g : null;
+        if (ps != null && ps.hasCalories()) return "USDA • " + ps.calories() + " kcal / serving";
+        if (p != null && p.hasCalories()) return "USDA • " + p.calories() + " kcal / 100 g";
+        return "USDA";
+    }
+}
@@ -0,0 +1,166 @@
+package com.TDavis.foodie_macrotracker;
+
+import android.content.Context;
+
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * "Frequent foods" ranking: time-decayed use counts kept per meal type and per time of day.
+ *
+ * Scores use forward decay in log space: each use adds exp(lambda * t) to a food's score, so
+ * scores never need rescaling as time passes and comparing two logs is the same as comparing
+ * decayed counts. Every bucket holds at most {@link #BUCKET_CAPACITY} foods (lowest score is
+ * evicted), so an update is O(capacity) no matter how long the history is.
+ */
+public final class FrequentFoods {
+
+    private static final String PREFS = "FoodieFrequent";
+    private static final String KEY = "buckets";
+
+    static final int BUCKET_CAPACITY = 24;
+    private static final double HALF_LIFE_DAYS = 14.0;
+    private static final double LAMBDA_PER_MS = Math.log(2) / (HALF_LIFE_DAYS * 24 * 60 * 60 * 1000.0);
+
+    /** One food inside a bucket. */
+    public static class Item {
+        public String name;
+        public int calories, protein, carbs, fat;
+        public String mealType;
+        public double logScore; // log(sum of exp(lambda * t_use))
+        public long lastUsed;
+    }
+
+    private final Context ctx;
+    private HashMap<String, ArrayList<Item>> buckets = new HashMap<>();
+
+    private FrequentFoods(Context ctx) { this.ctx = ctx.getApplicationContext(); }
+
+    /** Loads saved buckets; the history supplier is only used once, on first run. */
+    public static FrequentFoods load(Context ctx, Supplier<? extends Map<String, ? extends List<FoodEntry>>> historyForSeed) {
+        FrequentFoods ff = new FrequentFoods(ctx);
+        String json = ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE).getString(KEY, null);
+        if (json != null) {
+            Type type = new TypeToken<HashMap<String, ArrayList<Item>>>(){}.getType();
+            HashMap<String, ArrayList<Item>> saved = GsonProvider.get().fromJson(json, type);
+            if (saved != null) ff.buckets = saved;
+        } else if (historyForSeed != null) {
+            Map<String, ? extends List<FoodEntry>> history = historyForSeed.get();
+            if (history != null) for (List<FoodEntry> day : history.values()) {
+                if (day != null) for (FoodEntry e : day) ff.add(e);
+            }
+            ff.save();
+        }
+        return ff;
+    }
+
+    /** Count one logged entry in its meal-type bucket and its time-of-day bucket. */
+    public void record(FoodEntry e) {
+        if (add(e)) save();
+    }
+
+    /** Count a batch (a whole meal) with one save. */
+    public void recordAll(List<FoodEntry> batch) {
+        boolean changed = false;
+        for (FoodEntry e : batch) changed |= add(e);
+        if (changed) save();
+    }
+
+    /**
+     * Top foods for this meal type, topped up from the current time-of-day bucket.
+     * Reads at most two buckets of {@link #BUCKET_CAPACITY} items.
+     */
+    public ArrayList<Item> top(String mealType, long now, int limit) {
+        ArrayList<Item> ranked = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String key : new String[]{ mealKey(mealType), timeKey(now) }) {
+            ArrayList<Item> bucket = buckets.get(key);
+            if (bucket == null) continue;
+            ArrayList<Item> sorted = new ArrayList<>(bucket);
+            Collections.sort(sorted, (a, b) -> Double.compare(b.logScore, a.logScore));
+            for (Item it : sorted) {
+                if (ranked.size() >= limit) return ranked;
+                if (seen.add(FoodNameIndex.normalize(it.name))) ranked.add(it);
+            }
+        }
+        return ranked;
+    }
+
+    /* ==============================  internals  ============================== */
+
+    private boolean add(FoodEntry e) {
+        if (e == null || e.name == null || e.name.trim().isEmpty()) return false;
+        long t = e.createdAt > 0 ? e.createdAt : System.currentTimeMillis();
+        bump(mealKey(e.mealType), e, t);
+        bump(timeKey(t), e, t);
+        return true;
+    }
+
+    private void bump(String key, FoodEntry e, long t) {
+        ArrayList<Item> bucket = buckets.get(key);
+        if (bucket == null) { bucket = new ArrayList<>(); buckets.put(key, bucket); }
+
+        String norm = FoodNameIndex.normalize(e.name);
+        double w = LAMBDA_PER_MS * t; // log of this use's weight
+        for (Item it : bucket) {
+            if (FoodNameIndex.normalize(it.name).equals(norm)) {
+                it.logScore = logAddExp(it.logScore, w);
+                if (t >= it.lastUsed) copyValues(it, e, t); // keep the latest macros
+                return;
+            }
+        }
+
+        Item it = new Item();
+        it.logScore = w;
+        copyValues(it, e, t);
+        if (bucket.size() < BUCKET_CAPACITY) { bucket.add(it); return; }
+
+        // Full: replace the weakest food if the newcomer beats it
+        int min = 0;
+        for (int i = 1; i < bucket.size(); i++) if (bucket.get(i).logScore < bucket.get(min).logScore) min = i;
+        if (bucket.get(min).logScore < it.logScore) bucket.set(min, it);
+    }
+
+    private static void copyValues(Item it, FoodEntry e, long t) {
+        it.name = e.name.trim();
+        it.calories = e.calories; it.protein = e.protein; it.carbs = e.carbs; it.fat = e.fat;
+        it.mealType = e.mealType;
+        it.lastUsed = t;
+    }
+
+    private void save() {
+        ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE).edit()
+                .putString(KEY, GsonProvider.get().toJson(buckets))
+                .apply();
+    }
+
+    // ---- small utils ----
+    private static double logAddExp(double a, double b) {
+        double hi = Math.max(a, b), lo = Math.min(a, b);
+        return hi + Math.log1p(Math.exp(lo - hi));
+    }
+
+    private static String mealKey(String mealType) {
+        return "meal:" + ((mealType == null || mealType.trim().isEmpty()) ? "Other" : mealType);
+    }
+
+    // Morning 4-11, midday 11-15, evening 15-21, late 21-4
+    static String timeKey(long millis) {
+        Calendar c = Calendar.getInstance(Locale.US);
+        c.setTimeInMillis(millis);
+        int h = c.get(Calendar.HOUR_OF_DAY);
+        String slot = (h >= 4 && h < 11) ? "morning" : (h >= 11 && h < 15) ? "midday" : (h >= 15 && h < 21) ? "evening" : "late";
+        return "time:" + slot;
+    }
+}
@@ -0,0 +1,51 @@
+package com.TDavis.foodie_macrotracker;
+
+import android.app.PendingIntent;
+import android.appwidget.AppWidgetManager;
+import android.appwidget.AppWidgetProvider;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.widget.RemoteViews;
+
+/** Home-screen widget: today's calories + P/C/F progress, read from {@link TodaySummaryStore}. */
+public class MacroWidgetProvider extends AppWidgetProvider {
+
+    @Override
+    public void onUpdate(Context context, AppWidgetManager manager, int[] appWidgetIds) {
+        render(context, manager, appWidgetIds);
+    }
+
+    /** Push fresh numbers to every placed widget (called after each summary write). */
+    public static void refresh(Context context) {
+        AppWidgetManager manager = AppWidgetManager.getInstance(context);
+        int[] ids = manager.getAppWidgetIds(new ComponentName(context, MacroWidgetProvider.class));
+        if (ids == null || ids.length == 0) return;
+        render(context, manager, ids);
+    }
+
+    private static void render(Context context, AppWidgetManager manager, int[] ids) {
+        TodaySummaryStore.Summary s = TodaySummaryStore.read(context);
+        boolean today = s.isFor(TodaySummaryStore.today());
+        int cal = today ? s.calories : 0, pro = today ? s.protein : 0;
+        int car = today ? s.carbs : 0,    fat = today ? s.fat : 0;
+
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_macros);
+        views.setTextViewText(R.id.tvWidgetCalories, cal + " / " + s.goalCal + " kcal");
+        views.setProgressBar(R.id.pbWidgetCalories, Math.max(s.goalCal, 1), Math.min(cal, s.goalCal), false);
+        views.setTextViewText(R.id.tvWidgetProtein, "P " + pro + "/" + s.goalPro);
+        views.setProgressBar(R.id.pbWidgetProtein, Math.max(s.goalPro, 1), Math.min(pro, s.goalPro), false);
+        views.setTextViewText(R.id.tvWidgetCarbs, "C " + car + "/" + s.goalCar);
+        views.setProgressBar(R.id.pbWidgetCarbs, Math.max(s.goalCar, 1), Math.min(car, s.goalCar), false);
+        views.setTextViewText(R.id.tvWidgetFat, "F " + fat + "/" + s.goalFat);
+        views.setProgressBar(R.id.pbWidgetFat, Math.max(s.goalFat, 1), Math.min(fat, s.goalFat), false);
+
+        // Tap anywhere -> open the app
+        Intent open = new Intent(context, MainActivity.class);
+        PendingIntent pi = PendingIntent.getActivity(context, 0, open,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        views.setOnClickPendingIntent(R.id.widgetRoot, pi);
+
+        manager.updateAppWidget(ids, views);
+    }
+}
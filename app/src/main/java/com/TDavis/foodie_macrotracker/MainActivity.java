@@ -8,12 +8,16 @@ import android.os.Bundle;
 import android.text.Editable;
 import android.text.TextWatcher;
 import android.view.View;
+import android.widget.AbsListView;
+import android.widget.AdapterView;
 import android.view.inputmethod.EditorInfo;
 import android.view.inputmethod.InputMethodManager;
 import android.widget.ArrayAdapter;
+import android.widget.AutoCompleteTextView;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.ImageView;
+import android.widget.ListView;
 import android.widget.ProgressBar;
 import android.widget.Spinner;
 import android.widget.TextView;
@@ -23,6 +27,8 @@ import androidx.appcompat.app.AppCompatDelegate;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.google.android.material.chip.Chip;
+import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.textfield.MaterialAutoCompleteTextView;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.gson.Gson;
@@ -32,6 +38,7 @@ import java.lang.reflect.Type;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
 import com.google.mlkit.vision.codescanner.GmsBarcodeScanner;
@@ -39,12 +46,14 @@ import com.google.mlkit.vision.codescanner.GmsBarcodeScannerOptions;
 import com.google.mlkit.vision.codescanner.GmsBarcodeScanning;
 import com.google.mlkit.vision.barcode.common.Barcode;
 
+import com.TDavis.foodie_macrotracker.FoodModels.Macros;
+import com.TDavis.foodie_macrotracker.FoodModels.NormalizedFoodItem;
+import com.TDavis.foodie_macrotracker.FoodModels.PerServing;
+import com.TDavis.foodie_macrotracker.FoodModels.Unit;
+import com.TDavis.foodie_macrotracker.net.CircuitBreaker;
 import com.TDavis.foodie_macrotracker.net.RetroFitProvider;
-import com.TDavis.foodie_macrotracker.net.UsdaProxyService;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import com.TDavis.foodie_macrotracker.net.SearchPager;
+import com.TDavis.foodie_macrotracker.net.TypeaheadSearch;
 
 import android.app.DatePickerDialog;
 import java.util.Calendar;
@@ -52,10 +61,14 @@ import java.util.Calendar;
 
 public class MainActivity extends AppCompatActivity {
 
+    /** Intent extra (from the quick-add tile): re-log the most recent food. */
+    public static final String EXTRA_QUICK_ADD = "com.TDavis.foodie_macrotracker.QUICK_ADD";
+
     // Inputs + UI
-    EditText etFood, etCalories, etProtein, etCarbs, etFat;
+    AutoCompleteTextView etFood;
+    EditText etCalories, etProtein, etCarbs, etFat;
     Button btnAdd, btnClear, btnSettings;
-    TextView tvTotals, tvDate;
+    TextView tvTotals, tvDate, tvOfflineBanner;
 
     // Meal type spinner
     Spinner spMealType;
@@ -77,11 +90,35 @@ public class MainActivity extends AppCompatActivity {
     Button btnPrevDay, btnNextDay;
     String currentDate; // yyyy-MM-dd we’re viewing
     ArrayList<FoodEntry> displayEntries = new ArrayList<>(); // what the adapter shows (today or history)
-    boolean searchMode = false;
+
+    // Past days, one file per day (files/history)
+    HistoryStore history;
+
+    // Food form state (name, quantity, unit, macros); views are updated from it once per frame
+    FoodForm form;
 
     // Scanner
     GmsBarcodeScanner barcodeScanner;
 
+    // Personal autocomplete over logged food names
+    FoodNameIndex nameIndex;
+    FoodSuggestionAdapter suggestionAdapter;
+    TypeaheadSearch typeahead;
+
+    // Orders search results on the device (words matched, past picks, data type)
+    SearchRanker ranker;
+
+    // Multi-item entries ("2 eggs, 1 cup rice") looked up together
+    MealResolver mealResolver;
+
+    // Frequent-foods strip (decayed top-K per meal type / time of day)
+    FrequentFoods frequentFoods;
+
+    // Saved meals, logged again in one batch
+    MealTemplates mealTemplates;
+    private View frequentScroll;
+    private ChipGroup cgFrequent;
+
     // Collapsible nutrition card
     private View nutritionCard, nutritionHeader, nutritionContent;
     private ImageView ivChevron;
@@ -91,33 +128,10 @@ public class MainActivity extends AppCompatActivity {
     private TextInputEditText etQuantity;
 
     // === Scaling state (per normalized proxy) ===
-    private ArrayList<Unit> unitList = new ArrayList<>();
-    private Unit selectedUnit;
-    private Per100g basePer100g = new Per100g();
-
-    // === Models matching normalized proxy (keep here for simplicity) ===
-    public static class Unit { public String label; public double gramsPerUnit; }
-    public static class Per100g { public Integer calories; public Double protein, carbs, fat; }
-    public static class PerServing { public Integer calories; public Double protein, carbs, fat; public Double grams; }
-    public static class Servings { public Per100g per100g; public PerServing perServing; }
-    public static class NormalizedFoodItem {
-        public long fdcId;
-        public String description;
-        public String brandName;
-        public Servings servings;
-        public ArrayList<Unit> units;
-    }
-    public static class FoodSearchResponseV2 {
-        public int totalHits;
-        public int pageNumber;
-        public ArrayList<NormalizedFoodItem> items;
-    }
-    public static class BarcodeLookupResponse {
-        public NormalizedFoodItem item;
-    }
+    private UnitRegistry units = UnitRegistry.of(java.util.Arrays.asList(Unit.GRAM, Unit.OUNCE));
+    private long shownFdcId; // USDA food currently filled into the form (0 = none)
 
     // ---- small utils ----
-    private static double parseD(CharSequence s, double fb){ try { return Double.parseDouble(String.valueOf(s).trim()); } catch(Exception e){ return fb; } }
     private static int r0(double v){ return (int)Math.round(v); }
     private static double r1(double v){ return Math.round(v*10.0)/10.0; }
 
@@ -140,6 +154,7 @@ public class MainActivity extends AppCompatActivity {
         tvTotals   = findViewById(R.id.tvTotals);
         tvDate     = findViewById(R.id.tvDate);
         tvDate.setOnClickListener(v -> showDatePicker());
+        tvOfflineBanner = findViewById(R.id.tvOfflineBanner);
         spMealType = findViewById(R.id.spMealType);
 
         tvCalorieProgress = findViewById(R.id.tvCalorieProgress);
@@ -164,6 +179,10 @@ public class MainActivity extends AppCompatActivity {
 
         etQuantity = findViewById(R.id.etQuantity);
         actvUnit   = findViewById(R.id.actvUnit);
+        form = new FoodForm(etFood, etQuantity, etCalories, etProtein, etCarbs, etFat, searchMode -> updateAddButtonLabel());
+
+        frequentScroll = findViewById(R.id.frequentScroll);
+        cgFrequent     = findViewById(R.id.cgFrequent);
 
         // Collapse/expand
         nutritionHeader.setOnClickListener(v -> {
@@ -188,24 +207,20 @@ public class MainActivity extends AppCompatActivity {
                     .addOnSuccessListener(b -> {
                         String code = b.getRawValue();
                         if (code == null || code.trim().isEmpty()) { toast("No code read."); return; }
-                        etFood.setText(code); // temporary
-                        etCalories.setText(""); etProtein.setText(""); etCarbs.setText(""); etFat.setText("");
+                        form.setName(code); // temporary
+                        form.setMacros("", "", "", "");
                         searchByBarcode(code.trim());
                     })
                     .addOnFailureListener(e -> toast("Scan cancelled"));
         });
+        // Long-press -> continuous scanning (many products in a row), then one review list
+        btnScan.setOnLongClickListener(v -> {
+            if (!currentDate.equals(getTodayString())) { toast("Switch to Today to scan."); return true; }
+            startScanSession();
+            return true;
+        });
 
-        // Inputs watcher to toggle Search/Add label
-        TextWatcher watcher = new TextWatcher() {
-            @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
-            @Override public void onTextChanged(CharSequence s, int start, int before, int count) { updateAddButtonLabel(); }
-            @Override public void afterTextChanged(Editable s) {}
-        };
-        etFood.addTextChangedListener(watcher);
-        etCalories.addTextChangedListener(watcher);
-        etProtein.addTextChangedListener(watcher);
-        etCarbs.addTextChangedListener(watcher);
-        etFat.addTextChangedListener(watcher);
+        // Search/Add label follows the form (FoodForm reports mode flips)
         updateAddButtonLabel();
 
         // Meal type spinner data
@@ -213,6 +228,10 @@ public class MainActivity extends AppCompatActivity {
                 this, R.array.meal_types, android.R.layout.simple_spinner_item);
         mealAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         spMealType.setAdapter(mealAdapter);
+        spMealType.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override public void onItemSelected(AdapterView<?> p, View v, int pos, long id) { renderFrequentFoods(); }
+            @Override public void onNothingSelected(AdapterView<?> p) {}
+        });
 
         // RecyclerView
         rvEntries  = findViewById(R.id.rvEntries);
@@ -222,10 +241,13 @@ public class MainActivity extends AppCompatActivity {
 
         adapter.setOnItemClickListener(this::showEditDialog);
         adapter.setOnItemLongClickListener(this::confirmDelete);
+        adapter.setOnSectionLongClickListener(this::showSectionActions);
 
         // Buttons/IME
         btnClear.setOnClickListener(v -> clearAllData());
-        btnAdd.setOnClickListener(v -> { if (searchMode) searchAndPopulate(); else addEntry(); });
+        btnAdd.setOnClickListener(v -> { if (form.searchMode()) searchAndPopulate(); else addEntry(); });
+        btnAdd.setOnLongClickListener(v -> { showTemplatePicker(); return true; });
+        tvDate.setOnLongClickListener(v -> { confirmCopyDay(currentDate); return true; });
         btnSettings.setOnClickListener(v -> startActivity(new Intent(this, SettingsActivity.class)));
         etFat.setOnEditorActionListener((v, actionId, event) -> {
             if (actionId == EditorInfo.IME_ACTION_DONE) { addEntry(); return true; }
@@ -240,10 +262,49 @@ public class MainActivity extends AppCompatActivity {
         pbFat.setMax(goalFat);
 
         // Data + date header
+        history = HistoryStore.in(new java.io.File(getFilesDir(), "history"));
         loadData();
         currentDate = getTodayString();
         refreshForDate(currentDate);
 
+        // Autocomplete from the user's own foods (history is only read on the very first run)
+        nameIndex = FoodNameIndex.load(this, this::loadHistory);
+        suggestionAdapter = new FoodSuggestionAdapter(this, nameIndex);
+        ranker = SearchRanker.load(this, nameIndex);
+        etFood.setAdapter(suggestionAdapter);
+        etFood.setOnItemClickListener((parent, view, position, id) -> {
+            Object row = parent.getItemAtPosition(position);
+            if (row instanceof FoodNameIndex.Suggestion) applySuggestion((FoodNameIndex.Suggestion) row);
+            else if (row instanceof NormalizedFoodItem) { typeahead.cancel(); applyChosenFood((NormalizedFoodItem) row, true); }
+        });
+
+        // About to type a food: make sure the proxy connection is warm
+        etFood.setOnFocusChangeListener((v, hasFocus) -> {
+            if (!hasFocus) return;
+            RetroFitProvider.warmer(this).warm();
+            RetroFitProvider.warmer(this).onUserActivity();
+        });
+
+        // Live proxy matches while typing (debounced; see TypeaheadSearch)
+        typeahead = new TypeaheadSearch(RetroFitProvider.get(this), this::showRemoteSuggestions);
+        mealResolver = new MealResolver(this);
+        etFood.addTextChangedListener(new TextWatcher() {
+            @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+            @Override public void onTextChanged(CharSequence s, int start, int before, int count) {}
+            @Override public void afterTextChanged(Editable s) {
+                if (etFood.hasFocus()) RetroFitProvider.warmer(MainActivity.this).onUserActivity();
+                // Only while the user is typing a name to look up (not on picks or programmatic fills)
+                if (etFood.isPerformingCompletion()) return;
+                if (!form.isApplying() && form.searchMode() && etFood.hasFocus() && currentDate.equals(getTodayString())) typeahead.onQueryChanged(s);
+                else { typeahead.cancel(); suggestionAdapter.setRemote(null); }
+            }
+        });
+
+        frequentFoods = FrequentFoods.load(this, this::loadHistory);
+        mealTemplates = MealTemplates.load(this);
+        renderFrequentFoods();
+        CacheWarmJob.schedule(this); // usual foods fetched overnight (idle, charging, Wi-Fi)
+
         btnPrevDay.setOnClickListener(v -> {
             currentDate = shiftDateString(currentDate, -1);
             refreshForDate(currentDate);
@@ -255,6 +316,38 @@ public class MainActivity extends AppCompatActivity {
 
         // === Serving scaling UI (default gram/oz + listeners) ===
         setupScalingUi();
+
+        if (savedInstanceState == null) handleQuickAdd(getIntent());
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        RetroFitProvider.breaker().addListener(offlineBannerListener);
+        showOfflineBanner(RetroFitProvider.breaker().state());
+        RetroFitProvider.warmer(this).warm(); // first search shouldn't pay DNS/TLS/cold start
+    }
+
+    @Override
+    protected void onStop() {
+        RetroFitProvider.breaker().removeListener(offlineBannerListener);
+        RetroFitProvider.warmer(this).stop();
+        if (nameIndex != null) nameIndex.flush();
+        super.onStop();
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (typeahead != null) typeahead.cancel();
+        if (mealResolver != null) mealResolver.cancel();
+        super.onDestroy();
+    }
+
+    @Override
+    protected void onNewIntent(Intent intent) {
+        super.onNewIntent(intent);
+        setIntent(intent);
+        handleQuickAdd(intent);
     }
 
     @Override
@@ -282,38 +375,69 @@ public class MainActivity extends AppCompatActivity {
 
     // Add entry
     private void addEntry() {
-        String name = etFood.getText().toString();
-        int cal = parseInt(etCalories.getText().toString());
-        int pro = parseInt(etProtein.getText().toString());
-        int car = parseInt(etCarbs.getText().toString());
-        int fat = parseInt(etFat.getText().toString());
+        String name = form.name();
+        int cal = parseInt(form.macro(0));
+        int pro = parseInt(form.macro(1));
+        int car = parseInt(form.macro(2));
+        int fat = parseInt(form.macro(3));
 
         if (!validateInputs(name, cal, pro, car, fat)) return;
 
-        String today = getTodayString();
-        String mealType = (String) spMealType.getSelectedItem();
+        logEntry(name, cal, pro, car, fat, (String) spMealType.getSelectedItem());
 
-        FoodEntry entry = new FoodEntry(name, cal, pro, car, fat, today, mealType);
-        entries.add(0, entry);                 // newest logical first
-        totalCalories += cal;
-        totalProtein  += pro;
-        totalCarbs    += car;
-        totalFat      += fat;
+        // Reset inputs + focus
+        shownFdcId = 0;
+        form.clear();
+        hideKeyboard(etFat);
+        etFood.requestFocus();
+    }
+
+    // Single add (form, quick-add tile)
+    private void logEntry(String name, int cal, int pro, int car, int fat, String mealType) {
+        logEntries(java.util.Collections.singletonList(new FoodEntry(name, cal, pro, car, fat, getTodayString(), mealType)));
+    }
+
+    // Shared add path: a whole meal costs one save, one totals update and one list rebuild
+    private void logEntries(List<FoodEntry> batch) {
+        if (batch.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < batch.size(); i++) {
+            FoodEntry e = batch.get(i);
+            e.createdAt = now - i;             // a ms apart, descending: newest-first sorts keep the batch's order
+            totalCalories += e.calories;
+            totalProtein  += e.protein;
+            totalCarbs    += e.carbs;
+            totalFat      += e.fat;
+        }
+        entries.addAll(0, batch);              // newest logical first
+        RetroFitProvider.warmer(this).onUserActivity(); // still logging: keep the connection warm
+        nameIndex.recordAll(batch);
+        frequentFoods.recordAll(batch);
 
         adapter.setData(entries);              // rebuild sections
         rvEntries.scrollToPosition(0);
         updateTotalsText();
         saveData();
         updateProgressUI();
+        renderFrequentFoods();
+    }
 
-        // Reset inputs + focus
-        etFood.setText("");
-        etCalories.setText("");
-        etProtein.setText("");
-        etCarbs.setText("");
-        etFat.setText("");
-        hideKeyboard(etFat);
-        etFood.requestFocus();
+    // Quick-add tile: log the last food again (values come from the summary file)
+    private void handleQuickAdd(Intent intent) {
+        if (intent == null || !intent.getBooleanExtra(EXTRA_QUICK_ADD, false)) return;
+        if ((intent.getFlags() & Intent.FLAG_ACTIVITY_LAUNCHED_FROM_HISTORY) != 0) return; // reopened from Recents
+
+        TodaySummaryStore.Summary s = TodaySummaryStore.read(this);
+        if (!s.hasLast()) { toast("Nothing to quick-add yet."); return; }
+
+        // Adds always go to today
+        if (!currentDate.equals(getTodayString())) {
+            currentDate = getTodayString();
+            refreshForDate(currentDate);
+        }
+        String meal = s.lastMeal.isEmpty() ? (String) spMealType.getSelectedItem() : s.lastMeal;
+        logEntry(s.lastName, s.lastCal, s.lastPro, s.lastCar, s.lastFat, meal);
+        toast("Logged " + s.lastName + " again.");
     }
 
     // Delete (with confirm)
@@ -392,6 +516,7 @@ public class MainActivity extends AppCompatActivity {
                     totalCarbs    += (newCar - oldCar);
                     totalFat      += (newFat - oldFat);
 
+                    nameIndex.correct(e);
                     adapter.setData(entries);
                     updateTotalsText();
                     saveData();
@@ -401,11 +526,11 @@ public class MainActivity extends AppCompatActivity {
                 .show();
     }
 
-    // Persistence
+    // Persistence: today's list and totals go out in one commit, then today's history file
     private void saveData() {
         SharedPreferences prefs = getSharedPreferences("FoodiePrefs", MODE_PRIVATE);
         SharedPreferences.Editor editor = prefs.edit();
-        Gson gson = new Gson();
+        Gson gson = GsonProvider.get();
 
         String json = gson.toJson(entries);
         editor.putString("entries", json);
@@ -417,29 +542,34 @@ public class MainActivity extends AppCompatActivity {
         editor.putString("lastSavedDate", today);
         editor.apply();
 
-        // Mirror into "history" map keyed by date
-        java.lang.reflect.Type mapType = new com.google.gson.reflect.TypeToken<java.util.HashMap<String, java.util.ArrayList<FoodEntry>>>(){}.getType();
-        String hJson = prefs.getString("history", null);
-        java.util.HashMap<String, java.util.ArrayList<FoodEntry>> history =
-                (hJson == null ? new java.util.HashMap<>() : gson.fromJson(hJson, mapType));
-        history.put(today, new java.util.ArrayList<>(entries));
-        prefs.edit().putString("history", gson.toJson(history)).apply();
+        // Mirror into today's history file (only this day is rewritten)
+        history.putDay(today, new ArrayList<>(entries));
+
+        writeSummary();
     }
 
     private void loadData() {
         SharedPreferences prefs = getSharedPreferences("FoodiePrefs", MODE_PRIVATE);
-        Gson gson = new Gson();
+        Gson gson = GsonProvider.get();
+        migrateHistory(prefs);
 
         String lastSavedDate = prefs.getString("lastSavedDate", "");
         String today = getTodayString();
+        Type type = new TypeToken<ArrayList<FoodEntry>>(){}.getType();
 
         if (!today.equals(lastSavedDate)) {
+            // New day: the saved entries are the finished day's last state. Its history file may
+            // not have caught up (the app died before the background write, or it failed), so
+            // write them there before the prefs copy is cleared.
+            ArrayList<FoodEntry> finished = gson.fromJson(prefs.getString("entries", null), type);
+            if (finished != null && !finished.isEmpty() && HistoryStore.isDate(lastSavedDate)) {
+                history.putDayNow(lastSavedDate, finished);
+            }
             entries.clear();
             totalCalories = totalProtein = totalCarbs = totalFat = 0;
             saveData();
         } else {
             String json = prefs.getString("entries", null);
-            Type type = new TypeToken<ArrayList<FoodEntry>>(){}.getType();
             ArrayList<FoodEntry> savedEntries = gson.fromJson(json, type);
 
             if (savedEntries != null) {
@@ -499,9 +629,21 @@ public class MainActivity extends AppCompatActivity {
                 .putString("lastSavedDate", getTodayString())
                 .apply();
 
+        writeSummary();
         updateProgressUI();
     }
 
+    // Small fixed-size record for the widget/tile (never touches entries/history JSON)
+    private void writeSummary() {
+        TodaySummaryStore.Summary s = TodaySummaryStore.read(this);
+        s.date = getTodayString();
+        s.calories = totalCalories; s.protein = totalProtein; s.carbs = totalCarbs; s.fat = totalFat;
+        s.goalCal = goalCal; s.goalPro = goalPro; s.goalCar = goalCar; s.goalFat = goalFat;
+        if (!entries.isEmpty()) s.setLast(entries.get(0)); // newest first; keep old one if list is empty
+        TodaySummaryStore.write(this, s);
+        MacroWidgetProvider.refresh(this);
+    }
+
     // Utils
     private int parseInt(String s) { try { return Integer.parseInt(s); } catch (NumberFormatException e) { return 0; } }
     private boolean validateInputs(String name, int cal, int pro, int car, int fat) {
@@ -538,10 +680,8 @@ public class MainActivity extends AppCompatActivity {
         adapter.setData(displayEntries);
 
         // Compute local totals for this day
-        int cal=0, pro=0, car=0, fat=0;
-        for (FoodEntry e : displayEntries) {
-            cal += e.calories; pro += e.protein; car += e.carbs; fat += e.fat;
-        }
+        DaySections.Totals t = DaySections.Totals.of(displayEntries);
+        int cal = t.calories, pro = t.protein, car = t.carbs, fat = t.fat;
         // Show totals for that day
         tvTotals.setText("Totals: " + cal + " kcal • P" + pro + "/C" + car + "/F" + fat + " g");
 
@@ -570,18 +710,28 @@ public class MainActivity extends AppCompatActivity {
 
         // Next arrow disabled when at today (no future)
         btnNextDay.setEnabled(!isToday);
+
+        renderFrequentFoods();
     }
 
-    // Load entries for a specific date from history map
+    // Load entries for a specific date (that day's file only; empty if nothing logged)
     private java.util.ArrayList<FoodEntry> loadEntriesFor(String date) {
-        SharedPreferences prefs = getSharedPreferences("FoodiePrefs", MODE_PRIVATE);
+        return history.day(date);
+    }
+
+    // Whole date -> entries map; reads every day, so only for first-run seeding
+    private java.util.Map<String, java.util.ArrayList<FoodEntry>> loadHistory() {
+        return history.all();
+    }
+
+    // Older versions kept all days in one "history" prefs string: split it into day files once.
+    // The import writes synchronously (a one-time cost) so the string is removed only after every
+    // day is on disk; if a write fails it stays and the next launch finishes the job.
+    private void migrateHistory(SharedPreferences prefs) {
         String hJson = prefs.getString("history", null);
-        if (hJson == null) return new java.util.ArrayList<>();
-        Gson gson = new Gson();
+        if (hJson == null) return;
         java.lang.reflect.Type mapType = new com.google.gson.reflect.TypeToken<java.util.HashMap<String, java.util.ArrayList<FoodEntry>>>(){}.getType();
-        java.util.HashMap<String, java.util.ArrayList<FoodEntry>> history = gson.fromJson(hJson, mapType);
-        java.util.ArrayList<FoodEntry> list = history.get(date);
-        return (list == null) ? new java.util.ArrayList<>() : list;
+        if (history.importAll(GsonProvider.get().fromJson(hJson, mapType))) prefs.edit().remove("history").apply();
     }
 
     // Shift a yyyy-MM-dd string by +/- days
@@ -603,66 +753,99 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    private boolean isEmpty(EditText e){ return e.getText()==null || e.getText().toString().trim().isEmpty(); }
-
     private void updateAddButtonLabel() {
-        String name = etFood.getText()==null ? "" : etFood.getText().toString().trim();
-        boolean noMacros = isEmpty(etCalories) && isEmpty(etProtein) && isEmpty(etCarbs) && isEmpty(etFat);
-        searchMode = (!name.isEmpty() && noMacros);
+        boolean searchMode = form.searchMode();
         btnAdd.setText(searchMode ? "Search" : "Add Entry");
+        if (!searchMode && typeahead != null) typeahead.cancel(); // macros filled: nothing left to look up
     }
 
-    /* ==============================  SCALING UI  ============================== */
+    // Typeahead results for the text currently in etFood
+    private void showRemoteSuggestions(String query, List<NormalizedFoodItem> items) {
+        if (!TypeaheadSearch.normalize(etFood.getText()).equals(query)) return; // text moved on meanwhile
+        suggestionAdapter.setRemote(items);
+        if (!items.isEmpty()) FoodDetailCache.get(this).prefetch(items.get(0)); // likely pick
+        if (suggestionAdapter.getCount() > 0 && etFood.hasFocus() && !etFood.isPopupShowing()) etFood.showDropDown();
+    }
 
-    private void setupScalingUi() {
-        // Default units before any result arrives
-        unitList.clear();
-        Unit g = new Unit(); g.label="gram (g)"; g.gramsPerUnit=1.0; unitList.add(g);
-        Unit oz = new Unit(); oz.label="ounce (oz)"; oz.gramsPerUnit=28.3495; unitList.add(oz);
-        setUnitsAdapterAndSelect(0);
+    // Autocomplete pick: fill the form from the last time this food was logged (no network)
+    private void applySuggestion(FoodNameIndex.Suggestion s) {
+        if (s == null) return;
+        form.setBase(null); // no per-100g data for personal foods; keep quantity edits from rescaling stale values
+        shownFdcId = 0;
+        form.setName(s.name);
+        form.setMacros(String.valueOf(s.calories), String.valueOf(s.protein), String.valueOf(s.carbs), String.valueOf(s.fat));
+        selectMealType(s.mealType);
+        updateAddButtonLabel();
+    }
 
-        if (etQuantity.getText()==null || etQuantity.getText().length()==0) etQuantity.setText("1");
+    /* ==============================  OFFLINE MODE  ============================== */
 
-        etQuantity.addTextChangedListener(new TextWatcher() {
-            @Override public void beforeTextChanged(CharSequence s,int a,int b,int c){}
-            @Override public void onTextChanged(CharSequence s,int a,int b,int c){}
-            @Override public void afterTextChanged(Editable s){ recomputeAndRender(); }
-        });
+    private static final String OFFLINE_MSG = "Offline mode: the food server can't be reached right now.";
 
-        actvUnit.setOnItemClickListener((parent, view, position, id) -> {
-            selectedUnit = unitList.get(position);
-            recomputeAndRender();
-        });
+    private final CircuitBreaker.Listener offlineBannerListener = this::showOfflineBanner;
+
+    private void showOfflineBanner(CircuitBreaker.State state) {
+        tvOfflineBanner.setVisibility(state == CircuitBreaker.State.CLOSED ? View.GONE : View.VISIBLE);
     }
 
-    private void setUnitsAdapterAndSelect(int index) {
-        ArrayList<String> labels = new ArrayList<>();
-        for (Unit u : unitList) labels.add(u.label);
-        ArrayAdapter<String> ad = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, labels);
-        actvUnit.setAdapter(ad);
-        index = Math.max(0, Math.min(index, unitList.size()-1));
-        selectedUnit = unitList.get(index);
-        actvUnit.setText(selectedUnit.label, false);
+    /* ==============================  FREQUENT FOODS  ============================== */
+
+    private void renderFrequentFoods() {
+        if (frequentFoods == null) return;
+        boolean isToday = currentDate != null && currentDate.equals(getTodayString());
+        ArrayList<FrequentFoods.Item> top = isToday
+                ? frequentFoods.top((String) spMealType.getSelectedItem(), System.currentTimeMillis(), 8)
+                : new ArrayList<>();
+
+        cgFrequent.removeAllViews();
+        for (FrequentFoods.Item it : top) {
+            Chip chip = new Chip(this);
+            chip.setText(it.name);
+            chip.setOnClickListener(v -> logFrequent(it));
+            cgFrequent.addView(chip);
+        }
+        frequentScroll.setVisibility(top.isEmpty() ? View.GONE : View.VISIBLE);
+    }
+
+    // One tap = normal add path, filed under the meal currently selected
+    private void logFrequent(FrequentFoods.Item it) {
+        if (!currentDate.equals(getTodayString())) { toast("Switch to Today to add."); return; }
+        logEntry(it.name, it.calories, it.protein, it.carbs, it.fat, (String) spMealType.getSelectedItem());
+        toast("Logged " + it.name + ".");
     }
 
-    private void recomputeAndRender() {
-        if (selectedUnit == null || basePer100g == null) return;
+    private void selectMealType(String mealType) {
+        if (mealType == null) return;
+        for (int i = 0; i < spMealType.getCount(); i++) {
+            if (mealType.equals(String.valueOf(spMealType.getItemAtPosition(i)))) { spMealType.setSelection(i); return; }
+        }
+    }
+
+    /* ==============================  SCALING UI  ============================== */
 
-        double qty = parseD(etQuantity.getText()==null? "" : etQuantity.getText(), 1.0);
-        if (qty <= 0) qty = 1.0;
-        double grams = qty * selectedUnit.gramsPerUnit;
+    private void setupScalingUi() {
+        // Default units (g, oz) before any result arrives; quantity edits rescale through the form
+        setUnitsAdapterAndSelect(0);
 
-        Double cal100 = (basePer100g.calories==null? null : basePer100g.calories.doubleValue());
-        Double pro100 = basePer100g.protein, carb100 = basePer100g.carbs, fat100 = basePer100g.fat;
+        actvUnit.setOnItemClickListener((parent, view, position, id) -> form.setUnit(units.get(position)));
+    }
 
-        etCalories.setText(cal100==null? "" : String.valueOf(r0(cal100 * grams / 100.0)));
-        etProtein .setText(pro100==null? "" : String.valueOf(r1(pro100 * grams / 100.0)));
-        etCarbs   .setText(carb100==null? "" : String.valueOf(r1(carb100 * grams / 100.0)));
-        etFat     .setText(fat100==null? "" : String.valueOf(r1(fat100 * grams / 100.0)));
+    private void setUnitsAdapterAndSelect(int index) {
+        ArrayList<String> labels = new ArrayList<>();
+        for (Unit u : units.units()) labels.add(u.label);
+        ArrayAdapter<String> ad = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, labels);
+        actvUnit.setAdapter(ad);
+        index = Math.max(0, Math.min(index, units.size()-1));
+        Unit u = units.get(index);
+        form.setUnit(u);
+        actvUnit.setText(u.label, false);
     }
 
     /* ==============================  SEARCH  ============================== */
 
+    private static final int LOCAL_CANDIDATES = 30;   // bundled-db hits ranked before the top 10 are shown
+    private static final int MIN_REFINE_MATCHES = 5;  // a recent page must hold this many to answer a refinement
+
     private void searchAndPopulate() {
         if (!currentDate.equals(getTodayString())) {
             toast("Switch to Today to search/add.");
@@ -671,48 +854,49 @@ public class MainActivity extends AppCompatActivity {
 
         String query = etFood.getText() == null ? "" : etFood.getText().toString().trim();
         if (query.isEmpty()) { toast("Enter a food name to search."); return; }
+        typeahead.cancel(); // explicit search supersedes the pending typeahead request
+        etFood.dismissDropDown();
+
+        List<MealParser.Item> meal = MealParser.parse(query);
+        if (MealParser.isMeal(meal)) { resolveMeal(meal); return; }
+
+        // Generic foods come from the bundled USDA database (offline, no proxy cold start);
+        // the proxy is only needed for branded foods or when nothing local matches.
+        OfflineFoodDb local = OfflineFoodDb.get(this);
+        ArrayList<NormalizedFoodItem> localHits = (local == null) ? new ArrayList<>() : local.search(query, LOCAL_CANDIDATES);
+        if (!localHits.isEmpty()) {
+            showResultPicker(ranker.rank(query, localHits), query);
+            return;
+        }
+        if (RetroFitProvider.breaker().isOpen()) { toast(OFFLINE_MSG); return; } // don't wait on a known-down proxy
+        searchRemote(query);
+    }
+
+    private void searchRemote(String query) {
+        SearchPager pager = SearchPager.obtain(RetroFitProvider.get(this), query);
+        if (pager.hasPage(1)) { showPagedPicker(pager, ""); return; } // same search moments ago: reuse its pages
+
+        // A refinement of a recent search ("chicken" -> "chicken breast"): filter its page, no request
+        SearchPager wider = widerPager(query, pager);
+        if (wider != null) { showPagedPicker(wider, query); return; }
 
         btnAdd.setEnabled(false);
         btnAdd.setText("Searching…");
 
-        UsdaProxyService api = RetroFitProvider.get();
-        api.searchFoodsNormalized(query, 10, 1).enqueue(new Callback<FoodSearchResponseV2>() {
-            @Override
-            public void onResponse(Call<FoodSearchResponseV2> call, Response<FoodSearchResponseV2> resp) {
+        pager.setListener(new SearchPager.Listener() {
+            @Override public void onPage(int pageNumber, List<NormalizedFoodItem> list) {
+                pager.setListener(null);
                 btnAdd.setEnabled(true);
 
-                if (!resp.isSuccessful() || resp.body() == null || resp.body().items == null || resp.body().items.isEmpty()) {
+                if (list.isEmpty()) {
                     btnAdd.setText("Search");
                     toast("No matches found.");
                     updateAddButtonLabel();
                     return;
                 }
 
-                ArrayList<NormalizedFoodItem> list = resp.body().items;
-
-                if (list.size() > 1) {
-                    ArrayList<NormalizedFoodItem> show = new ArrayList<>(list.subList(0, Math.min(10, list.size())));
-                    ArrayList<String> labels = new ArrayList<>();
-                    for (NormalizedFoodItem f : show) {
-                        String brand = (f.brandName == null || f.brandName.isEmpty()) ? "" : " • " + f.brandName;
-                        String serv = (f.servings!=null && f.servings.perServing!=null && f.servings.perServing.grams!=null)
-                                ? (" • " + r0(f.servings.perServing.grams) + "g serving") : "";
-                        String kcal100 = (f.servings!=null && f.servings.per100g!=null && f.servings.per100g.calories!=null)
-                                ? (" — " + f.servings.per100g.calories + " kcal/100g") : "";
-                        labels.add(f.description + brand + serv + kcal100);
-                    }
-
-                    new androidx.appcompat.app.AlertDialog.Builder(MainActivity.this)
-                            .setTitle("Pick a match")
-                            .setItems(labels.toArray(new String[0]), (d, which) -> {
-                                NormalizedFoodItem best = show.get(which);
-                                applyChosenFood(best, true);
-                            })
-                            .setNegativeButton("Cancel", (d, w) -> {
-                                btnAdd.setText("Search");
-                                updateAddButtonLabel();
-                            })
-                            .show();
+                if (list.size() > 1 || pager.hasMore()) {
+                    showPagedPicker(pager, "");
                     return;
                 }
 
@@ -720,67 +904,198 @@ public class MainActivity extends AppCompatActivity {
                 applyChosenFood(list.get(0), true);
             }
 
-            @Override
-            public void onFailure(Call<FoodSearchResponseV2> call, Throwable t) {
+            @Override public void onError(int pageNumber, Throwable t) {
+                pager.setListener(null);
                 btnAdd.setEnabled(true);
                 btnAdd.setText("Search");
-                toast("Search failed. Check connection/server.");
+                toast(t instanceof CircuitBreaker.OpenException ? OFFLINE_MSG : "Search failed. Check connection/server.");
                 updateAddButtonLabel();
             }
         });
+        pager.load(1);
+    }
+
+    /**
+     * A recent search whose words are all in `query` and whose loaded results already hold
+     * {@link #MIN_REFINE_MATCHES} items matching every word of it; null if none.
+     */
+    private SearchPager widerPager(String query, SearchPager exact) {
+        List<String> words = SearchRanker.words(query);
+        for (SearchPager p : SearchPager.recent()) {
+            if (p == exact || !words.containsAll(SearchRanker.words(p.query()))) continue;
+            if (SearchRanker.matchingAll(query, p.items()).size() >= MIN_REFINE_MATCHES) return p;
+        }
+        return null;
+    }
+
+    /**
+     * Scrollable pick-a-match list over every result page, each page ranked on the device as it
+     * arrives (earlier pages keep their order, so rows don't move under the user's finger). The
+     * next page is requested a few rows before the end, so it is usually there in time.
+     *
+     * The box above the list narrows the loaded results to items matching every word typed and
+     * re-ranks them for those words; it never sends a request (tap the footer for more).
+     */
+    private void showPagedPicker(SearchPager pager, String refine) {
+        SearchResultAdapter rows = new SearchResultAdapter(this);
+        ArrayList<NormalizedFoodItem> ranked = new ArrayList<>();
+        int[] rankedPages = {0};
+        boolean[] failed = {false}; // last page load failed: no auto-load until the user taps retry
+
+        EditText filter = new EditText(this);
+        filter.setSingleLine(true);
+        filter.setHint("Refine results");
+        filter.setText(refine);
+
+        Runnable render = () -> {
+            for (int n = rankedPages[0] + 1; n <= pager.loadedThrough(); n++) {
+                ranked.addAll(ranker.rank(pager.query(), pager.page(n)));
+                rankedPages[0] = n;
+            }
+            String words = filter.getText() == null ? "" : filter.getText().toString().trim();
+            if (failed[0]) {
+                rows.setItems(words.isEmpty() ? ranked : ranker.rank(words, SearchRanker.matchingAll(words, ranked)),
+                        SearchResultAdapter.Footer.ERROR);
+            } else if (words.isEmpty()) {
+                rows.setItems(ranked, pager.hasMore() ? SearchResultAdapter.Footer.LOADING : SearchResultAdapter.Footer.NONE);
+            } else {
+                rows.setItems(ranker.rank(words, SearchRanker.matchingAll(words, ranked)),
+                        pager.hasMore() ? SearchResultAdapter.Footer.MORE : SearchResultAdapter.Footer.NONE);
+            }
+        };
+        render.run();
+        if (rows.itemCount() > 0) FoodDetailCache.get(this).prefetch((NormalizedFoodItem) rows.getItem(0)); // top hit is the usual pick
+
+        filter.addTextChangedListener(new TextWatcher() {
+            @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+            @Override public void onTextChanged(CharSequence s, int start, int before, int count) {}
+            @Override public void afterTextChanged(Editable s) { render.run(); }
+        });
+
+        ListView list = new ListView(this);
+        list.setAdapter(rows);
+
+        android.widget.LinearLayout content = new android.widget.LinearLayout(this);
+        content.setOrientation(android.widget.LinearLayout.VERTICAL);
+        content.addView(filter);
+        content.addView(list);
+
+        androidx.appcompat.app.AlertDialog dialog = new androidx.appcompat.app.AlertDialog.Builder(MainActivity.this)
+                .setTitle(pager.totalHits() > 0 ? "Pick a match (" + pager.totalHits() + ")" : "Pick a match")
+                .setView(content)
+                .setNegativeButton("Cancel", (d, w) -> {
+                    btnAdd.setText("Search");
+                    updateAddButtonLabel();
+                })
+                .setOnDismissListener(d -> pager.detach())
+                .create();
+
+        pager.setListener(new SearchPager.Listener() {
+            @Override public void onPage(int pageNumber, List<NormalizedFoodItem> items) { failed[0] = false; render.run(); }
+            @Override public void onError(int pageNumber, Throwable t) { failed[0] = true; rows.setFooter(SearchResultAdapter.Footer.ERROR); }
+        });
+
+        list.setOnItemClickListener((parent, view, position, id) -> {
+            if (rows.isFooter(position)) {
+                failed[0] = false; // the retry tap
+                rows.setFooter(SearchResultAdapter.Footer.LOADING);
+                pager.load(pager.loadedThrough() + 1);
+                return;
+            }
+            dialog.dismiss();
+            applyChosenFood((NormalizedFoodItem) rows.getItem(position), true);
+        });
+
+        list.setOnScrollListener(new AbsListView.OnScrollListener() {
+            @Override public void onScrollStateChanged(AbsListView view, int scrollState) {}
+            @Override public void onScroll(AbsListView view, int first, int visible, int total) {
+                if (failed[0]) return; // a failing page would be requested again on every scroll event
+                if (filter.getText() != null && filter.getText().toString().trim().length() > 0) return; // refining: load on tap only
+                int next = pager.loadedThrough() + 1;
+                boolean nearEnd = first + visible >= rows.itemCount() - SearchPager.PREFETCH_DISTANCE;
+                if (nearEnd && pager.hasMore() && !pager.isLoading(next)) pager.load(next);
+            }
+        });
+
+        dialog.show();
+    }
+
+    /** Pick-a-match dialog. With onlineQuery set (local results), adds a "search branded foods" row. */
+    private void showResultPicker(ArrayList<NormalizedFoodItem> list, String onlineQuery) {
+        ArrayList<NormalizedFoodItem> show = new ArrayList<>(list.subList(0, Math.min(10, list.size())));
+        ArrayList<String> labels = new ArrayList<>();
+        for (NormalizedFoodItem f : show) {
+            String brand = (f.brandName == null || f.brandName.isEmpty()) ? "" : " • " + f.brandName;
+            String serv = (f.servings!=null && f.servings.perServing!=null && f.servings.perServing.hasGrams())
+                    ? (" • " + r0(f.servings.perServing.grams()) + "g serving") : "";
+            String kcal100 = (f.servings!=null && f.servings.per100g!=null && f.servings.per100g.hasCalories())
+                    ? (" — " + f.servings.per100g.calories() + " kcal/100g") : "";
+            labels.add(f.description + brand + serv + kcal100);
+        }
+        if (onlineQuery != null) labels.add("Search branded foods online…");
+
+        new androidx.appcompat.app.AlertDialog.Builder(MainActivity.this)
+                .setTitle("Pick a match")
+                .setItems(labels.toArray(new String[0]), (d, which) -> {
+                    if (which >= show.size()) { searchRemote(onlineQuery); return; }
+                    NormalizedFoodItem best = show.get(which);
+                    applyChosenFood(best, true);
+                })
+                .setNegativeButton("Cancel", (d, w) -> {
+                    btnAdd.setText("Search");
+                    updateAddButtonLabel();
+                })
+                .show();
     }
 
     // === Set EXACT macros from API's perServing block (no recompute drift) ===
     private void setMacrosFromPerServing(PerServing p) {
         if (p == null) return;
-        etCalories.setText(p.calories != null ? String.valueOf(p.calories) : "");
-        etProtein .setText(p.protein  != null ? String.valueOf(r1(p.protein)) : "");
-        etCarbs   .setText(p.carbs    != null ? String.valueOf(r1(p.carbs))   : "");
-        etFat     .setText(p.fat      != null ? String.valueOf(r1(p.fat))     : "");
+        form.setMacros(
+                p.hasCalories() ? String.valueOf(p.calories()) : "",
+                p.hasProtein()  ? String.valueOf(r1(p.protein())) : "",
+                p.hasCarbs()    ? String.valueOf(r1(p.carbs()))   : "",
+                p.hasFat()      ? String.valueOf(r1(p.fat()))     : "");
     }
 
     private void applyChosenFood(NormalizedFoodItem best, boolean fromSearch) {
+        if (fromSearch) ranker.recordPick(best); // ranks it higher next time
+
         // 1) Name
         String chosenName = ((best.brandName != null && !best.brandName.isEmpty()) ? best.brandName + " " : "")
                 + (best.description != null ? best.description : "");
         chosenName = chosenName.trim();
-        if (!chosenName.isEmpty()) etFood.setText(chosenName);
+        if (!chosenName.isEmpty()) form.setName(chosenName);
 
-        // 2) Base per-100g for scaling (used by recomputeAndRender)
-        if (best.servings != null && best.servings.per100g != null) {
-            basePer100g = best.servings.per100g;
-        } else {
-            basePer100g = new Per100g();
-        }
+        // 2) Base per-100g for scaling quantity x unit
+        form.setBase(best.servings != null ? best.servings.per100g : null);
 
-        // 3) Units from API (household measures, grams/oz, etc.)
-        unitList = (best.units != null) ? best.units : new ArrayList<>();
+        // 3) Units from API (household measures, grams/oz, etc.), plus volume units when a measure gives the density
+        units = UnitRegistry.of(best.units); // own list: items may be shared/cached
 
         // 4) Determine serving grams:
         //    - If API gives grams, use it.
         //    - If not and this came from the Search button, default to 100g (=> 1 serving = 100g).
         //    - If barcode and unknown, keep 0 (unknown mass).
-        Double servingGramsFromApi = (best.servings != null && best.servings.perServing != null)
-                ? best.servings.perServing.grams : null;
-        double servingGrams = (servingGramsFromApi != null && servingGramsFromApi > 0)
-                ? servingGramsFromApi
+        PerServing ps = (best.servings != null) ? best.servings.perServing : null;
+        double servingGrams = (ps != null && ps.hasGrams() && ps.grams() > 0)
+                ? ps.grams()
                 : (fromSearch ? 100.0 : 0.0);
 
         // 5) Ensure we have a "serving" unit with the grams chosen above
-        ensureServingUnit(servingGrams);
+        units.putServing(servingGrams);
 
         // 6) Select "serving" and default quantity = 1
-        int servingIdx = findIndexByLabel(unitList, "serving");
+        int servingIdx = units.servingIndex();
         setUnitsAdapterAndSelect(Math.max(0, servingIdx));
-        etQuantity.setText("1");
+        form.setQuantity("1");
 
         // 7) Populate macros:
         //    Prefer exact per-serving from API; else synthesize from per-100g using serving grams.
         if (best.servings != null && best.servings.perServing != null) {
             setMacrosFromPerServing(best.servings.perServing);
-        } else if (servingIdx >= 0 && unitList.get(servingIdx).gramsPerUnit > 0 && basePer100g != null) {
-            selectedUnit = unitList.get(servingIdx);   // "serving"
-            recomputeAndRender();                      // qty=1 * serving grams (100g if defaulted)
+        } else if (servingIdx >= 0 && units.get(servingIdx).gramsPerUnit > 0) {
+            form.rescale();                            // qty=1 * serving grams (100g if defaulted)
         } else {
             // Unknown mass and no per-serving macros: leave fields as-is; user can pick grams/oz.
             // Optionally clear:
@@ -791,9 +1106,164 @@ public class MainActivity extends AppCompatActivity {
         btnAdd.setText("Add Entry");
         toast("Filled from USDA.");
         updateAddButtonLabel();
+
+        // 9) Household measures the search payload left out arrive lazily from the detail endpoint
+        shownFdcId = best.fdcId;
+        if (fromSearch && FoodDetailCache.worthFetching(best)) FoodDetailCache.get(this).fetch(best.fdcId, this::mergeDetailUnits);
     }
 
+    // Details for the food on screen: add the missing measures, keep the selected unit and macros
+    private void mergeDetailUnits(NormalizedFoodItem detail) {
+        if (detail == null || detail.units == null || detail.fdcId != shownFdcId) return;
+        String keep = form.unit() != null ? form.unit().label : null;
+        if (units.addAll(detail.units)) setUnitsAdapterAndSelect(keep == null ? 0 : Math.max(0, units.indexOfLabel(keep)));
+    }
+
+
+
+    /* ==============================  MEAL ENTRY  ============================== */
+
+    // All items are looked up at once; the review appears when the slowest one is back
+    private void resolveMeal(List<MealParser.Item> meal) {
+        btnAdd.setEnabled(false);
+        btnAdd.setText("Looking up " + meal.size() + " items…");
+        mealResolver.resolve(meal, resolved -> {
+            btnAdd.setEnabled(true);
+            updateAddButtonLabel();
+            showMealReview(resolved);
+        });
+    }
+
+    /** Review list: matched items start checked; logging adds all checked ones in one go. */
+    private void showMealReview(List<MealResolver.Resolved> meal) {
+        ArrayList<String> labels = new ArrayList<>();
+        for (MealResolver.Resolved r : meal) labels.add(mealLabel(r));
+        ArrayAdapter<String> rows = new ArrayAdapter<>(this, android.R.layout.simple_list_item_multiple_choice, labels);
+
+        ListView list = new ListView(this);
+        list.setChoiceMode(AbsListView.CHOICE_MODE_MULTIPLE);
+        list.setAdapter(rows);
+        for (int i = 0; i < meal.size(); i++) list.setItemChecked(i, meal.get(i).food != null);
+
+        new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle("Meal: " + meal.size() + " items")
+                .setView(list)
+                .setPositiveButton("Log checked", (d, w) -> {
+                    String mealType = (String) spMealType.getSelectedItem();
+                    ArrayList<FoodEntry> batch = new ArrayList<>();
+                    for (int i = 0; i < meal.size(); i++) {
+                        MealResolver.Resolved r = meal.get(i);
+                        if (!list.isItemChecked(i) || r.food == null) continue;
+                        batch.add(new FoodEntry(r.entryName(), r.macro(0), r.macro(1), r.macro(2), r.macro(3), getTodayString(), mealType));
+                    }
+                    logEntries(batch);
+                    int logged = batch.size();
+                    if (logged > 0) form.setName("");
+                    toast(logged == 0 ? "Nothing logged." : "Logged " + logged + (logged == 1 ? " item." : " items."));
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private static String mealLabel(MealResolver.Resolved r) {
+        if (r.food == null) return "No match: " + r.item;
+        String approx = r.approximate ? "≈" : "";
+        return r.entryName() + " — " + approx + r0(r.grams) + " g, " + approx + r.macro(0) + " kcal";
+    }
 
+    /* ==============================  TEMPLATES & COPY  ============================== */
+
+    // Section header long-press: save the meal as a template, or log it again today
+    private void showSectionActions(String section, List<FoodEntry> meal) {
+        if (meal.isEmpty()) return;
+        String[] actions = { "Save as meal template", "Copy to today" };
+        new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle(section + " (" + meal.size() + ")")
+                .setItems(actions, (d, which) -> {
+                    if (which == 0) promptTemplateName(section, meal);
+                    else copyToToday(meal);
+                })
+                .show();
+    }
+
+    private void promptTemplateName(String section, List<FoodEntry> meal) {
+        EditText input = new EditText(this);
+        input.setSingleLine(true);
+        input.setText(section);
+        input.selectAll();
+        new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle("Template name")
+                .setView(input)
+                .setPositiveButton("Save", (d, w) -> {
+                    String name = input.getText().toString().trim();
+                    if (name.isEmpty()) { toast("Enter a name."); return; }
+                    MealTemplates.Template t = mealTemplates.save(name, section, meal);
+                    toast("Saved \"" + t.name + "\" (" + t.calories + " kcal).");
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    // Add button long-press: log a saved meal in one go
+    private void showTemplatePicker() {
+        if (!currentDate.equals(getTodayString())) { toast("Switch to Today to search/add."); return; }
+        if (mealTemplates.isEmpty()) { toast("No saved meals yet. Long-press a meal header to save one."); return; }
+
+        List<MealTemplates.Template> all = mealTemplates.all();
+        String[] labels = new String[all.size()];
+        for (int i = 0; i < all.size(); i++) labels[i] = all.get(i).name + "\n" + all.get(i).summary();
+        new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle("Log saved meal")
+                .setItems(labels, (d, which) -> {
+                    MealTemplates.Template t = all.get(which);
+                    mealTemplates.markUsed(t);
+                    String meal = t.mealType != null ? t.mealType : (String) spMealType.getSelectedItem();
+                    logEntries(t.toEntries(getTodayString(), meal));
+                    toast("Logged " + t.name + ".");
+                })
+                .setNeutralButton("Delete…", (d, w) -> confirmDeleteTemplate(all))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void confirmDeleteTemplate(List<MealTemplates.Template> all) {
+        String[] names = new String[all.size()];
+        for (int i = 0; i < all.size(); i++) names[i] = all.get(i).name;
+        new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle("Delete saved meal")
+                .setItems(names, (d, which) -> {
+                    mealTemplates.remove(names[which]);
+                    toast("Deleted " + names[which] + ".");
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    // Date long-press on a past day: the whole day again, meal types kept
+    private void confirmCopyDay(String date) {
+        if (date.equals(getTodayString())) return;
+        List<FoodEntry> day = loadEntriesFor(date);
+        if (day.isEmpty()) { toast("Nothing logged on " + date + "."); return; }
+        new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle("Copy day?")
+                .setMessage("Log all " + day.size() + " entries from " + date + " again today?")
+                .setPositiveButton("Copy", (d, w) -> copyToToday(day))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /** New entries for today with the same foods, each in its own meal type. */
+    private void copyToToday(List<FoodEntry> source) {
+        String today = getTodayString();
+        ArrayList<FoodEntry> batch = new ArrayList<>(source.size());
+        for (FoodEntry e : source) batch.add(e.copyTo(today, e.mealType));
+        if (!currentDate.equals(today)) {
+            currentDate = today;
+            refreshForDate(currentDate);
+        }
+        logEntries(batch);
+        toast("Copied " + batch.size() + (batch.size() == 1 ? " entry." : " entries."));
+    }
 
     /* ==============================  BARCODE  ============================== */
 
@@ -801,81 +1271,118 @@ public class MainActivity extends AppCompatActivity {
         btnAdd.setEnabled(false);
         btnAdd.setText("Searching…");
 
-        UsdaProxyService api = RetroFitProvider.get();
-        api.getByBarcodeNormalized(code).enqueue(new Callback<BarcodeLookupResponse>() {
-            @Override public void onResponse(Call<BarcodeLookupResponse> call, Response<BarcodeLookupResponse> resp) {
+        // Repeat scans resolve from BarcodeCache (memory, then disk) without waiting on the network
+        BarcodeCache.get(this).lookup(code, new BarcodeCache.Listener() {
+            @Override public void onResult(NormalizedFoodItem item, BarcodeCache.Source source) {
                 btnAdd.setEnabled(true);
 
-                if (!resp.isSuccessful() || resp.body()==null || resp.body().item==null) {
+                if (item == null) {
                     btnAdd.setText("Search");
                     toast("No product found for code.");
                     updateAddButtonLabel();
                     return;
                 }
 
-                applyChosenFood(resp.body().item, false);
+                applyChosenFood(item, false);
             }
 
-            @Override public void onFailure(Call<BarcodeLookupResponse> call, Throwable t) {
+            @Override public void onError(Throwable t) {
                 btnAdd.setEnabled(true);
                 btnAdd.setText("Search");
-                toast("Barcode lookup failed. Check connection/server.");
+                toast(t instanceof CircuitBreaker.OpenException ? OFFLINE_MSG : "Barcode lookup failed. Check connection/server.");
                 updateAddButtonLabel();
             }
         });
     }
 
-    /* ==============================  Helpers for units ============================== */
+    /* ==============================  SCAN SESSION  ============================== */
 
-    private int findIndexByLabel(ArrayList<Unit> units, String target) {
-        if (units == null) return -1;
-        String t = target.toLowerCase(java.util.Locale.US);
-        for (int i = 0; i < units.size(); i++) {
-            String lbl = units.get(i).label == null ? "" : units.get(i).label.trim().toLowerCase(java.util.Locale.US);
-            if (lbl.equals(t) || lbl.startsWith(t)) return i;
-        }
-        // also accept contains()
-        for (int i = 0; i < units.size(); i++) {
-            String lbl = units.get(i).label == null ? "" : units.get(i).label.trim().toLowerCase(java.util.Locale.US);
-            if (lbl.contains(t)) return i;
-        }
-        return -1;
+    private void startScanSession() {
+        ScanSession session = new ScanSession(BarcodeCache.get(this));
+        toast("Scan products one after another. Press Back when done.");
+        scanNext(session);
     }
 
-    private int findIndexByGrams(ArrayList<Unit> units, double grams, double tolerance) {
-        if (units == null) return -1;
-        for (int i = 0; i < units.size(); i++) {
-            double g = units.get(i).gramsPerUnit;
-            if (Math.abs(g - grams) <= tolerance) return i;
-        }
-        return -1;
+    // Relaunch the scanner after every code until the user backs out, then review
+    private void scanNext(ScanSession session) {
+        barcodeScanner.startScan()
+                .addOnSuccessListener(b -> {
+                    String code = b.getRawValue();
+                    if (code == null || !session.add(code)) toast("Already scanned.");
+                    scanNext(session);
+                })
+                .addOnCanceledListener(() -> showScanReview(session))
+                .addOnFailureListener(e -> showScanReview(session));
     }
 
-    private int findFirstNonBaseUnit(ArrayList<Unit> units) {
-        if (units == null) return -1;
-        for (int i = 0; i < units.size(); i++) {
-            String lbl = units.get(i).label == null ? "" : units.get(i).label.toLowerCase(java.util.Locale.US);
-            if (!lbl.contains("gram") && !lbl.contains("ounce") && !lbl.contains("oz")) {
-                return i;
-            }
-        }
-        return -1;
+    /** Review list: found products start checked; logging adds all checked ones in one go. */
+    private void showScanReview(ScanSession session) {
+        if (session.size() == 0) { toast("No barcodes scanned."); return; }
+
+        List<ScanSession.Scan> scans = session.scans();
+        ArrayList<String> labels = new ArrayList<>();
+        for (ScanSession.Scan sc : scans) labels.add(scanLabel(sc));
+        ArrayAdapter<String> rows = new ArrayAdapter<>(this, android.R.layout.simple_list_item_multiple_choice, labels);
+
+        ListView list = new ListView(this);
+        list.setChoiceMode(AbsListView.CHOICE_MODE_MULTIPLE);
+        list.setAdapter(rows);
+        for (int i = 0; i < scans.size(); i++) list.setItemChecked(i, scans.get(i).status() == ScanSession.Status.FOUND);
+
+        // Lookups still running keep updating the list
+        session.setListener(changed -> {
+            int i = scans.indexOf(changed);
+            if (i < 0) return;
+            labels.set(i, scanLabel(changed));
+            rows.notifyDataSetChanged();
+            if (changed.status() == ScanSession.Status.FOUND) list.setItemChecked(i, true);
+        });
+
+        new androidx.appcompat.app.AlertDialog.Builder(this)
+                .setTitle("Scanned " + scans.size() + (scans.size() == 1 ? " product" : " products"))
+                .setView(list)
+                .setPositiveButton("Log checked", (d, w) -> {
+                    String meal = (String) spMealType.getSelectedItem();
+                    ArrayList<FoodEntry> batch = new ArrayList<>();
+                    for (int i = 0; i < scans.size(); i++) {
+                        NormalizedFoodItem item = scans.get(i).item();
+                        if (!list.isItemChecked(i) || item == null) continue;
+                        int[] m = macrosPerServing(item);
+                        batch.add(new FoodEntry(FoodSuggestionAdapter.displayName(item), m[0], m[1], m[2], m[3], getTodayString(), meal));
+                    }
+                    logEntries(batch);
+                    int logged = batch.size();
+                    toast(logged == 0 ? "Nothing logged." : "Logged " + logged + (logged == 1 ? " item." : " items."));
+                })
+                .setNegativeButton("Cancel", null)
+                .setOnDismissListener(d -> session.setListener(null))
+                .show();
     }
 
-    private int indexOfUnitLabelContains(String word) {
-        if (unitList == null) return -1;
-        String w = word.toLowerCase(java.util.Locale.US);
-        for (int i = 0; i < unitList.size(); i++) {
-            String lbl = unitList.get(i).label == null ? "" : unitList.get(i).label.toLowerCase(java.util.Locale.US);
-            if (lbl.contains(w)) return i;
+    private static String scanLabel(ScanSession.Scan sc) {
+        switch (sc.status()) {
+            case FOUND:
+                int[] m = macrosPerServing(sc.item());
+                return FoodSuggestionAdapter.displayName(sc.item()) + " — " + m[0] + " kcal";
+            case NOT_FOUND: return "Not found: " + sc.code;
+            case FAILED:    return "Lookup failed: " + sc.code;
+            default:        return "Looking up " + sc.code + "…";
         }
-        return -1;
     }
 
-    private String formatQtyNice(double v) {
-        return (Math.abs(v - Math.round(v)) < 1e-6)
-                ? String.valueOf((int)Math.round(v))
-                : String.valueOf(v);
+    // {kcal, protein, carbs, fat} for one serving; 100 g when the product has no serving size
+    private static int[] macrosPerServing(NormalizedFoodItem item) {
+        Macros m = null;
+        if (item.servings != null) {
+            if (item.servings.perServing != null && item.servings.perServing.hasCalories()) m = item.servings.perServing;
+            else m = item.servings.per100g;
+        }
+        if (m == null) return new int[4];
+        return new int[] {
+                m.hasCalories() ? m.calories() : 0,
+                m.hasProtein() ? r0(m.protein()) : 0,
+                m.hasCarbs() ? r0(m.carbs()) : 0,
+                m.hasFat() ? r0(m.fat()) : 0 };
     }
 
     private void showDatePicker() {
@@ -910,20 +1417,4 @@ public class MainActivity extends AppCompatActivity {
 
         dlg.show();
     }
-    /** Ensure unitList has a "serving" unit. If missing and grams>0, insert it at index 0. */
-    private void ensureServingUnit(double servingGramsOrZero) {
-        if (unitList == null) unitList = new ArrayList<>();
-        int idx = findIndexByLabel(unitList, "serving");
-        if (idx < 0) {
-            Unit u = new Unit();
-            u.label = "serving";
-            u.gramsPerUnit = Math.max(0, servingGramsOrZero); // 0 if unknown
-            unitList.add(0, u); // make it the first/default
-        } else if (servingGramsOrZero > 0) {
-            // keep label, but update grams if API told us the serving weight
-            unitList.get(idx).gramsPerUnit = servingGramsOrZero;
-        }
-    }
-
-
 }
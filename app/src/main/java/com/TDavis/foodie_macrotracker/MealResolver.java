@@ -0,0 +1,201 @@
+package com.TDavis.foodie_macrotracker;
+
+import android.content.Context;
+
+import com.TDavis.foodie_macrotracker.FoodModels.FoodSearchResponseV2;
+import com.TDavis.foodie_macrotracker.FoodModels.NormalizedFoodItem;
+import com.TDavis.foodie_macrotracker.FoodModels.Per100g;
+import com.TDavis.foodie_macrotracker.FoodModels.PerServing;
+import com.TDavis.foodie_macrotracker.net.RetroFitProvider;
+import com.TDavis.foodie_macrotracker.net.UsdaProxyService;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Looks up every item of a parsed meal ({@link MealParser}) at once and works out its grams and
+ * macros.
+ *
+ * Each item tries the bundled food database first, then a proxy search, with at most
+ * {@link #MAX_PARALLEL} items on the network together, so the whole meal takes about as long as
+ * its slowest lookup. A household unit the search payload lacks (e.g. "cup") is filled in from the
+ * food's details. Macros are scaled from per-100 g values like the form does
+ * ({@link MacroScaling#scalePer100g}).
+ *
+ * Main thread only.
+ */
+final class MealResolver {
+
+    static final int MAX_PARALLEL = 4;
+    private static final int SEARCH_SIZE = 5;
+
+    /** One meal item and what it resolved to. food == null when nothing matched. */
+    static final class Resolved {
+        final MealParser.Item item;
+        NormalizedFoodItem food;
+        double grams;
+        double[] macros;       // {kcal, protein, carbs, fat}; NaN = unknown
+        boolean approximate;   // grams guessed (no matching measure)
+
+        Resolved(MealParser.Item item) { this.item = item; }
+
+        /** Name to log: the food plus the amount typed, e.g. "Rice, white, cooked (1 cup)". */
+        String entryName() {
+            String name = FoodSuggestionAdapter.displayName(food);
+            return item.amount.isEmpty() ? name : name + " (" + item.amount + ")";
+        }
+
+        int macro(int i) { return Double.isNaN(macros[i]) ? 0 : (int) Math.round(macros[i]); }
+    }
+
+    interface Listener { void onResolved(List<Resolved> meal); }
+
+    private final Context app;
+    private final UsdaProxyService api;
+    private int generation; // bumps on cancel/resolve: late callbacks of an old meal are dropped
+
+    MealResolver(Context ctx) {
+        this.app = ctx.getApplicationContext();
+        this.api = RetroFitProvider.get(ctx);
+    }
+
+    /** Resolve all items; the listener gets them in input order once every lookup has finished. */
+    void resolve(List<MealParser.Item> items, Listener l) {
+        new Run(++generation, items, l).start();
+    }
+
+    void cancel() { generation++; }
+
+    /* ==============================  internals  ============================== */
+
+    private final class Run {
+        final int gen;
+        final List<Resolved> results = new ArrayList<>();
+        final ArrayDeque<Resolved> queue = new ArrayDeque<>();
+        final Listener listener;
+        int inFlight, remaining;
+
+        Run(int gen, List<MealParser.Item> items, Listener l) {
+            this.gen = gen;
+            this.listener = l;
+            for (MealParser.Item it : items) results.add(new Resolved(it));
+            remaining = results.size();
+        }
+
+        void start() {
+            // Local first: no network slot needed
+            OfflineFoodDb local = OfflineFoodDb.get(app);
+            for (Resolved r : results) {
+                NormalizedFoodItem hit = null;
+                if (local != null) {
+                    List<NormalizedFoodItem> hits = local.search(MealParser.singular(r.item.food), 1);
+                    if (!hits.isEmpty()) hit = hits.get(0);
+                }
+                if (hit != null) finish(r, hit);
+                else queue.add(r);
+            }
+            pump();
+        }
+
+        void pump() {
+            while (inFlight < MAX_PARALLEL && !queue.isEmpty()) {
+                inFlight++;
+                search(queue.poll());
+            }
+        }
+
+        void search(Resolved r) {
+            api.searchFoodsNormalized(MealParser.singular(r.item.food), SEARCH_SIZE, 1).enqueue(new Callback<FoodSearchResponseV2>() {
+                @Override public void onResponse(Call<FoodSearchResponseV2> call, Response<FoodSearchResponseV2> resp) {
+                    NormalizedFoodItem best = null;
+                    FoodSearchResponseV2 body = resp.body();
+                    if (resp.isSuccessful() && body != null && body.items != null) {
+                        for (NormalizedFoodItem f : body.items) {
+                            if (hasCalories(f)) { best = f; break; }
+                        }
+                    }
+                    if (best != null && needsDetail(r.item, best)) detail(r, best);
+                    else done(r, best);
+                }
+                @Override public void onFailure(Call<FoodSearchResponseV2> call, Throwable t) { done(r, null); }
+            });
+        }
+
+        // Search payloads carry no household measures; fetch them when the item uses one
+        void detail(Resolved r, NormalizedFoodItem fromSearch) {
+            FoodDetailCache.get(app).fetch(fromSearch.fdcId, new FoodDetailCache.Listener() {
+                @Override public void onDetail(NormalizedFoodItem detail) { done(r, detail); }
+                @Override public void onFailed() { done(r, fromSearch); }
+            });
+        }
+
+        // A network lookup ended: free its slot
+        void done(Resolved r, NormalizedFoodItem food) {
+            if (gen != generation) return;
+            inFlight--;
+            finish(r, food);
+            pump();
+        }
+
+        void finish(Resolved r, NormalizedFoodItem food) {
+            if (food != null) {
+                r.food = food;
+                measure(r);
+            }
+            if (--remaining == 0 && gen == generation) listener.onResolved(results);
+        }
+    }
+
+    private static boolean hasCalories(NormalizedFoodItem f) {
+        if (f.servings == null) return false;
+        if (f.servings.per100g != null && f.servings.per100g.hasCalories()) return true;
+        PerServing ps = f.servings.perServing;
+        return ps != null && ps.hasCalories() && ps.hasGrams() && ps.grams() > 0;
+    }
+
+    private static boolean needsDetail(MealParser.Item it, NormalizedFoodItem f) {
+        if (it.unit == null) return false;
+        return UnitRegistry.of(f.units).gramsPer(it.unit) <= 0 && FoodDetailCache.worthFetching(f);
+    }
+
+    // Grams for the item, then macros through the per-100 g scaling
+    private static void measure(Resolved r) {
+        MealParser.Item it = r.item;
+        NormalizedFoodItem f = r.food;
+        UnitRegistry units = UnitRegistry.of(f.units);
+        double per = units.gramsPer(it.unit); // mass, the food's own measure, or volume by its density
+        if (per <= 0 && UnitRegistry.volumeMl(it.unit) > 0) {
+            per = UnitRegistry.volumeMl(it.unit); // no density known: as water
+            r.approximate = true;
+        }
+        if (per <= 0) {
+            // A plain count ("2 eggs") or an unknown measure: one serving or household measure each
+            per = units.gramsPer("serving");
+            if (per <= 0) per = units.firstHouseholdGrams();
+            if (per <= 0) { per = 100; r.approximate = true; }
+            else if (it.unit != null) r.approximate = true;
+        }
+        r.grams = it.quantity * per;
+        r.macros = MacroScaling.scalePer100g(per100g(f), r.grams);
+    }
+
+    // Per-100 g values, derived from the label serving when the item only has those
+    private static Per100g per100g(NormalizedFoodItem f) {
+        Per100g p = f.servings != null ? f.servings.per100g : null;
+        if (p != null && p.hasCalories()) return p;
+        PerServing ps = f.servings != null ? f.servings.perServing : null;
+        Per100g out = new Per100g();
+        if (ps == null || !ps.hasGrams() || ps.grams() <= 0) return out;
+        double k = 100.0 / ps.grams();
+        if (ps.hasCalories()) out.setCalories((int) Math.round(ps.calories() * k));
+        if (ps.hasProtein())  out.setProtein(ps.protein() * k);
+        if (ps.hasCarbs())    out.setCarbs(ps.carbs() * k);
+        if (ps.hasFat())      out.setFat(ps.fat() * k);
+        return out;
+    }
+}
@@ -0,0 +1,121 @@
+package com.TDavis.foodie_macrotracker;
+
+import android.content.Context;
+
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Saved meals ("usual breakfast") the user can log again in one tap.
+ *
+ * A template keeps its items plus their summed macros, computed once when it is saved, so the
+ * picker lists every template without adding up items. Logging one goes through the batch insert
+ * (one save, one list update) however many items it has.
+ *
+ * Stored in its own small prefs file, like {@link FoodNameIndex}.
+ */
+public final class MealTemplates {
+
+    private static final String PREFS = "FoodieTemplates";
+    private static final String KEY = "templates";
+
+    /** One food inside a template. */
+    public static class Item {
+        public String name;
+        public int calories, protein, carbs, fat;
+    }
+
+    public static class Template {
+        public String name;
+        public String mealType;
+        public ArrayList<Item> items = new ArrayList<>();
+        public int calories, protein, carbs, fat; // sum of items
+        public long lastUsed;
+
+        /** Fresh entries for `date`, in the template's order. */
+        public ArrayList<FoodEntry> toEntries(String date, String mealType) {
+            ArrayList<FoodEntry> out = new ArrayList<>(items.size());
+            for (Item it : items) out.add(new FoodEntry(it.name, it.calories, it.protein, it.carbs, it.fat, date, mealType));
+            return out;
+        }
+
+        public String summary() {
+            return items.size() + (items.size() == 1 ? " item" : " items") + " • " + calories + " kcal • P" + protein + "/C" + carbs + "/F" + fat + " g";
+        }
+    }
+
+    private final Context ctx;
+    private ArrayList<Template> templates = new ArrayList<>();
+
+    private MealTemplates(Context ctx) { this.ctx = ctx.getApplicationContext(); }
+
+    public static MealTemplates load(Context ctx) {
+        MealTemplates t = new MealTemplates(ctx);
+        String json = ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE).getString(KEY, null);
+        if (json != null) {
+            Type type = new TypeToken<ArrayList<Template>>(){}.getType();
+            ArrayList<Template> saved = GsonProvider.get().fromJson(json, type);
+            if (saved != null) t.templates = saved;
+        }
+        return t;
+    }
+
+    /** Most recently used (or saved) first. */
+    public List<Template> all() {
+        ArrayList<Template> out = new ArrayList<>(templates);
+        Collections.sort(out, (a, b) -> Long.compare(b.lastUsed, a.lastUsed));
+        return out;
+    }
+
+    public boolean isEmpty() { return templates.isEmpty(); }
+
+    /** Save entries as a template; a template with the same name (any case) is replaced. */
+    public Template save(String name, String mealType, List<FoodEntry> entries) {
+        Template t = new Template();
+        t.name = name.trim();
+        t.mealType = mealType;
+        for (FoodEntry e : entries) {
+            Item it = new Item();
+            it.name = e.name;
+            it.calories = e.calories; it.protein = e.protein; it.carbs = e.carbs; it.fat = e.fat;
+            t.items.add(it);
+            t.calories += e.calories; t.protein += e.protein; t.carbs += e.carbs; t.fat += e.fat;
+        }
+        t.lastUsed = System.currentTimeMillis();
+        drop(t.name);
+        templates.add(t);
+        persist();
+        return t;
+    }
+
+    public void remove(String name) {
+        if (drop(name)) persist();
+    }
+
+    public void markUsed(Template t) {
+        t.lastUsed = System.currentTimeMillis();
+        persist();
+    }
+
+    /* ==============================  internals  ============================== */
+
+    private boolean drop(String name) {
+        String key = name.trim().toLowerCase(Locale.US);
+        boolean removed = false;
+        for (int i = templates.size() - 1; i >= 0; i--) {
+            if (templates.get(i).name.toLowerCase(Locale.US).equals(key)) { templates.remove(i); removed = true; }
+        }
+        return removed;
+    }
+
+    private void persist() {
+        ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE).edit()
+                .putString(KEY, GsonProvider.get().toJson(templates))
+                .apply();
+    }
+}
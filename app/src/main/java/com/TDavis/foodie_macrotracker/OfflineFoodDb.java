@@ -0,0 +1,290 @@
+package com.TDavis.foodie_macrotracker;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+
+import com.TDavis.foodie_macrotracker.FoodModels.NormalizedFoodItem;
+import com.TDavis.foodie_macrotracker.FoodModels.Per100g;
+import com.TDavis.foodie_macrotracker.FoodModels.PerServing;
+import com.TDavis.foodie_macrotracker.FoodModels.Servings;
+import com.TDavis.foodie_macrotracker.FoodModels.Unit;
+
+/**
+ * Bundled USDA Foundation/SR Legacy foods (assets/foods.bin), memory-mapped and searched
+ * through a token inverted index. Built by server/foodie-usda-proxy/scripts/build-food-db.js;
+ * the layout constants below must match that script.
+ * Branded foods are not in here — those still go through the proxy.
+ */
+public final class OfflineFoodDb {
+
+    static final String ASSET = "foods.bin";
+
+    private static final int MAGIC = 0x31424446; // "FDB1"
+    private static final int VERSION = 1;
+    private static final int ITEMS_OFFSET = 32;
+    private static final int ITEM_SIZE = 40, UNIT_SIZE = 12, TOKEN_SIZE = 16;
+    private static final int MAX_PREFIX_TOKENS = 64; // cap expansion of very short prefixes
+
+    private static volatile OfflineFoodDb INSTANCE;
+    private static volatile boolean missing;
+
+    private final ByteBuffer buf;
+    private final int itemCount, tokenCount;
+    private final int unitsOffset, tokensOffset, postingsOffset, stringsOffset;
+
+    // Search scratch, reused by every query: an item's count is valid only while countGen[item]
+    // is the current query's generation, so nothing is cleared between queries
+    private int[] count, countGen, seen, candidates;
+    private int generation;
+    private int[] sortedIds; // for contains(): items are stored in search order, not by id
+
+    private OfflineFoodDb(ByteBuffer buf) throws IOException {
+        this.buf = buf.order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.getInt(0) != MAGIC || buf.getInt(4) != VERSION) throw new IOException("Bad food db header");
+        itemCount      = buf.getInt(8);
+        tokenCount     = buf.getInt(12);
+        unitsOffset    = buf.getInt(16);
+        tokensOffset   = buf.getInt(20);
+        postingsOffset = buf.getInt(24);
+        stringsOffset  = buf.getInt(28);
+    }
+
+    /** Shared instance, or null when the app was built without the asset. */
+    public static OfflineFoodDb get(Context ctx) {
+        if (INSTANCE == null && !missing) {
+            synchronized (OfflineFoodDb.class) {
+                if (INSTANCE == null && !missing) {
+                    try {
+                        INSTANCE = open(ctx.getApplicationContext());
+                    } catch (IOException e) {
+                        missing = true;
+                    }
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    // Asset is stored uncompressed (see noCompress in app/build.gradle.kts), so it can be mapped in place
+    private static OfflineFoodDb open(Context ctx) throws IOException {
+        try (AssetFileDescriptor afd = ctx.getAssets().openFd(ASSET);
+             FileInputStream in = afd.createInputStream();
+             FileChannel ch = in.getChannel()) {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, afd.getStartOffset(), afd.getDeclaredLength());
+            return new OfflineFoodDb(map);
+        }
+    }
+
+    /** For tests / tools: wrap an already-loaded database image. */
+    static OfflineFoodDb wrap(ByteBuffer image) throws IOException { return new OfflineFoodDb(image); }
+
+    public int size() { return itemCount; }
+
+    /** True if the food is bundled here (its details never need the proxy). */
+    public boolean contains(long fdcId) {
+        if (fdcId < Integer.MIN_VALUE || fdcId > Integer.MAX_VALUE) return false;
+        return Arrays.binarySearch(sortedIds(), (int) fdcId) >= 0;
+    }
+
+    /**
+     * Items whose names contain every query token (each matched as a prefix, so it also works
+     * while typing), in build order: Foundation first, then shorter names. An empty result is the
+     * caller's cue to ask the proxy (branded foods, or wording the local index doesn't know).
+     *
+     * Costs the postings of the query tokens, not the database size: scratch arrays are
+     * allocated once and only the items hit by the first token are collected and sorted.
+     */
+    public synchronized ArrayList<NormalizedFoodItem> search(String query, int limit) {
+        ArrayList<NormalizedFoodItem> out = new ArrayList<>();
+        ArrayList<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || itemCount == 0 || limit <= 0) return out;
+
+        if (count == null) {
+            count = new int[itemCount];
+            countGen = new int[itemCount];
+            seen = new int[itemCount];
+            candidates = new int[itemCount];
+        }
+        LinkedHashSet<String> distinct = new LinkedHashSet<>(tokens);
+        if (generation > Integer.MAX_VALUE - distinct.size() - 1) { // wrapped: start over once
+            Arrays.fill(countGen, 0);
+            Arrays.fill(seen, 0);
+            generation = 0;
+        }
+        int gen = ++generation;  // this query
+        int nCandidates = 0;     // items the first token hit; only they can match every token
+
+        // Count how many distinct query tokens hit each item
+        int q = 0;
+        for (String t : distinct) {
+            q++;
+            int tokenGen = ++generation; // seen[item] == tokenGen: this token already counted it
+            byte[] key = t.getBytes(StandardCharsets.US_ASCII);
+            int lo = lowerBound(key);
+            int end = lo;
+            // every token sharing the prefix ("egg" -> egg, eggnog, eggplant)
+            while (end < tokenCount && end - lo < MAX_PREFIX_TOKENS && startsWith(end, key)) end++;
+
+            for (int ti = lo; ti < end; ti++) {
+                int rec = tokensOffset + ti * TOKEN_SIZE;
+                int off = postingsOffset + buf.getInt(rec + 8) * 4;
+                int cnt = buf.getInt(rec + 12);
+                for (int k = 0; k < cnt; k++) {
+                    int item = buf.getInt(off + k * 4);
+                    if (seen[item] == tokenGen) continue;
+                    seen[item] = tokenGen;
+                    if (countGen[item] != gen) {
+                        if (q > 1) continue; // missed an earlier token
+                        countGen[item] = gen;
+                        count[item] = 0;
+                        candidates[nCandidates++] = item;
+                    }
+                    count[item]++;
+                }
+            }
+        }
+
+        // Build order = index order
+        Arrays.sort(candidates, 0, nCandidates);
+        for (int c = 0; c < nCandidates && out.size() < limit; c++) {
+            if (count[candidates[c]] == q) out.add(readItem(candidates[c]));
+        }
+        return out;
+    }
+
+    /* ==============================  Index lookups  ============================== */
+
+    // Built on the first contains(): one pass over the items, then every lookup is a binary search
+    private synchronized int[] sortedIds() {
+        if (sortedIds == null) {
+            int[] ids = new int[itemCount];
+            for (int i = 0; i < itemCount; i++) ids[i] = buf.getInt(ITEMS_OFFSET + i * ITEM_SIZE);
+            Arrays.sort(ids);
+            sortedIds = ids;
+        }
+        return sortedIds;
+    }
+
+    private int lowerBound(byte[] key) {
+        int lo = 0, hi = tokenCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareToken(mid, key) < 0) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private int compareToken(int ti, byte[] key) {
+        int rec = tokensOffset + ti * TOKEN_SIZE;
+        int off = stringsOffset + buf.getInt(rec);
+        int len = buf.getShort(rec + 4) & 0xFFFF;
+        int n = Math.min(len, key.length);
+        for (int i = 0; i < n; i++) {
+            int d = (buf.get(off + i) & 0xFF) - (key[i] & 0xFF);
+            if (d != 0) return d;
+        }
+        return len - key.length;
+    }
+
+    private boolean startsWith(int ti, byte[] prefix) {
+        int rec = tokensOffset + ti * TOKEN_SIZE;
+        int off = stringsOffset + buf.getInt(rec);
+        int len = buf.getShort(rec + 4) & 0xFFFF;
+        if (len < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (buf.get(off + i) != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    /* ==============================  Records -> models  ============================== */
+
+    private NormalizedFoodItem readItem(int i) {
+        int rec = ITEMS_OFFSET + i * ITEM_SIZE;
+
+        NormalizedFoodItem f = new NormalizedFoodItem();
+        f.fdcId = buf.getInt(rec);
+        f.description = readString(buf.getInt(rec + 4), buf.getShort(rec + 8) & 0xFFFF);
+        f.brandName = null;
+
+        Per100g p = new Per100g();
+        float kcal = buf.getFloat(rec + 16);
+        float pro = buf.getFloat(rec + 20), carb = buf.getFloat(rec + 24), fat = buf.getFloat(rec + 28);
+        if (!Float.isNaN(kcal)) p.setCalories(Math.round(kcal));
+        if (!Float.isNaN(pro))  p.setProtein(r1(pro));
+        if (!Float.isNaN(carb)) p.setCarbs(r1(carb));
+        if (!Float.isNaN(fat))  p.setFat(r1(fat));
+        float servingGrams = buf.getFloat(rec + 32);
+
+        // Same unit list the proxy builds: gram, ounce, household measures, serving
+        f.units = new ArrayList<>();
+        f.units.add(Unit.GRAM);
+        f.units.add(Unit.OUNCE);
+        int unitCount = buf.getShort(rec + 10) & 0xFFFF;
+        int unitStart = buf.getInt(rec + 12);
+        for (int u = 0; u < unitCount; u++) {
+            int ur = unitsOffset + (unitStart + u) * UNIT_SIZE;
+            f.units.add(Unit.of(readString(buf.getInt(ur), buf.getShort(ur + 4) & 0xFFFF), r3(buf.getFloat(ur + 8))));
+        }
+
+        f.servings = new Servings();
+        f.servings.per100g = p;
+        if (!Float.isNaN(servingGrams) && servingGrams > 0) {
+            double grams = r3(servingGrams);
+            f.units.add(Unit.of("serving", grams));
+            double k = grams / 100.0;
+            PerServing ps = new PerServing();
+            ps.setGrams(grams);
+            if (p.hasCalories()) ps.setCalories((int) Math.round(p.calories() * k));
+            if (p.hasProtein())  ps.setProtein(r1(p.protein() * k));
+            if (p.hasCarbs())    ps.setCarbs(r1(p.carbs() * k));
+            if (p.hasFat())      ps.setFat(r1(p.fat() * k));
+            f.servings.perServing = ps;
+        }
+        return f;
+    }
+
+    private String readString(int off, int len) {
+        byte[] b = new byte[len];
+        ByteBuffer d = buf.duplicate();
+        d.position(stringsOffset + off);
+        d.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static double r1(double v) { return Math.round(v * 10.0) / 10.0; }
+    private static double r3(float v) { return Math.round(v * 1000.0) / 1000.0; } // undo float32 noise
+
+    /* ==============================  Tokenizer  ============================== */
+
+    /** Must stay in sync with tokenize() in build-food-db.js. */
+    static ArrayList<String> tokenize(String text) {
+        ArrayList<String> out = new ArrayList<>();
+        if (text == null) return out;
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("[\\u0300-\\u036f]", "")
+                .toLowerCase(Locale.US);
+        for (String raw : folded.split("[^a-z0-9]+")) {
+            if (raw.length() < 2) continue;
+            out.add(stem(raw));
+        }
+        return out;
+    }
+
+    private static String stem(String t) {
+        return (t.length() > 3 && t.endsWith("s") && !t.endsWith("ss")) ? t.substring(0, t.length() - 1) : t;
+    }
+}
@@ -0,0 +1,42 @@
+package com.TDavis.foodie_macrotracker;
+
+import android.app.PendingIntent;
+import android.content.Intent;
+import android.os.Build;
+import android.service.quicksettings.Tile;
+import android.service.quicksettings.TileService;
+
+/** Quick-settings tile that re-logs the most recent food (read from {@link TodaySummaryStore}). */
+public class QuickAddTileService extends TileService {
+
+    @Override
+    public void onStartListening() {
+        Tile tile = getQsTile();
+        if (tile == null) return;
+        TodaySummaryStore.Summary s = TodaySummaryStore.read(this);
+        tile.setLabel("Quick add");
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            tile.setSubtitle(s.hasLast() ? s.lastName : "Nothing logged yet");
+        }
+        tile.setState(s.hasLast() ? Tile.STATE_INACTIVE : Tile.STATE_UNAVAILABLE);
+        tile.updateTile();
+    }
+
+    @Override
+    public void onClick() {
+        if (!TodaySummaryStore.read(this).hasLast()) return;
+
+        // MainActivity does the actual add so totals/history stay in one place
+        Intent intent = new Intent(this, MainActivity.class)
+                .putExtra(MainActivity.EXTRA_QUICK_ADD, true)
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            PendingIntent pi = PendingIntent.getActivity(this, 0, intent,
+                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+            startActivityAndCollapse(pi);
+        } else {
+            startActivityAndCollapse(intent);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.TDavis.foodie_macrotracker;
+
+import com.TDavis.foodie_macrotracker.FoodModels.NormalizedFoodItem;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Barcodes collected in one continuous scanning run (e.g. unpacking groceries).
+ *
+ * Codes are resolved while the user keeps scanning: duplicates are ignored, lookups go through
+ * {@link BarcodeCache} (cache first, then batched proxy requests), with at most
+ * {@link #MAX_IN_FLIGHT} batches outstanding. Codes scanned while those are busy queue up and go
+ * out together in the next batch. The finished session is the review list the user logs from.
+ *
+ * Main thread only.
+ */
+public final class ScanSession {
+
+    static final int MAX_IN_FLIGHT = 2;
+
+    public enum Status { PENDING, FOUND, NOT_FOUND, FAILED }
+
+    public static final class Scan {
+        public final String code;
+        Status status = Status.PENDING;
+        NormalizedFoodItem item;
+
+        Scan(String code) { this.code = code; }
+
+        public Status status() { return status; }
+        public NormalizedFoodItem item() { return item; }
+    }
+
+    public interface Listener { void onChanged(Scan scan); }
+
+    private final BarcodeCache cache;
+    private final LinkedHashMap<String, Scan> scans = new LinkedHashMap<>(); // normalized code -> scan
+    private final ArrayDeque<String> queue = new ArrayDeque<>();
+    private int inFlight;
+    private boolean pumping;
+    private Listener listener;
+
+    public ScanSession(BarcodeCache cache) { this.cache = cache; }
+
+    public void setListener(Listener l) { listener = l; }
+
+    /** Add a scanned code; false if it was already scanned in this session (or unreadable). */
+    public boolean add(String rawCode) {
+        String key = BarcodeCache.normalize(rawCode);
+        if (key.isEmpty() || scans.containsKey(key)) return false;
+        scans.put(key, new Scan(key));
+        queue.add(key);
+        pump();
+        return true;
+    }
+
+    /** All scans in the order they were made. */
+    public List<Scan> scans() { return new ArrayList<>(scans.values()); }
+
+    public int size() { return scans.size(); }
+
+    /** Scans still waiting for a result. */
+    public int pending() {
+        int n = 0;
+        for (Scan s : scans.values()) if (s.status == Status.PENDING) n++;
+        return n;
+    }
+
+    /* ==============================  internals  ============================== */
+
+    // Cache hits answer inside lookupAll, so this can re-enter itself; the outer loop carries on
+    private void pump() {
+        if (pumping) return;
+        pumping = true;
+        try {
+            while (inFlight < MAX_IN_FLIGHT && !queue.isEmpty()) {
+                List<String> batch = new ArrayList<>();
+                while (batch.size() < BarcodeCache.MAX_BATCH && !queue.isEmpty()) batch.add(queue.poll());
+                inFlight++;
+                cache.lookupAll(batch, new Batch(batch.size()));
+            }
+        } finally {
+            pumping = false;
+        }
+    }
+
+    private final class Batch implements BarcodeCache.BatchListener {
+        private int remaining;
+
+        Batch(int size) { remaining = size; }
+
+        @Override public void onResult(String code, NormalizedFoodItem item, BarcodeCache.Source source) {
+            finish(code, item != null ? Status.FOUND : Status.NOT_FOUND, item);
+        }
+
+        @Override public void onError(String code, Throwable t) {
+            finish(code, Status.FAILED, null);
+        }
+
+        private void finish(String code, Status status, NormalizedFoodItem item) {
+            Scan s = scans.get(code);
+            if (s != null && s.status == Status.PENDING) {
+                s.status = status;
+                s.item = item;
+                if (listener != null) listener.onChanged(s);
+            }
+            if (--remaining == 0) {
+                inFlight--;
+                pump();
+            }
+        }
+    }
+}
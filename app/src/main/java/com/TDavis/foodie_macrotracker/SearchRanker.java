@@ -0,0 +1,184 @@
+package com.TDavis.foodie_macrotracker;
+
+import android.content.Context;
+
+import com.TDavis.foodie_macrotracker.FoodModels.NormalizedFoodItem;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Orders search results on the device, so one wide page from the proxy can serve the first
+ * query and its rewordings.
+ *
+ * A result scores on:
+ * - how many query words its name contains (whole words beat prefixes; long names lose a little);
+ * - how often the user picked it from results before, and logged a food by that name;
+ * - its data type: generic USDA foods (Foundation, SR Legacy) over survey and branded items;
+ * - a known serving weight;
+ * - the proxy's own order, which only breaks ties.
+ *
+ * Picks are kept in a small prefs file (most-picked {@link #MAX_PICKS}). Main thread only.
+ */
+final class SearchRanker {
+
+    private static final String PREFS = "FoodiePicks";
+    private static final String KEY = "picks";
+    static final int MAX_PICKS = 200;
+
+    // Weights: word overlap dominates; the rest reorders results that match about equally
+    private static final double W_OVERLAP = 10, W_ALL_WORDS = 2, W_LEADING_WORD = 1, W_EXTRA_WORD = 0.15, MAX_EXTRA = 2;
+    private static final double W_PICKED = 3, W_LOGGED = 2, W_SERVING = 0.5, W_PROXY_ORDER = 1;
+
+    private final Context ctx;
+    private final FoodNameIndex names;
+    private HashMap<String, Integer> picks = new HashMap<>(); // "fdc:<id>" or "name:<normalized>" -> count
+
+    private SearchRanker(Context ctx, FoodNameIndex names) {
+        this.ctx = ctx.getApplicationContext();
+        this.names = names;
+    }
+
+    /** names (logged-food counts) may be null when only the picks are needed. */
+    static SearchRanker load(Context ctx, FoodNameIndex names) {
+        SearchRanker r = new SearchRanker(ctx, names);
+        String json = ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE).getString(KEY, null);
+        if (json != null) {
+            Type type = new TypeToken<HashMap<String, Integer>>(){}.getType();
+            HashMap<String, Integer> saved = GsonProvider.get().fromJson(json, type);
+            if (saved != null) r.picks = saved;
+        }
+        return r;
+    }
+
+    /** The user chose this result. */
+    void recordPick(NormalizedFoodItem f) {
+        String key = pickKey(f);
+        Integer n = picks.get(key);
+        picks.put(key, n == null ? 1 : n + 1);
+        if (picks.size() > MAX_PICKS) {
+            String weakest = null;
+            for (Map.Entry<String, Integer> e : picks.entrySet()) {
+                if (!e.getKey().equals(key) && (weakest == null || e.getValue() < picks.get(weakest))) weakest = e.getKey();
+            }
+            picks.remove(weakest);
+        }
+        ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE).edit()
+                .putString(KEY, GsonProvider.get().toJson(picks))
+                .apply();
+    }
+
+    /** USDA ids of the most-picked foods, most picked first. */
+    List<Long> mostPickedFdcIds(int max) {
+        ArrayList<Map.Entry<String, Integer>> byCount = new ArrayList<>(picks.entrySet());
+        Collections.sort(byCount, (a, b) -> Integer.compare(b.getValue(), a.getValue()));
+        ArrayList<Long> out = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : byCount) {
+            if (out.size() >= max) break;
+            if (!e.getKey().startsWith("fdc:")) continue;
+            try { out.add(Long.parseLong(e.getKey().substring(4))); } catch (NumberFormatException ignored) {}
+        }
+        return out;
+    }
+
+    /** Items best first (a new list); equal scores keep the given order. */
+    ArrayList<NormalizedFoodItem> rank(String query, List<NormalizedFoodItem> items) {
+        List<String> q = words(query);
+        int n = items.size();
+        double[] score = new double[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            score[i] = score(q, items.get(i)) + W_PROXY_ORDER * (1.0 - (double) i / Math.max(1, n));
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(score[b], score[a])); // stable
+        ArrayList<NormalizedFoodItem> out = new ArrayList<>(n);
+        for (Integer i : order) out.add(items.get(i));
+        return out;
+    }
+
+    /** Items whose name has every word of `query` (as a word or a word prefix), in the given order. */
+    static ArrayList<NormalizedFoodItem> matchingAll(String query, List<NormalizedFoodItem> items) {
+        List<String> q = words(query);
+        ArrayList<NormalizedFoodItem> out = new ArrayList<>();
+        for (NormalizedFoodItem f : items) {
+            List<String> name = words(FoodSuggestionAdapter.displayName(f));
+            boolean all = true;
+            for (String w : q) if (match(w, name) == 0) { all = false; break; }
+            if (all) out.add(f);
+        }
+        return out;
+    }
+
+    /* ==============================  internals  ============================== */
+
+    private double score(List<String> q, NormalizedFoodItem f) {
+        String display = FoodSuggestionAdapter.displayName(f);
+        List<String> name = words(display);
+
+        double s = 0;
+        if (!q.isEmpty()) {
+            double hit = 0;
+            boolean all = true;
+            for (String w : q) {
+                double m = match(w, name);
+                hit += m;
+                if (m == 0) all = false;
+            }
+            s += W_OVERLAP * hit / q.size();
+            if (all) s += W_ALL_WORDS;
+            List<String> desc = words(f.description == null ? "" : f.description);
+            if (!desc.isEmpty() && desc.get(0).equals(q.get(0))) s += W_LEADING_WORD;
+            s -= Math.min(MAX_EXTRA, W_EXTRA_WORD * Math.max(0, name.size() - q.size()));
+        }
+
+        Integer picked = picks.get(pickKey(f));
+        if (picked != null) s += W_PICKED * Math.log1p(picked);
+        if (names != null) s += W_LOGGED * Math.log1p(names.uses(display));
+
+        s += dataTypeBonus(f);
+        if (f.servings != null && f.servings.perServing != null && f.servings.perServing.hasGrams()) s += W_SERVING;
+        return s;
+    }
+
+    private static double dataTypeBonus(NormalizedFoodItem f) {
+        String t = f.dataType == null ? "" : f.dataType;
+        switch (t) {
+            case "Foundation":
+            case "SR Legacy":      return 1.5;
+            case "Survey (FNDDS)": return 1.0;
+            case "Branded":        return 0;
+            default:               return (f.brandName == null || f.brandName.isEmpty()) ? 1.0 : 0; // offline db, OFF
+        }
+    }
+
+    // 1 for the same word, 0.7 for a prefix of one ("chick" in "chicken"), else 0
+    private static double match(String w, List<String> name) {
+        double best = 0;
+        for (String n : name) {
+            if (n.equals(w)) return 1;
+            if (n.startsWith(w)) best = 0.7;
+        }
+        return best;
+    }
+
+    static List<String> words(String text) {
+        ArrayList<String> out = new ArrayList<>();
+        if (text == null) return out;
+        for (String w : text.toLowerCase(Locale.US).split("[^\\p{L}\\p{N}]+")) {
+            if (!w.isEmpty()) out.add(MealParser.singular(w));
+        }
+        return out;
+    }
+
+    private static String pickKey(NormalizedFoodItem f) {
+        return f.fdcId > 0 ? "fdc:" + f.fdcId : "name:" + FoodNameIndex.normalize(FoodSuggestionAdapter.displayName(f));
+    }
+}
@@ -0,0 +1,70 @@
+package com.TDavis.foodie_macrotracker;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+import com.TDavis.foodie_macrotracker.FoodModels.NormalizedFoodItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Rows for the paged "Pick a match" list, plus a footer row while more pages exist. */
+public class SearchResultAdapter extends BaseAdapter {
+
+    public enum Footer { NONE, LOADING, ERROR, MORE } // MORE: next page on tap only
+
+    private final Context context;
+    private final ArrayList<NormalizedFoodItem> items = new ArrayList<>();
+    private Footer footer = Footer.NONE;
+
+    public SearchResultAdapter(Context context) { this.context = context; }
+
+    public void setItems(List<NormalizedFoodItem> list, Footer footer) {
+        items.clear();
+        items.addAll(list);
+        this.footer = footer;
+        notifyDataSetChanged();
+    }
+
+    public void setFooter(Footer footer) {
+        if (this.footer == footer) return;
+        this.footer = footer;
+        notifyDataSetChanged();
+    }
+
+    public int itemCount() { return items.size(); }
+    public boolean isFooter(int position) { return position >= items.size(); }
+
+    @Override public int getCount() { return items.size() + (footer == Footer.NONE ? 0 : 1); }
+    @Override public Object getItem(int position) { return isFooter(position) ? null : items.get(position); }
+    @Override public long getItemId(int position) { return position; }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        View v = convertView != null ? convertView
+                : LayoutInflater.from(context).inflate(android.R.layout.simple_list_item_2, parent, false);
+        TextView t1 = v.findViewById(android.R.id.text1);
+        TextView t2 = v.findViewById(android.R.id.text2);
+
+        if (isFooter(position)) {
+            t1.setText(footer == Footer.ERROR ? "Couldn't load more results"
+                    : footer == Footer.MORE ? "Search more results" : "Loading more…");
+            t2.setText(footer == Footer.ERROR ? "Tap to retry" : footer == Footer.MORE ? "Tap to load the next page" : "");
+            return v;
+        }
+
+        NormalizedFoodItem f = items.get(position);
+        String brand = (f.brandName == null || f.brandName.isEmpty()) ? "" : f.brandName + " • ";
+        t1.setText(brand + f.description);
+        String serv = (f.servings!=null && f.servings.perServing!=null && f.servings.perServing.hasGrams())
+                ? (Math.round(f.servings.perServing.grams()) + "g serving") : "";
+        String kcal100 = (f.servings!=null && f.servings.per100g!=null && f.servings.per100g.hasCalories())
+                ? (f.servings.per100g.calories() + " kcal/100g") : "";
+        t2.setText(serv.isEmpty() || kcal100.isEmpty() ? serv + kcal100 : serv + " — " + kcal100);
+        return v;
+    }
+}
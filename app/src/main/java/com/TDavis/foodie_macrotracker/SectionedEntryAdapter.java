@@ -11,30 +11,29 @@ import androidx.recyclerview.widget.RecyclerView;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
-/** Collapsible sections (Breakfast/Lunch/Dinner/Snack/Other) with per-section totals. */
+/** Collapsible sections (Breakfast/Lunch/Dinner/Snack/Other) with per-section totals ({@link DaySections}). */
 public class SectionedEntryAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
     private static final int TYPE_HEADER = 0;
     private static final int TYPE_ITEM   = 1;
 
-    private final List<String> sectionOrder = Arrays.asList("Breakfast","Lunch","Dinner","Snack","Other");
     private final LinkedHashMap<String, Boolean> expanded = new LinkedHashMap<>();
-    { for (String s : sectionOrder) expanded.put(s, true); }
+    { for (String s : DaySections.ORDER) expanded.put(s, true); }
 
     private final List<FoodEntry> source = new ArrayList<>();
     private final List<Row> rows = new ArrayList<>();
-    private final Map<String,Integer> counts = new HashMap<>();
-
-    // Per-section totals
-    private final Map<String, SectionTotals> totals = new HashMap<>();
-    private static class SectionTotals { int cal, pro, car, fat; void add(FoodEntry e){ cal+=e.calories; pro+=e.protein; car+=e.carbs; fat+=e.fat; } }
+    private DaySections sections = DaySections.of(null);
 
     public interface OnItemClickListener { void onItemClick(FoodEntry e); }
     public interface OnItemLongClickListener { void onItemLongClick(FoodEntry e); }
+    /** Long-press on a header: the section's entries, oldest first. */
+    public interface OnSectionLongClickListener { void onSectionLongClick(String section, List<FoodEntry> entries); }
     private OnItemClickListener clickListener;
     private OnItemLongClickListener longClickListener;
+    private OnSectionLongClickListener sectionLongClickListener;
     public void setOnItemClickListener(OnItemClickListener l) { this.clickListener = l; }
     public void setOnItemLongClickListener(OnItemLongClickListener l) { this.longClickListener = l; }
+    public void setOnSectionLongClickListener(OnSectionLongClickListener l) { this.sectionLongClickListener = l; }
 
     public void setData(List<FoodEntry> entries) {
         source.clear();
@@ -43,30 +42,12 @@ public class SectionedEntryAdapter extends RecyclerView.Adapter<RecyclerView.Vie
     }
 
     private void rebuild() {
-        rows.clear(); counts.clear(); totals.clear();
-
-        Map<String, List<FoodEntry>> byType = new LinkedHashMap<>();
-        for (String s : sectionOrder) byType.put(s, new ArrayList<>());
-        for (FoodEntry e : source) {
-            String key = (e.mealType == null || e.mealType.trim().isEmpty()) ? "Other" : e.mealType;
-            if (!byType.containsKey(key)) byType.put(key, new ArrayList<>());
-            byType.get(key).add(e);
-        }
-        for (List<FoodEntry> list : byType.values()) {
-            Collections.sort(list, (a,b) -> Long.compare(b.createdAt, a.createdAt));
-        }
-        for (String sec : sectionOrder) {
-            List<FoodEntry> list = byType.get(sec);
-            int count = (list == null) ? 0 : list.size();
-            counts.put(sec, count);
-
-            SectionTotals st = new SectionTotals();
-            if (list != null) for (FoodEntry e : list) st.add(e);
-            totals.put(sec, st);
-
-            rows.add(Row.header(sec));
-            if (expanded.getOrDefault(sec, true) && list != null) {
-                for (FoodEntry e : list) rows.add(Row.item(sec, e));
+        sections = DaySections.of(source);
+        rows.clear();
+        for (DaySections.Section sec : sections.sections()) {
+            rows.add(Row.header(sec.name));
+            if (expanded.getOrDefault(sec.name, true)) {
+                for (FoodEntry e : sec.entries) rows.add(Row.item(sec.name, e));
             }
         }
         notifyDataSetChanged();
@@ -106,17 +87,19 @@ public class SectionedEntryAdapter extends RecyclerView.Adapter<RecyclerView.Vie
         Row row = rows.get(position);
         if (row.type == TYPE_HEADER) {
             HeaderVH h = (HeaderVH) holder;
-            int cnt = counts.getOrDefault(row.header, 0);
+            DaySections.Section sec = sections.get(row.header);
             boolean isOpen = expanded.getOrDefault(row.header, true);
-            SectionTotals st = totals.get(row.header);
-            int kcal = st == null ? 0 : st.cal;
-            int p = st == null ? 0 : st.pro;
-            int c = st == null ? 0 : st.car;
-            int f = st == null ? 0 : st.fat;
+            DaySections.Totals st = sec.totals;
             String arrow = isOpen ? " ▾" : " ▸";
-            h.t.setText(row.header + " (" + cnt + ") — " + kcal + " kcal • P" + p + "/C" + c + "/F" + f + arrow);
+            h.t.setText(row.header + " (" + sec.entries.size() + ") — " + st.calories + " kcal • P" + st.protein + "/C" + st.carbs + "/F" + st.fat + arrow);
             h.itemView.setOnClickListener(v -> { expanded.put(row.header, !isOpen); rebuild(); });
-            h.itemView.setOnLongClickListener(null);
+            h.itemView.setOnLongClickListener(v -> {
+                if (sectionLongClickListener == null || sec.entries.isEmpty()) return false;
+                List<FoodEntry> oldestFirst = new ArrayList<>(sec.entries);
+                Collections.reverse(oldestFirst);
+                sectionLongClickListener.onSectionLongClick(row.header, oldestFirst);
+                return true;
+            });
         } else {
             ItemVH i = (ItemVH) holder;
             FoodEntry e = row.entry;
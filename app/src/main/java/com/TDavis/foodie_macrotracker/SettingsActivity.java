@@ -64,6 +64,12 @@ public class SettingsActivity extends AppCompatActivity {
                     .putInt("themeMode", mode)
                     .apply();
 
+            // Keep the widget's goals in sync
+            TodaySummaryStore.Summary summary = TodaySummaryStore.read(this);
+            summary.goalCal = goalCal; summary.goalPro = goalPro; summary.goalCar = goalCar; summary.goalFat = goalFat;
+            TodaySummaryStore.write(this, summary);
+            MacroWidgetProvider.refresh(this);
+
             // Apply theme immediately
             int m = AppCompatDelegate.MODE_NIGHT_FOLLOW_SYSTEM;
             if (mode == 1) m = AppCompatDelegate.MODE_NIGHT_NO;
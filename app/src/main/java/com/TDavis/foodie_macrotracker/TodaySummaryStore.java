@@ -0,0 +1,129 @@
+package com.TDavis.foodie_macrotracker;
+
+import android.content.Context;
+import android.os.Build;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Tiny fixed-layout file with today's totals, goals and the most recent food.
+ * The widget and quick-add tile read only this file, never the entries/history JSON,
+ * so every read/write is one small record (O(1) regardless of history size).
+ */
+public final class TodaySummaryStore {
+
+    private static final String FILE_NAME = "today_summary.bin";
+    private static final int MAGIC = 0x46445331; // "FDS1"
+
+    // Layout (big-endian):
+    //  0 magic | 4 date yyyyMMdd | 8..23 totals cal/pro/car/fat | 24..39 goals cal/pro/car/fat
+    // 40..55 last food cal/pro/car/fat | 56 meal (len + bytes) | 80 name (len + bytes)
+    private static final int OFF_MEAL = 56, MEAL_MAX = 22;
+    private static final int OFF_NAME = 80, NAME_MAX = 110;
+    static final int SIZE = 192;
+
+    private TodaySummaryStore(){}
+
+    /** Snapshot of the summary record. */
+    public static class Summary {
+        public String date = "";
+        public int calories, protein, carbs, fat;
+        public int goalCal = 2000, goalPro = 150, goalCar = 250, goalFat = 70;
+
+        // Most recently logged food (for quick-add)
+        public String lastName = "", lastMeal = "";
+        public int lastCal, lastPro, lastCar, lastFat;
+
+        public boolean hasLast() { return lastName != null && !lastName.isEmpty(); }
+
+        /** Totals only count when the record was written today. */
+        public boolean isFor(String day) { return day != null && day.equals(date); }
+
+        public void setLast(FoodEntry e) {
+            lastName = e.name == null ? "" : e.name;
+            lastMeal = e.mealType == null ? "" : e.mealType;
+            lastCal = e.calories; lastPro = e.protein; lastCar = e.carbs; lastFat = e.fat;
+        }
+    }
+
+    public static Summary read(Context ctx) {
+        Summary s = new Summary();
+        File f = file(ctx);
+        if (!f.exists()) return s;
+        byte[] raw = new byte[SIZE];
+        try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+            if (raf.length() < SIZE) return s;
+            raf.readFully(raw);
+        } catch (IOException e) {
+            return s;
+        }
+
+        ByteBuffer b = ByteBuffer.wrap(raw);
+        if (b.getInt(0) != MAGIC) return s;
+        s.date = decodeDate(b.getInt(4));
+        s.calories = b.getInt(8);  s.protein = b.getInt(12); s.carbs = b.getInt(16);   s.fat = b.getInt(20);
+        s.goalCal  = b.getInt(24); s.goalPro = b.getInt(28); s.goalCar = b.getInt(32); s.goalFat = b.getInt(36);
+        s.lastCal  = b.getInt(40); s.lastPro = b.getInt(44); s.lastCar = b.getInt(48); s.lastFat = b.getInt(52);
+        s.lastMeal = getString(raw, OFF_MEAL, MEAL_MAX);
+        s.lastName = getString(raw, OFF_NAME, NAME_MAX);
+        return s;
+    }
+
+    /** Overwrites the whole record in place (one fixed-size write). */
+    public static void write(Context ctx, Summary s) {
+        byte[] raw = new byte[SIZE];
+        ByteBuffer b = ByteBuffer.wrap(raw);
+        b.putInt(0, MAGIC);
+        b.putInt(4, encodeDate(s.date));
+        b.putInt(8, s.calories);  b.putInt(12, s.protein); b.putInt(16, s.carbs);   b.putInt(20, s.fat);
+        b.putInt(24, s.goalCal);  b.putInt(28, s.goalPro); b.putInt(32, s.goalCar); b.putInt(36, s.goalFat);
+        b.putInt(40, s.lastCal);  b.putInt(44, s.lastPro); b.putInt(48, s.lastCar); b.putInt(52, s.lastFat);
+        putString(raw, OFF_MEAL, MEAL_MAX, s.lastMeal);
+        putString(raw, OFF_NAME, NAME_MAX, s.lastName);
+
+        try (RandomAccessFile raf = new RandomAccessFile(file(ctx), "rw")) {
+            raf.seek(0);
+            raf.write(raw);
+            raf.setLength(SIZE);
+        } catch (IOException ignored) {
+            // Widget just shows stale numbers until the next write
+        }
+    }
+
+    /** Same format as MainActivity's date keys (yyyy-MM-dd). */
+    public static String today() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) return java.time.LocalDate.now().toString();
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date());
+    }
+
+    private static File file(Context ctx) { return new File(ctx.getFilesDir(), FILE_NAME); }
+
+    // ---- small utils ----
+    private static int encodeDate(String yyyyMmDd) {
+        try { return Integer.parseInt(yyyyMmDd.replace("-", "")); } catch (Exception e) { return 0; }
+    }
+    private static String decodeDate(int v) {
+        if (v <= 0) return "";
+        return String.format(Locale.US, "%04d-%02d-%02d", v / 10000, (v / 100) % 100, v % 100);
+    }
+
+    private static void putString(byte[] raw, int off, int max, String s) {
+        byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        int len = Math.min(bytes.length, max);
+        // don't cut a multi-byte char in half
+        while (len > 0 && len < bytes.length && (bytes[len] & 0xC0) == 0x80) len--;
+        raw[off] = (byte) len;
+        System.arraycopy(bytes, 0, raw, off + 1, len);
+    }
+    private static String getString(byte[] raw, int off, int max) {
+        int len = Math.min(raw[off] & 0xFF, max);
+        return new String(raw, off + 1, len, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,132 @@
+package com.TDavis.foodie_macrotracker.net;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.IOException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Circuit breaker for the proxy, installed as an OkHttp interceptor.
+ *
+ * - CLOSED: calls go through. {@link #FAILURE_THRESHOLD} consecutive failures (I/O error, timeout
+ *   or 5xx, after retries) open it.
+ * - OPEN: calls fail at once with {@link OpenException}, so the cache fallback and the UI's local
+ *   sources answer instead of the user waiting on timeouts. After the cool-down it goes half-open.
+ * - HALF_OPEN: one trial call is let through (others still fail fast). Success closes the breaker;
+ *   failure re-opens it with a doubled cool-down (capped).
+ *
+ * Cache-only requests (only-if-cached, the offline fallback) never reach the proxy: they pass
+ * through in every state and are not counted, so an open breaker still lets cached data answer
+ * and a cache miss (504) is not a proxy failure.
+ *
+ * State changes are posted to listeners on the main thread.
+ */
+public final class CircuitBreaker implements Interceptor {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    public interface Listener { void onStateChanged(State state); }
+
+    /** Thrown instead of calling the proxy while the breaker is open. */
+    public static final class OpenException extends IOException {
+        OpenException() { super("Proxy unavailable (circuit open)"); }
+    }
+
+    static final int FAILURE_THRESHOLD = 3;
+    static final long BASE_COOLDOWN_MS = 15_000;
+    static final long MAX_COOLDOWN_MS = 120_000;
+
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long cooldownMs = BASE_COOLDOWN_MS;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public void addListener(Listener l) { listeners.add(l); }
+    public void removeListener(Listener l) { listeners.remove(l); }
+
+    /** Current state; OPEN turns into HALF_OPEN lazily once the cool-down has passed. */
+    public synchronized State state() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= cooldownMs) return State.HALF_OPEN;
+        return state;
+    }
+
+    /** True when a call right now would fail fast. */
+    public synchronized boolean isOpen() {
+        State s = state();
+        return s == State.OPEN || (s == State.HALF_OPEN && trialInFlight);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request req = chain.request();
+        if (req.cacheControl().onlyIfCached()) return chain.proceed(req);
+        boolean trial = admit();
+        Response resp;
+        try {
+            resp = chain.proceed(req);
+        } catch (IOException e) {
+            // Canceled, or never sent / 429'd by the rate limit: says nothing about proxy health
+            if (chain.call().isCanceled() || e instanceof RequestScheduler.RateLimitedException) release(trial);
+            else onFailure(trial);
+            throw e;
+        }
+        if (resp.code() >= 500) onFailure(trial); else onSuccess();
+        return resp;
+    }
+
+    /* ==============================  internals  ============================== */
+
+    // Returns true when this call is the half-open trial; throws when it must fail fast
+    private synchronized boolean admit() throws OpenException {
+        State s = state();
+        if (s == State.CLOSED) return false;
+        if (s == State.HALF_OPEN && !trialInFlight) {
+            if (state != State.HALF_OPEN) setState(State.HALF_OPEN);
+            trialInFlight = true;
+            return true;
+        }
+        throw new OpenException();
+    }
+
+    private synchronized void release(boolean trial) {
+        if (trial) trialInFlight = false;
+    }
+
+    private synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        cooldownMs = BASE_COOLDOWN_MS;
+        trialInFlight = false;
+        if (state != State.CLOSED) setState(State.CLOSED);
+    }
+
+    private synchronized void onFailure(boolean trial) {
+        consecutiveFailures++;
+        if (trial) {
+            trialInFlight = false;
+            cooldownMs = Math.min(MAX_COOLDOWN_MS, cooldownMs * 2);
+            open();
+        } else if (state == State.CLOSED && consecutiveFailures >= FAILURE_THRESHOLD) {
+            open();
+        }
+    }
+
+    private void open() {
+        openedAt = System.currentTimeMillis();
+        setState(State.OPEN);
+    }
+
+    private void setState(State s) {
+        state = s;
+        main.post(() -> { for (Listener l : listeners) l.onStateChanged(s); });
+    }
+}
@@ -0,0 +1,175 @@
+package com.TDavis.foodie_macrotracker.net;
+
+import com.TDavis.foodie_macrotracker.FoodModels.BarcodeBatchResponse;
+import com.TDavis.foodie_macrotracker.FoodModels.BarcodeLookupResponse;
+import com.TDavis.foodie_macrotracker.FoodModels.FoodDetailResponse;
+import com.TDavis.foodie_macrotracker.FoodModels.FoodSearchResponseV2;
+import com.TDavis.foodie_macrotracker.FoodModels.HealthResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Single-flight wrapper around the Retrofit service: identical calls enqueued while one is
+ * already in flight (double taps, rescans, an Activity recreated mid-request) join it instead of
+ * hitting the network again, and every waiter gets the same Response.
+ *
+ * Keys: normalized query + page size + page for search, fdcId for details, the trimmed code (or
+ * code list) for barcodes.
+ * Cancellation is reference-counted: cancelling one waiter only detaches it (it gets no callback);
+ * the network call is cancelled when the last waiter leaves. execute() is not coalesced.
+ *
+ * Response bodies are shared between waiters, so treat them as read-only.
+ */
+final class CoalescingProxyService implements UsdaProxyService {
+
+    private final UsdaProxyService delegate;
+    private final Map<String, Flight<?>> flights = new HashMap<>(); // guarded by itself
+
+    CoalescingProxyService(UsdaProxyService delegate) { this.delegate = delegate; }
+
+    @Override
+    public Call<FoodSearchResponseV2> searchFoodsNormalized(String query, Integer pageSize, Integer pageNumber) {
+        String key = "search|" + normalize(query) + "|" + pageSize + "|" + pageNumber;
+        return new SharedCall<>(key, () -> delegate.searchFoodsNormalized(query, pageSize, pageNumber));
+    }
+
+    @Override
+    public Call<FoodDetailResponse> getFoodDetailNormalized(long fdcId) {
+        return new SharedCall<>("detail|" + fdcId, () -> delegate.getFoodDetailNormalized(fdcId));
+    }
+
+    @Override
+    public Call<BarcodeLookupResponse> getByBarcodeNormalized(String code) {
+        String key = "barcode|" + (code == null ? "" : code.trim());
+        return new SharedCall<>(key, () -> delegate.getByBarcodeNormalized(code));
+    }
+
+    @Override
+    public Call<BarcodeBatchResponse> getByBarcodesNormalized(String codes) {
+        String key = "barcodes|" + (codes == null ? "" : codes.trim());
+        return new SharedCall<>(key, () -> delegate.getByBarcodesNormalized(codes));
+    }
+
+    @Override
+    public Call<HealthResponse> health() {
+        return new SharedCall<>("health", delegate::health);
+    }
+
+    /** Calls currently on the network (for tests / debugging). */
+    int inFlight() { synchronized (flights) { return flights.size(); } }
+
+    /* ==============================  internals  ============================== */
+
+    private static final class Flight<T> {
+        final String key;
+        final Call<T> call;
+        final List<SharedCall<T>> waiters = new ArrayList<>();
+        Flight(String key, Call<T> call) { this.key = key; this.call = call; }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void join(SharedCall<T> w) {
+        Flight<T> f;
+        boolean start = false;
+        synchronized (flights) {
+            f = (Flight<T>) flights.get(w.key);
+            if (f == null) {
+                f = new Flight<>(w.key, w.factory.get());
+                flights.put(w.key, f);
+                start = true;
+            }
+            f.waiters.add(w);
+            w.flight = f;
+        }
+        if (!start) return;
+
+        final Flight<T> flight = f;
+        flight.call.enqueue(new Callback<T>() {
+            @Override public void onResponse(Call<T> call, Response<T> response) {
+                for (SharedCall<T> each : land(flight)) each.callback.onResponse(each, response);
+            }
+            @Override public void onFailure(Call<T> call, Throwable t) {
+                for (SharedCall<T> each : land(flight)) each.callback.onFailure(each, t);
+            }
+        });
+    }
+
+    // Flight finished: stop accepting joiners and hand back whoever is still waiting
+    private <T> List<SharedCall<T>> land(Flight<T> f) {
+        synchronized (flights) {
+            if (flights.get(f.key) == f) flights.remove(f.key);
+            List<SharedCall<T>> out = new ArrayList<>(f.waiters);
+            f.waiters.clear();
+            return out;
+        }
+    }
+
+    private <T> void leave(SharedCall<T> w) {
+        Flight<T> f = w.flight;
+        if (f == null) return;
+        boolean last;
+        synchronized (flights) {
+            if (!f.waiters.remove(w)) return; // already delivered
+            last = f.waiters.isEmpty();
+            if (last && flights.get(f.key) == f) flights.remove(f.key);
+        }
+        if (last) f.call.cancel();
+    }
+
+    private static String normalize(String q) {
+        return q == null ? "" : q.trim().toLowerCase(Locale.US).replaceAll("\\s+", " ");
+    }
+
+    /** The Call handed to callers; one per caller, possibly sharing a Flight. */
+    private final class SharedCall<T> implements Call<T> {
+        final String key;
+        final Supplier<Call<T>> factory;
+        Callback<T> callback;
+        Flight<T> flight;
+        private boolean executed;
+        private volatile boolean canceled;
+
+        SharedCall(String key, Supplier<Call<T>> factory) { this.key = key; this.factory = factory; }
+
+        @Override public void enqueue(Callback<T> cb) {
+            synchronized (this) {
+                if (executed) throw new IllegalStateException("Already executed.");
+                executed = true;
+                callback = cb;
+            }
+            if (canceled) { cb.onFailure(this, new IOException("Canceled")); return; }
+            join(this);
+        }
+
+        @Override public Response<T> execute() throws IOException {
+            synchronized (this) {
+                if (executed) throw new IllegalStateException("Already executed.");
+                executed = true;
+            }
+            return factory.get().execute();
+        }
+
+        @Override public void cancel() {
+            canceled = true;
+            leave(this);
+        }
+
+        @Override public synchronized boolean isExecuted() { return executed; }
+        @Override public boolean isCanceled() { return canceled; }
+        @Override public Call<T> clone() { return new SharedCall<>(key, factory); }
+        @Override public Request request() { return factory.get().request(); }
+        @Override public Timeout timeout() { return flight != null ? flight.call.timeout() : factory.get().timeout(); }
+    }
+}
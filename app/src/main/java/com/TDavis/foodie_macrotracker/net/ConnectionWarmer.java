@@ -0,0 +1,139 @@
+package com.TDavis.foodie_macrotracker.net;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.TDavis.foodie_macrotracker.FoodModels.HealthResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+import retrofit2.Call;
+import retrofit2.Callback;
+
+/**
+ * Pays DNS, TLS and the proxy's cold start before the user's first search does.
+ *
+ * - {@link #warm}: pings /health (MainActivity start, etFood focus). The pool is shared by both
+ *   services, so the interactive client reuses the warmed connection.
+ * - While the user keeps logging ({@link #onUserActivity}), a ping every {@link #KEEPALIVE_MS}
+ *   keeps the pooled connection and the server instance alive. It stops after
+ *   {@link #IDLE_TIMEOUT_MS} without activity or on {@link #stop}.
+ * - Nothing is sent on metered networks or with no network.
+ *
+ * As an interceptor it also watches for the first real request after a warm-up and logs how much
+ * latency the warm-up absorbed (cold ping minus warm ping).
+ */
+public final class ConnectionWarmer implements Interceptor {
+
+    private static final String TAG = "ConnectionWarmer";
+
+    static final long KEEPALIVE_MS = TimeUnit.MINUTES.toMillis(4);     // under OkHttp's 5 min pool keep-alive
+    static final long IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+    static final long MIN_WARM_GAP_MS = TimeUnit.SECONDS.toMillis(60); // recent contact = already warm
+
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private Context app;
+    private UsdaProxyService api;
+
+    private volatile long lastContactAt;  // last successful proxy response, any caller
+    private long lastActivityAt;
+    private boolean sessionActive, pinging;
+
+    // Warm-up report
+    private volatile long coldPingMs = -1, warmPingMs = -1;
+    private volatile long firstRequestMs = -1;
+    private volatile boolean reported;
+
+    private final Runnable keepAlive = this::keepAliveTick;
+
+    ConnectionWarmer() {}
+
+    synchronized void attach(Context app, UsdaProxyService api) {
+        if (this.app == null) { this.app = app; this.api = api; }
+    }
+
+    /** Ping the proxy unless it was reached recently (main thread). */
+    public void warm() {
+        if (!allowed() || System.currentTimeMillis() - lastContactAt < MIN_WARM_GAP_MS) return;
+        ping(coldPingMs < 0);
+    }
+
+    /** The user did something in a logging session: start or extend keep-alive (main thread). */
+    public void onUserActivity() {
+        lastActivityAt = System.currentTimeMillis();
+        if (sessionActive) return;
+        sessionActive = true;
+        main.postDelayed(keepAlive, KEEPALIVE_MS);
+    }
+
+    /** Session over (activity stopped). */
+    public void stop() {
+        sessionActive = false;
+        main.removeCallbacks(keepAlive);
+    }
+
+    /** Estimated latency the first warm-up took off the first real request; -1 until known. */
+    public long savedMs() {
+        return (coldPingMs < 0 || warmPingMs < 0) ? -1 : Math.max(0, coldPingMs - warmPingMs);
+    }
+
+    public long firstRequestMs() { return firstRequestMs; }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        long t0 = System.nanoTime();
+        Response resp = chain.proceed(chain.request());
+        if (resp.networkResponse() != null && resp.code() < 500) {
+            lastContactAt = System.currentTimeMillis();
+            boolean health = chain.request().url().encodedPath().endsWith("/health");
+            if (!health && !reported && coldPingMs >= 0) {
+                reported = true;
+                firstRequestMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+                Log.d(TAG, "first request " + firstRequestMs + " ms after warm-up; warm-up absorbed ~"
+                        + savedMs() + " ms (cold ping " + coldPingMs + " ms, warm ping " + warmPingMs + " ms)");
+            }
+        }
+        return resp;
+    }
+
+    /* ==============================  internals  ============================== */
+
+    private void keepAliveTick() {
+        long now = System.currentTimeMillis();
+        if (!sessionActive || now - lastActivityAt > IDLE_TIMEOUT_MS || !allowed()) {
+            sessionActive = false; // idle, metered or offline: let the connection go
+            return;
+        }
+        if (now - lastContactAt >= KEEPALIVE_MS - MIN_WARM_GAP_MS) ping(false);
+        main.postDelayed(keepAlive, KEEPALIVE_MS);
+    }
+
+    // first: also take a second (warm) ping as the baseline for the savings estimate
+    private void ping(boolean first) {
+        if (api == null || pinging) return;
+        pinging = true;
+        final long t0 = System.nanoTime();
+        api.health().enqueue(new Callback<HealthResponse>() {
+            @Override public void onResponse(Call<HealthResponse> call, retrofit2.Response<HealthResponse> resp) {
+                pinging = false;
+                if (!resp.isSuccessful()) return;
+                long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0);
+                if (first && coldPingMs < 0) { coldPingMs = ms; ping(false); }
+                else if (coldPingMs >= 0 && warmPingMs < 0) warmPingMs = ms;
+            }
+            @Override public void onFailure(Call<HealthResponse> call, Throwable t) { pinging = false; }
+        });
+    }
+
+    private boolean allowed() {
+        if (app == null) return false;
+        ConnectivityManager cm = app.getSystemService(ConnectivityManager.class);
+        return cm != null && cm.getActiveNetwork() != null && !cm.isActiveNetworkMetered();
+    }
+}
@@ -0,0 +1,72 @@
+package com.TDavis.foodie_macrotracker.net;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Recent proxy latencies per endpoint ("search", "detail", "barcode"), kept in small ring
+ * buffers so percentiles follow the server as it warms up or slows down.
+ * Thread-safe: OkHttp records from its dispatcher threads.
+ */
+public final class LatencyTracker {
+
+    static final int WINDOW = 64;
+    /** Fewer samples than this and percentiles are not trusted (callers use their defaults). */
+    static final int MIN_SAMPLES = 16;
+
+    private static final class Ring {
+        final long[] ms = new long[WINDOW];
+        int next, count;
+    }
+
+    private final Map<String, Ring> rings = new HashMap<>();
+
+    public synchronized void record(String endpoint, long millis) {
+        Ring r = rings.get(endpoint);
+        if (r == null) { r = new Ring(); rings.put(endpoint, r); }
+        r.ms[r.next] = millis;
+        r.next = (r.next + 1) % WINDOW;
+        if (r.count < WINDOW) r.count++;
+    }
+
+    public synchronized int samples(String endpoint) {
+        Ring r = rings.get(endpoint);
+        return r == null ? 0 : r.count;
+    }
+
+    /** p in [0, 100]; -1 when there are fewer than {@link #MIN_SAMPLES} samples. */
+    public synchronized long percentile(String endpoint, double p) {
+        Ring r = rings.get(endpoint);
+        return (r == null || r.count < MIN_SAMPLES) ? -1 : pct(r, p);
+    }
+
+    /** Endpoint bucket for a request path. */
+    static String endpointOf(String path) {
+        if (path == null) return "other";
+        if (path.startsWith("/api/foods/search")) return "search";
+        if (path.startsWith("/api/foods/")) return "detail";
+        if (path.startsWith("/api/barcode/")) return "barcode";
+        return "other";
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("LatencyTracker{");
+        for (Map.Entry<String, Ring> e : rings.entrySet()) {
+            Ring r = e.getValue();
+            sb.append(e.getKey()).append(": n=").append(r.count)
+              .append(" p50=").append(pct(r, 50))
+              .append(" p95=").append(pct(r, 95))
+              .append(" p99=").append(pct(r, 99)).append("; ");
+        }
+        return sb.append('}').toString();
+    }
+
+    private static long pct(Ring r, double p) {
+        long[] sorted = Arrays.copyOf(r.ms, r.count);
+        Arrays.sort(sorted);
+        int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, idx))];
+    }
+}
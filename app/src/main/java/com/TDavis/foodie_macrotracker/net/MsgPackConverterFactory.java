@@ -0,0 +1,55 @@
+package com.TDavis.foodie_macrotracker.net;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Response converter for the proxy's compact encoding (application/x-msgpack).
+ *
+ * Register it before the Gson converter. Each body is routed on its Content-Type: MessagePack is
+ * decoded here, anything else (JSON, or a server that ignored the Accept header) goes to the next
+ * converter. MessagePack is read through {@link MsgPackReader}, a {@link JsonReader} over the
+ * binary tokens, so the same Gson type adapters build the models and both encodings yield
+ * identical objects.
+ */
+final class MsgPackConverterFactory extends Converter.Factory {
+
+    static final String MEDIA_TYPE = "application/x-msgpack";
+
+    private final Gson gson;
+
+    private MsgPackConverterFactory(Gson gson) { this.gson = gson; }
+
+    static MsgPackConverterFactory create(Gson gson) { return new MsgPackConverterFactory(gson); }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        final TypeAdapter<?> adapter = gson.getAdapter(TypeToken.get(type));
+        final Converter<ResponseBody, ?> fallback = retrofit.nextResponseBodyConverter(this, type, annotations);
+        return body -> {
+            if (!isMsgPack(body.contentType())) return fallback.convert(body);
+            try (ResponseBody b = body) {
+                MsgPackReader in = new MsgPackReader(b.bytes());
+                Object value = adapter.read(in);
+                if (in.peek() != JsonToken.END_DOCUMENT) throw new IOException("MessagePack body has trailing data");
+                return value;
+            }
+        };
+    }
+
+    static boolean isMsgPack(MediaType type) {
+        return type != null && "x-msgpack".equalsIgnoreCase(type.subtype());
+    }
+}
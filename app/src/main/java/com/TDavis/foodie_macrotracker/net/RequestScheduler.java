@@ -0,0 +1,197 @@
+package com.TDavis.foodie_macrotracker.net;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Client-side budget for the proxy's rate limit (express-rate-limit: 60 requests per minute per
+ * IP), so speculative traffic can't get the user's own searches rejected with 429s.
+ *
+ * Each service sends its requests through {@link #gate} for its {@link Priority}. The gate is a
+ * network interceptor, so cache hits cost nothing. A token bucket refills a little under the
+ * server limit:
+ *
+ * - INTERACTIVE (typing, Search, scans, picks) takes any token and waits briefly for one.
+ * - PREFETCH (likely-next details) only goes when {@link #RESERVE} tokens would be left, otherwise
+ *   it is dropped: it would be stale by the time budget frees up.
+ * - BACKGROUND (revalidation, keep-alive pings) is deferred until there is headroom and no
+ *   interactive request is waiting, and is dropped only after {@link #BACKGROUND_MAX_WAIT_MS}.
+ *
+ * A 429 empties the bucket and blocks everyone until its Retry-After has passed; the call then
+ * fails with {@link RateLimitedException}, which {@link ResilienceInterceptor} retries (the gate
+ * makes the retry wait or drops it by priority). Queue depth, waits and drops are counted per class.
+ */
+public final class RequestScheduler {
+
+    public enum Priority { INTERACTIVE, PREFETCH, BACKGROUND }
+
+    /** The request was not sent (budget exhausted) or the proxy answered 429. */
+    public static final class RateLimitedException extends IOException {
+        public final boolean fromServer;
+        public final long retryAfterMs;
+
+        RateLimitedException(boolean fromServer, long retryAfterMs) {
+            super((fromServer ? "Rate limited by proxy" : "Request budget exhausted") + ", retry in " + retryAfterMs + " ms");
+            this.fromServer = fromServer;
+            this.retryAfterMs = retryAfterMs;
+        }
+    }
+
+    // Server: fixed 60 s window, 60 requests. Burst + one window of refill stays at 60.
+    static final double BURST = 5;
+    static final double REFILL_PER_MS = 55 / 60_000.0;
+    static final double RESERVE = 2;          // tokens prefetch/background must leave for the user
+    static final long INTERACTIVE_MAX_WAIT_MS = 3_000;
+    static final long BACKGROUND_MAX_WAIT_MS = 30_000;
+    static final long DEFAULT_RETRY_AFTER_MS = 10_000;
+    static final long MAX_RETRY_AFTER_MS = 10 * 60_000;
+    private static final long POLL_MS = 250;  // re-check cancellation while waiting
+
+    private static final int N = Priority.values().length;
+
+    // guarded by this
+    private double tokens = BURST;
+    private long refilledAt = now();
+    private long blockedUntil;
+    private final int[] waiting = new int[N];
+    private final long[] admitted = new long[N], dropped = new long[N];
+    private final long[] totalWaitMs = new long[N], maxWaitMs = new long[N];
+    private long rateLimitedResponses;
+
+    RequestScheduler() {}
+
+    /** Network interceptor admitting requests of one class. */
+    Interceptor gate(Priority p) {
+        return chain -> {
+            acquire(p, chain.call());
+            Response resp = chain.proceed(chain.request());
+            if (resp.code() == 429) {
+                long retryAfter = onRateLimited(resp);
+                resp.close();
+                throw new RateLimitedException(true, retryAfter);
+            }
+            observe(resp);
+            return resp;
+        };
+    }
+
+    /** True when a token could be spent on optional work (e.g. a hedge) without touching the reserve. */
+    public synchronized boolean hasHeadroom() {
+        long now = now();
+        refill(now);
+        return now >= blockedUntil && tokens >= 1 + RESERVE;
+    }
+
+    /* ==============================  metrics  ============================== */
+
+    public synchronized int queueDepth(Priority p)  { return waiting[p.ordinal()]; }
+    public synchronized long admitted(Priority p)   { return admitted[p.ordinal()]; }
+    public synchronized long dropped(Priority p)    { return dropped[p.ordinal()]; }
+    public synchronized long maxWaitMs(Priority p)  { return maxWaitMs[p.ordinal()]; }
+    public synchronized long rateLimitedResponses() { return rateLimitedResponses; }
+
+    public synchronized long meanWaitMs(Priority p) {
+        long n = admitted[p.ordinal()];
+        return n == 0 ? 0 : totalWaitMs[p.ordinal()] / n;
+    }
+
+    /* ==============================  internals  ============================== */
+
+    private synchronized void acquire(Priority p, Call call) throws IOException {
+        int i = p.ordinal();
+        long start = now();
+        long deadline = start + maxWait(p);
+        double need = (p == Priority.INTERACTIVE) ? 1 : 1 + RESERVE;
+        waiting[i]++;
+        try {
+            while (true) {
+                if (call.isCanceled()) throw new IOException("Canceled");
+                long now = now();
+                refill(now);
+                long wake;
+                if (now < blockedUntil) {
+                    wake = blockedUntil;
+                } else if (p != Priority.INTERACTIVE && waiting[Priority.INTERACTIVE.ordinal()] > 0) {
+                    wake = now + POLL_MS; // the user goes first
+                } else if (tokens >= need) {
+                    tokens -= 1;
+                    long waited = now - start;
+                    admitted[i]++;
+                    totalWaitMs[i] += waited;
+                    maxWaitMs[i] = Math.max(maxWaitMs[i], waited);
+                    return;
+                } else {
+                    wake = now + (long) Math.ceil((need - tokens) / REFILL_PER_MS);
+                }
+                if (wake > deadline) {
+                    dropped[i]++;
+                    throw new RateLimitedException(false, wake - now);
+                }
+                wait(Math.max(1, Math.min(wake - now, POLL_MS)));
+            }
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException();
+        } finally {
+            waiting[i]--;
+        }
+    }
+
+    private static long maxWait(Priority p) {
+        switch (p) {
+            case INTERACTIVE: return INTERACTIVE_MAX_WAIT_MS;
+            case BACKGROUND:  return BACKGROUND_MAX_WAIT_MS;
+            default:          return 0; // prefetch: now or never
+        }
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(BURST, tokens + (now - refilledAt) * REFILL_PER_MS);
+        refilledAt = now;
+    }
+
+    // 429: nothing goes out until Retry-After has passed
+    private synchronized long onRateLimited(Response resp) {
+        rateLimitedResponses++;
+        long now = now();
+        long retryAfter = Math.min(MAX_RETRY_AFTER_MS, retryAfterMs(resp, now));
+        refill(now);
+        tokens = 0;
+        blockedUntil = Math.max(blockedUntil, now + retryAfter);
+        return retryAfter;
+    }
+
+    // The server's own count wins when it is lower (other devices can share the IP)
+    private synchronized void observe(Response resp) {
+        String remaining = resp.header("RateLimit-Remaining");
+        if (remaining == null) return;
+        try {
+            long now = now();
+            refill(now);
+            tokens = Math.min(tokens, Integer.parseInt(remaining.trim()));
+            if (tokens < 1) {
+                String reset = resp.header("RateLimit-Reset");
+                long resetMs = reset != null ? TimeUnit.SECONDS.toMillis(Long.parseLong(reset.trim())) : DEFAULT_RETRY_AFTER_MS;
+                blockedUntil = Math.max(blockedUntil, now + Math.min(MAX_RETRY_AFTER_MS, resetMs));
+            }
+        } catch (NumberFormatException ignored) { /* malformed header: keep our own count */ }
+    }
+
+    static long retryAfterMs(Response resp, long now) {
+        String v = resp.header("Retry-After");
+        if (v == null) return DEFAULT_RETRY_AFTER_MS;
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(v.trim())));
+        } catch (NumberFormatException e) {
+            Date at = resp.headers().getDate("Retry-After"); // HTTP-date form
+            return at != null ? Math.max(0, at.getTime() - now) : DEFAULT_RETRY_AFTER_MS;
+        }
+    }
+
+    private static long now() { return System.currentTimeMillis(); }
+}
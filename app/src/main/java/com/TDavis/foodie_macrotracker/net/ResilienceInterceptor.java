@@ -0,0 +1,253 @@
+package com.TDavis.foodie_macrotracker.net;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Tail-latency handling for proxy GETs (all of them are idempotent):
+ *
+ * - Adaptive timeout: the first attempt's read timeout is ~3x the endpoint's recent p99 instead of
+ *   the full budget, so a stuck connection is abandoned early. Retries get the full budget, which
+ *   still covers a cold start.
+ * - Retry: up to {@link #MAX_RETRIES} more attempts on I/O errors and 5xx, with full-jitter
+ *   exponential backoff. A 429 ({@link RequestScheduler.RateLimitedException} from the proxy) is
+ *   retried without backoff: the scheduler's gate waits out Retry-After or drops the retry, by
+ *   priority. A request the scheduler refused locally is not retried.
+ * - Hedging (interactive searches only): if no answer arrives within the recent p95, a second
+ *   identical request is sent and whichever answers first wins. Hedges are capped at
+ *   {@link #MAX_HEDGE_FRACTION} of requests and need latency history, so a cold server (where
+ *   both copies would just queue behind the boot) is never hedged. A hedge also needs
+ *   rate-limit headroom ({@link RequestScheduler#hasHeadroom}). Once one copy answers, only the
+ *   other is cancelled. The copies run on a dispatcher of their own: the caller keeps its slot
+ *   while it waits for them, so on the caller's dispatcher a few concurrent searches would take
+ *   every slot and leave the copies queued until the call timeout.
+ *
+ * Cache-only requests (only-if-cached, e.g. the offline fallback) pass straight through: their
+ * 504 is a cache miss, which no retry or hedge can change.
+ */
+final class ResilienceInterceptor implements Interceptor {
+
+    static final int MAX_RETRIES = 2;
+    private static final long BACKOFF_BASE_MS = 250, BACKOFF_CAP_MS = 4000;
+    private static final long MIN_TIMEOUT_MS = 2000;
+    private static final double TIMEOUT_P99_FACTOR = 3.0;
+    private static final long MIN_HEDGE_DELAY_MS = 200;
+    static final double MAX_HEDGE_FRACTION = 0.1;
+
+    private final LatencyTracker latency;
+    private final Call.Factory races; // null = no hedging
+    private final RequestScheduler scheduler;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger retries = new AtomicInteger();
+    private final AtomicInteger hedges = new AtomicInteger();
+    private final AtomicInteger hedgeWins = new AtomicInteger();
+
+    /** {@code hedgeVia} sends the raced copies (null = no hedging); it must not contain this interceptor. */
+    ResilienceInterceptor(LatencyTracker latency, OkHttpClient hedgeVia, RequestScheduler scheduler) {
+        this.latency = latency;
+        this.races = hedgeVia == null ? null : hedgeVia.newBuilder().dispatcher(raceDispatcher(hedgeVia.dispatcher())).build();
+        this.scheduler = scheduler;
+    }
+
+    int requests()  { return requests.get(); }
+    int retries()   { return retries.get(); }
+    int hedges()    { return hedges.get(); }
+    int hedgeWins() { return hedgeWins.get(); }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request req = chain.request();
+        if (!"GET".equals(req.method()) || req.cacheControl().onlyIfCached()) return chain.proceed(req);
+
+        String ep = LatencyTracker.endpointOf(req.url().encodedPath());
+        requests.incrementAndGet();
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                Response resp = (attempt == 0 && races != null && ep.equals("search"))
+                        ? hedged(chain, req, ep)
+                        : timed(attempt == 0 ? adaptTimeout(chain, ep) : chain, req, ep);
+                if (resp.code() < 500 || attempt >= MAX_RETRIES) return resp;
+                resp.close();
+            } catch (RequestScheduler.RateLimitedException e) {
+                if (!e.fromServer || chain.call().isCanceled() || attempt >= MAX_RETRIES) throw e;
+                retries.incrementAndGet();
+                continue; // the gate does the waiting
+            } catch (IOException e) {
+                if (chain.call().isCanceled() || attempt >= MAX_RETRIES) throw e;
+            }
+            retries.incrementAndGet();
+            sleep(backoffMs(attempt));
+            if (chain.call().isCanceled()) throw new IOException("Canceled");
+        }
+    }
+
+    /* ==============================  internals  ============================== */
+
+    private Chain adaptTimeout(Chain chain, String ep) {
+        long p99 = latency.percentile(ep, 99);
+        if (p99 < 0) return chain;
+        long t = Math.max(MIN_TIMEOUT_MS, (long) (p99 * TIMEOUT_P99_FACTOR));
+        if (t >= chain.readTimeoutMillis()) return chain;
+        return chain.withReadTimeout((int) t, TimeUnit.MILLISECONDS);
+    }
+
+    private Response timed(Chain chain, Request req, String ep) throws IOException {
+        long t0 = System.nanoTime();
+        Response resp = chain.proceed(req);
+        record(resp, ep, t0);
+        return resp;
+    }
+
+    private void record(Response resp, String ep, long t0) {
+        if (resp.networkResponse() != null && resp.code() < 500) {
+            latency.record(ep, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+        }
+    }
+
+    private Response hedged(Chain chain, Request req, String ep) throws IOException {
+        long p95 = latency.percentile(ep, 95);
+        boolean allowed = p95 >= 0 && hedges.get() < MAX_HEDGE_FRACTION * requests.get() && scheduler.hasHeadroom();
+        if (!allowed) return timed(adaptTimeout(chain, ep), req, ep);
+
+        Race race = new Race(ep, chain.call());
+        race.start(req);
+        Outcome outcome = race.next(Math.max(MIN_HEDGE_DELAY_MS, p95));
+        if (outcome == null && scheduler.hasHeadroom()) {
+            hedges.incrementAndGet();
+            race.start(req);
+        }
+
+        Outcome fallback = null;
+        IOException error = null;
+        while (true) {
+            if (outcome == null) outcome = race.next(Long.MAX_VALUE);
+            race.pending--;
+            if (outcome.response != null && outcome.response.code() < 500) {
+                if (outcome.hedge) hedgeWins.incrementAndGet();
+                race.finish(outcome.call); // cancels the loser only: the winner's body is still to be read
+                if (fallback != null) fallback.response.close();
+                return outcome.response;
+            }
+            if (outcome.response != null) {
+                if (fallback != null) fallback.response.close();
+                fallback = outcome;
+            } else {
+                error = outcome.error;
+            }
+            if (race.pending == 0) {
+                race.finish(fallback != null ? fallback.call : null);
+                if (fallback != null) return fallback.response;
+                throw error;
+            }
+            outcome = null;
+        }
+    }
+
+    /** How one copy of a raced request ended: a response or an I/O error. */
+    private static final class Outcome {
+        final Call call;
+        final boolean hedge;
+        final Response response;
+        final IOException error;
+
+        Outcome(Call call, boolean hedge, Response response, IOException error) {
+            this.call = call; this.hedge = hedge; this.response = response; this.error = error;
+        }
+    }
+
+    /** Up to two copies of one request; their outcomes arrive on a queue. */
+    private final class Race {
+        final String ep;
+        final Call outer;
+        final LinkedBlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+        final List<Call> calls = new ArrayList<>();
+        volatile boolean finished;
+        int started, pending;
+
+        Race(String ep, Call outer) { this.ep = ep; this.outer = outer; }
+
+        void start(Request req) {
+            final boolean isHedge = started > 0;
+            final long t0 = System.nanoTime();
+            Call c = races.newCall(req);
+            calls.add(c);
+            started++;
+            pending++;
+            c.enqueue(new Callback() {
+                @Override public void onResponse(Call call, Response response) {
+                    record(response, ep, t0);
+                    offer(new Outcome(call, isHedge, response, null));
+                }
+                @Override public void onFailure(Call call, IOException e) { offer(new Outcome(call, isHedge, null, e)); }
+            });
+        }
+
+        private void offer(Outcome o) {
+            outcomes.offer(o);
+            if (finished) drain(); // late loser
+        }
+
+        // Next outcome, or null once waitMs passes. Honors cancellation of the outer call.
+        Outcome next(long waitMs) throws IOException {
+            long deadline = (waitMs == Long.MAX_VALUE) ? Long.MAX_VALUE : System.currentTimeMillis() + waitMs;
+            while (true) {
+                if (outer.isCanceled()) { finish(null); throw new IOException("Canceled"); }
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) return null;
+                try {
+                    Outcome o = outcomes.poll(Math.min(left, 50), TimeUnit.MILLISECONDS);
+                    if (o != null) return o;
+                } catch (InterruptedException ie) {
+                    finish(null);
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+
+        /** Cancel every copy except `keep` (the one whose response is returned; null = none). */
+        void finish(Call keep) {
+            finished = true;
+            for (Call c : calls) if (c != keep) c.cancel();
+            drain();
+        }
+
+        private void drain() {
+            Outcome o;
+            while ((o = outcomes.poll()) != null) if (o.response != null) o.response.close();
+        }
+    }
+
+    // Room for a primary and a hedge per caller slot
+    private static Dispatcher raceDispatcher(Dispatcher callers) {
+        Dispatcher d = new Dispatcher();
+        d.setMaxRequests(2 * callers.getMaxRequests());
+        d.setMaxRequestsPerHost(2 * callers.getMaxRequestsPerHost());
+        return d;
+    }
+
+    // Full jitter: uniform in [0, min(cap, base * 2^attempt)]
+    static long backoffMs(int attempt) {
+        long ceiling = Math.min(BACKOFF_CAP_MS, BACKOFF_BASE_MS << Math.min(attempt, 16));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static void sleep(long ms) throws IOException {
+        try { Thread.sleep(ms); } catch (InterruptedException e) { throw new InterruptedIOException(); }
+    }
+}
@@ -1,35 +1,252 @@
 package com.TDavis.foodie_macrotracker.net;
 
+import android.content.Context;
+
 import com.TDavis.foodie_macrotracker.BuildConfig;
+import com.TDavis.foodie_macrotracker.GsonProvider;
+import com.TDavis.foodie_macrotracker.net.RequestScheduler.Priority;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.brotli.BrotliInterceptor;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
+/**
+ * One OkHttp client for the proxy, shared by three Retrofit services:
+ *
+ * - {@link #get}: interactive calls (typing, Search button, scans) with short timeouts so the
+ *   UI gives up quickly and falls back to local data.
+ * - {@link #prefetch}: speculative fetches of what the user will likely pick next.
+ * - {@link #background}: revalidation and keep-alive with a longer budget.
+ *
+ * All share the connection pool and the on-disk HTTP cache. Every request that reaches the
+ * network passes the shared {@link RequestScheduler}, which keeps the services inside the proxy's
+ * rate limit by priority; prefetch and background run on their own small dispatchers so their
+ * waiting never takes an interactive slot. Search and barcode responses are
+ * cacheable (the proxy sends Cache-Control; older deployments get defaults below), and a GET that
+ * fails at the network level is retried from cache, stale or not. Identical concurrent calls are
+ * merged by {@link CoalescingProxyService}; retries, adaptive timeouts and hedged searches are in
+ * {@link ResilienceInterceptor}, fed by one shared {@link LatencyTracker}, and a shared
+ * {@link CircuitBreaker} fails calls fast while the proxy is down.
+ *
+ * Responses are negotiated brotli or gzip. With {@code BuildConfig.PROXY_MSGPACK} the client also
+ * asks for MessagePack ({@link MsgPackConverterFactory}); JSON stays the fallback either way.
+ */
 public final class RetroFitProvider {
-    private static UsdaProxyService SERVICE;
+
+    private static final long CACHE_BYTES = 10L * 1024 * 1024;
+
+    // Timeout budgets (seconds)
+    private static final int INTERACTIVE_CONNECT = 5, INTERACTIVE_READ = 10, INTERACTIVE_CALL = 30; // call budget covers retries
+    private static final int BACKGROUND_CONNECT = 15, BACKGROUND_READ = 30, BACKGROUND_CALL = 60;
+
+    // Defaults when the server doesn't say (seconds)
+    private static final int SEARCH_MAX_AGE = 60 * 60;
+    private static final int ITEM_MAX_AGE = 24 * 60 * 60;
+
+    private static volatile UsdaProxyService INTERACTIVE;
+    private static volatile UsdaProxyService PREFETCH;
+    private static volatile UsdaProxyService BACKGROUND;
+    private static OkHttpClient CLIENT; // guarded by RetroFitProvider.class
+    private static final Gson GSON = GsonProvider.get();
+    private static final LatencyTracker LATENCY = new LatencyTracker();
+    private static final CircuitBreaker BREAKER = new CircuitBreaker();
+    private static final ConnectionWarmer WARMER = new ConnectionWarmer();
+    private static final RequestScheduler SCHEDULER = new RequestScheduler();
+    private static final int LOW_PRIORITY_CONCURRENCY = 2; // per service
+
     private RetroFitProvider(){}
 
-    public static UsdaProxyService get() {
-        if (SERVICE == null) {
-            HttpLoggingInterceptor log = new HttpLoggingInterceptor();
-            log.setLevel(HttpLoggingInterceptor.Level.BASIC);
+    /** Service for calls the user is waiting on. */
+    public static UsdaProxyService get(Context ctx) {
+        UsdaProxyService s = INTERACTIVE;
+        if (s == null) {
+            synchronized (RetroFitProvider.class) {
+                if (INTERACTIVE == null) {
+                    OkHttpClient plain = baseClient(ctx).newBuilder()
+                            .connectTimeout(INTERACTIVE_CONNECT, TimeUnit.SECONDS)
+                            .readTimeout(INTERACTIVE_READ, TimeUnit.SECONDS)
+                            .callTimeout(INTERACTIVE_CALL, TimeUnit.SECONDS)
+                            .addNetworkInterceptor(SCHEDULER.gate(Priority.INTERACTIVE))
+                            .build();
+                    INTERACTIVE = create(resilient(plain, plain)); // hedged copies go out through plain, on their own dispatcher
+                }
+                s = INTERACTIVE;
+            }
+        }
+        return s;
+    }
+
+    /** Service for likely-next requests; dropped rather than queued when the rate budget is tight. */
+    public static UsdaProxyService prefetch(Context ctx) {
+        UsdaProxyService s = PREFETCH;
+        if (s == null) {
+            synchronized (RetroFitProvider.class) {
+                if (PREFETCH == null) {
+                    OkHttpClient plain = baseClient(ctx).newBuilder()
+                            .dispatcher(lowPriorityDispatcher())
+                            .connectTimeout(INTERACTIVE_CONNECT, TimeUnit.SECONDS)
+                            .readTimeout(INTERACTIVE_READ, TimeUnit.SECONDS)
+                            .callTimeout(INTERACTIVE_CALL, TimeUnit.SECONDS)
+                            .addNetworkInterceptor(SCHEDULER.gate(Priority.PREFETCH))
+                            .build();
+                    PREFETCH = create(resilient(plain, null));
+                }
+                s = PREFETCH;
+            }
+        }
+        return s;
+    }
+
+    /** Service for work nobody is waiting on (cache refresh, keep-alive). */
+    public static UsdaProxyService background(Context ctx) {
+        UsdaProxyService s = BACKGROUND;
+        if (s == null) {
+            synchronized (RetroFitProvider.class) {
+                if (BACKGROUND == null) {
+                    OkHttpClient plain = baseClient(ctx).newBuilder()
+                            .connectTimeout(BACKGROUND_CONNECT, TimeUnit.SECONDS)
+                            .readTimeout(BACKGROUND_READ, TimeUnit.SECONDS)
+                            .callTimeout(BACKGROUND_CALL, TimeUnit.SECONDS)
+                            .dispatcher(lowPriorityDispatcher())
+                            .addNetworkInterceptor(SCHEDULER.gate(Priority.BACKGROUND))
+                            .build();
+                    BACKGROUND = create(resilient(plain, null)); // nobody is waiting: no hedging
+                }
+                s = BACKGROUND;
+            }
+        }
+        return s;
+    }
+
+    /** Recent proxy latencies (all services). */
+    public static LatencyTracker latency() { return LATENCY; }
+
+    /** Proxy health as seen by all services; OPEN means "offline mode". */
+    public static CircuitBreaker breaker() { return BREAKER; }
+
+    /** Rate-limit budget shared by all services (queue depth, waits, drops). */
+    public static RequestScheduler scheduler() { return SCHEDULER; }
+
+    /** Size limit of the shared HTTP cache. */
+    public static long cacheMaxBytes() { return CACHE_BYTES; }
 
-            OkHttpClient client = new OkHttpClient.Builder()
-                    .connectTimeout(30, TimeUnit.SECONDS)
-                    .readTimeout(30, TimeUnit.SECONDS)
-                    .addInterceptor(log)
-                    .build();
+    /** Bytes the shared HTTP cache holds now; 0 before any service was created. */
+    public static long cacheBytes() {
+        Cache cache;
+        synchronized (RetroFitProvider.class) { cache = CLIENT == null ? null : CLIENT.cache(); }
+        try {
+            return cache == null ? 0 : cache.size();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /** Warm-up / keep-alive for the shared connection pool (pings go out on the background service). */
+    public static ConnectionWarmer warmer(Context ctx) {
+        WARMER.attach(ctx.getApplicationContext(), background(ctx));
+        return WARMER;
+    }
+
+    /* ==============================  internals  ============================== */
+
+    // Cache fallback outermost, so it answers both exhausted retries and an open breaker (its
+    // only-if-cached retry passes the breaker and the retries uncounted); the breaker sits
+    // outside the retries so one logical call counts as one failure
+    private static OkHttpClient resilient(OkHttpClient plain, OkHttpClient hedgeVia) {
+        return plain.newBuilder()
+                .addInterceptor(RetroFitProvider::fallBackToCache)
+                .addInterceptor(BREAKER)
+                .addInterceptor(WARMER)
+                .addInterceptor(new ResilienceInterceptor(LATENCY, hedgeVia, SCHEDULER))
+                .build();
+    }
+
+    private static Dispatcher lowPriorityDispatcher() {
+        Dispatcher d = new Dispatcher();
+        d.setMaxRequestsPerHost(LOW_PRIORITY_CONCURRENCY);
+        return d;
+    }
+
+    // Caller holds the class lock
+    private static OkHttpClient baseClient(Context ctx) {
+        if (CLIENT == null) {
+            OkHttpClient.Builder b = new OkHttpClient.Builder()
+                    .cache(new Cache(new File(ctx.getApplicationContext().getCacheDir(), "http"), CACHE_BYTES))
+                    .addInterceptor(BrotliInterceptor.INSTANCE) // Accept-Encoding: br,gzip; outermost, so cache hits decode too
+                    .addNetworkInterceptor(RetroFitProvider::defaultCacheHeaders);
+            if (BuildConfig.PROXY_MSGPACK) b.addInterceptor(RetroFitProvider::preferMsgPack);
 
-            Retrofit retrofit = new Retrofit.Builder()
-                    .baseUrl(BuildConfig.FOOD_PROXY_BASE_URL)
-                    .addConverterFactory(GsonConverterFactory.create())
-                    .client(client)
-                    .build();
+            if (BuildConfig.DEBUG) {
+                HttpLoggingInterceptor log = new HttpLoggingInterceptor();
+                log.setLevel(HttpLoggingInterceptor.Level.BASIC);
+                b.addInterceptor(log);
+            }
+            CLIENT = b.build();
+        }
+        return CLIENT;
+    }
+
+    private static UsdaProxyService create(OkHttpClient client) {
+        Retrofit retrofit = new Retrofit.Builder()
+                .baseUrl(BuildConfig.FOOD_PROXY_BASE_URL)
+                .addConverterFactory(MsgPackConverterFactory.create(GSON)) // only claims MessagePack bodies
+                .addConverterFactory(GsonConverterFactory.create(GSON))
+                .client(client)
+                .build();
+        return new CoalescingProxyService(retrofit.create(UsdaProxyService.class)); // identical concurrent calls share one request
+    }
+
+    // Ask the proxy for MessagePack; servers that don't know it answer JSON (the HTTP cache varies on Accept)
+    private static Response preferMsgPack(Interceptor.Chain chain) throws IOException {
+        Request req = chain.request();
+        if (!req.url().encodedPath().startsWith("/api/")) return chain.proceed(req);
+        return chain.proceed(req.newBuilder()
+                .header("Accept", MsgPackConverterFactory.MEDIA_TYPE + ", application/json;q=0.9")
+                .build());
+    }
 
-            SERVICE = retrofit.create(UsdaProxyService.class);
+    // Offline / server unreachable: serve whatever the cache has for this GET
+    private static Response fallBackToCache(Interceptor.Chain chain) throws IOException {
+        Request req = chain.request();
+        try {
+            return chain.proceed(req);
+        } catch (IOException e) {
+            if (!"GET".equals(req.method()) || chain.call().isCanceled()) throw e;
+            Response cached = chain.proceed(req.newBuilder().cacheControl(CacheControl.FORCE_CACHE).build());
+            if (cached.code() == 504) { cached.close(); throw e; } // 504 = nothing cached
+            return cached;
         }
-        return SERVICE;
+    }
+
+    // Make search/detail/barcode responses cacheable when the server sent no Cache-Control
+    private static Response defaultCacheHeaders(Interceptor.Chain chain) throws IOException {
+        Request req = chain.request();
+        Response resp = chain.proceed(req);
+        if (!"GET".equals(req.method()) || resp.header("Cache-Control") != null) return resp;
+        if (!resp.isSuccessful() && resp.code() != 404) return resp;
+
+        String path = req.url().encodedPath();
+        int maxAge;
+        if (path.startsWith("/api/foods/search")) maxAge = SEARCH_MAX_AGE;
+        else if (path.startsWith("/api/barcode/") || path.startsWith("/api/foods/")) maxAge = ITEM_MAX_AGE;
+        else return resp;
+
+        return resp.newBuilder()
+                .removeHeader("Pragma")
+                .header("Cache-Control", "public, max-age=" + maxAge)
+                .build();
     }
 }
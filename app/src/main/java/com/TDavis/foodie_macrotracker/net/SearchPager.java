@@ -0,0 +1,153 @@
+package com.TDavis.foodie_macrotracker.net;
+
+import com.TDavis.foodie_macrotracker.FoodModels.FoodSearchResponseV2;
+import com.TDavis.foodie_macrotracker.FoodModels.NormalizedFoodItem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Page-by-page proxy search for one query. Decoded pages are kept, so scrolling back (or
+ * reopening the picker for the same query) never refetches, and {@link #load} for a page that
+ * is already loading just waits for it — that is what makes prefetching page N+1 safe.
+ *
+ * Pages are wide ({@link #PAGE_SIZE}) because the app ranks them itself: one request usually
+ * holds the food the user wants, and a reworded query can be answered from a recent page
+ * ({@link #recent}) without another round trip.
+ *
+ * Recent pagers are kept by {@link #obtain} (small LRU keyed by normalized query).
+ * Main thread only.
+ */
+public final class SearchPager {
+
+    public interface Listener {
+        void onPage(int pageNumber, List<NormalizedFoodItem> items);
+        void onError(int pageNumber, Throwable t);
+    }
+
+    public static final int PAGE_SIZE = 100;
+    /** Rows from the end of the loaded results at which the picker asks for the next page. */
+    public static final int PREFETCH_DISTANCE = 15;
+    private static final int MAX_PAGERS = 4;
+    private static final long MAX_AGE_MS = 10 * 60 * 1000L;
+
+    private static final LinkedHashMap<String, SearchPager> RECENT = new LinkedHashMap<String, SearchPager>(8, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<String, SearchPager> eldest) { return size() > MAX_PAGERS; }
+    };
+
+    private final UsdaProxyService api;
+    private final String query;
+    private final long createdAt = System.currentTimeMillis();
+    private final HashMap<Integer, ArrayList<NormalizedFoodItem>> pages = new HashMap<>();
+    private final HashMap<Integer, Call<FoodSearchResponseV2>> loading = new HashMap<>();
+    private int totalHits = -1; // unknown until page 1 arrives
+    private boolean reachedEnd;
+    private Listener listener;
+
+    private SearchPager(UsdaProxyService api, String query) {
+        this.api = api;
+        this.query = query;
+    }
+
+    /** Pager for this query, reusing a recent one (and its pages) when there is one. */
+    public static SearchPager obtain(UsdaProxyService api, String query) {
+        String key = TypeaheadSearch.normalize(query);
+        SearchPager p = RECENT.get(key);
+        if (p == null || System.currentTimeMillis() - p.createdAt > MAX_AGE_MS) {
+            p = new SearchPager(api, query);
+            RECENT.put(key, p);
+        }
+        return p;
+    }
+
+    /** Recent pagers with page 1 loaded, most recently used first. */
+    public static List<SearchPager> recent() {
+        ArrayList<SearchPager> out = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (SearchPager p : RECENT.values()) {
+            if (now - p.createdAt <= MAX_AGE_MS && p.pages.containsKey(1)) out.add(0, p);
+        }
+        return out;
+    }
+
+    public void setListener(Listener l) { listener = l; }
+
+    public String query() { return query; }
+    public int totalHits() { return totalHits; }
+    public boolean hasPage(int n) { return pages.containsKey(n); }
+    public boolean isLoading(int n) { return loading.containsKey(n); }
+
+    /** Highest page number N such that pages 1..N are all loaded. */
+    public int loadedThrough() {
+        int n = 0;
+        while (pages.containsKey(n + 1)) n++;
+        return n;
+    }
+
+    /** Items of page n as the proxy ordered them; empty if not loaded. */
+    public List<NormalizedFoodItem> page(int n) {
+        ArrayList<NormalizedFoodItem> p = pages.get(n);
+        return p != null ? p : new ArrayList<>();
+    }
+
+    /** Pages 1..loadedThrough() concatenated. */
+    public ArrayList<NormalizedFoodItem> items() {
+        ArrayList<NormalizedFoodItem> out = new ArrayList<>();
+        for (int n = 1; pages.containsKey(n); n++) out.addAll(pages.get(n));
+        return out;
+    }
+
+    /** True while there may be results after the loaded pages. */
+    public boolean hasMore() {
+        if (reachedEnd) return false;
+        return totalHits < 0 || loadedThrough() * PAGE_SIZE < totalHits;
+    }
+
+    /** Load page n (no-op if already loaded or loading); the listener hears about it either way. */
+    public void load(int n) {
+        if (pages.containsKey(n)) {
+            if (listener != null) listener.onPage(n, pages.get(n));
+            return;
+        }
+        if (loading.containsKey(n) || (n > 1 && !hasMore())) return;
+
+        Call<FoodSearchResponseV2> call = api.searchFoodsNormalized(query, PAGE_SIZE, n);
+        loading.put(n, call);
+        call.enqueue(new Callback<FoodSearchResponseV2>() {
+            @Override
+            public void onResponse(Call<FoodSearchResponseV2> c, Response<FoodSearchResponseV2> resp) {
+                loading.remove(n);
+                FoodSearchResponseV2 body = resp.body();
+                if (!resp.isSuccessful() || body == null) {
+                    if (listener != null) listener.onError(n, new RuntimeException("HTTP " + resp.code()));
+                    return;
+                }
+                ArrayList<NormalizedFoodItem> items = body.items != null ? body.items : new ArrayList<>();
+                pages.put(n, items);
+                totalHits = body.totalHits;
+                if (items.size() < PAGE_SIZE) reachedEnd = true;
+                if (listener != null) listener.onPage(n, items);
+            }
+
+            @Override
+            public void onFailure(Call<FoodSearchResponseV2> c, Throwable t) {
+                loading.remove(n);
+                if (listener != null && !c.isCanceled()) listener.onError(n, t);
+            }
+        });
+    }
+
+    /** Stop listening and drop requests still on the wire (loaded pages stay cached). */
+    public void detach() {
+        listener = null;
+        for (Call<FoodSearchResponseV2> c : loading.values()) c.cancel();
+        loading.clear();
+    }
+}
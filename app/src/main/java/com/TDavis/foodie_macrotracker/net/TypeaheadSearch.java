@@ -0,0 +1,149 @@
+package com.TDavis.foodie_macrotracker.net;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.TDavis.foodie_macrotracker.FoodModels.FoodSearchResponseV2;
+import com.TDavis.foodie_macrotracker.FoodModels.NormalizedFoodItem;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * As-you-type proxy search for etFood.
+ *
+ * - Debounced: a request only goes out once typing pauses.
+ * - The in-flight Call is cancelled as soon as the query changes, and every response is
+ *   checked against a generation counter, so an older answer can never replace a newer one.
+ * - Small LRU of query -> results. A longer query is first shown the cached results of its
+ *   longest cached prefix, filtered locally, while its own request goes out anyway: the proxy
+ *   matches whole words with its own ranking, so a longer query can find foods the shorter
+ *   one's results never had.
+ *
+ * Main thread only (Retrofit delivers callbacks on the main thread on Android).
+ */
+public final class TypeaheadSearch {
+
+    public interface Listener {
+        void onSuggestions(String query, List<NormalizedFoodItem> items);
+    }
+
+    static final long DEBOUNCE_MS = 300;
+    static final int MIN_CHARS = 3;
+    private static final int PAGE_SIZE = 10;
+    private static final int CACHE_SIZE = 32;
+
+    private final UsdaProxyService api;
+    private final Listener listener;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private Call<FoodSearchResponseV2> inFlight;
+    private int generation;        // bumped on every query change
+    private String pendingQuery;
+
+    private final LinkedHashMap<String, ArrayList<NormalizedFoodItem>> cache = new LinkedHashMap<String, ArrayList<NormalizedFoodItem>>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<String, ArrayList<NormalizedFoodItem>> eldest) { return size() > CACHE_SIZE; }
+    };
+
+    private final Runnable fire = this::fire;
+
+    public TypeaheadSearch(UsdaProxyService api, Listener listener) {
+        this.api = api;
+        this.listener = listener;
+    }
+
+    /** Call on every edit of the query text. */
+    public void onQueryChanged(CharSequence text) {
+        String q = normalize(text);
+        generation++;
+        cancelInFlight();
+        handler.removeCallbacks(fire);
+
+        if (q.length() < MIN_CHARS) {
+            listener.onSuggestions(q, new ArrayList<>());
+            return;
+        }
+
+        ArrayList<NormalizedFoodItem> exact = cache.get(q);
+        if (exact != null) {
+            listener.onSuggestions(q, exact);
+            return;
+        }
+
+        // Interim: refine the longest cached prefix locally ("chick" -> "chicken") until the answer arrives
+        for (int len = q.length() - 1; len >= MIN_CHARS; len--) {
+            ArrayList<NormalizedFoodItem> prefix = cache.get(q.substring(0, len));
+            if (prefix == null) continue;
+            listener.onSuggestions(q, filter(prefix, q));
+            break;
+        }
+
+        pendingQuery = q;
+        handler.postDelayed(fire, DEBOUNCE_MS);
+    }
+
+    /** Drop pending and in-flight work (form filled, activity going away, ...). */
+    public void cancel() {
+        generation++;
+        handler.removeCallbacks(fire);
+        cancelInFlight();
+    }
+
+    private void fire() {
+        final int gen = generation;
+        final String q = pendingQuery;
+        if (q == null) return;
+
+        inFlight = api.searchFoodsNormalized(q, PAGE_SIZE, 1);
+        inFlight.enqueue(new Callback<FoodSearchResponseV2>() {
+            @Override
+            public void onResponse(Call<FoodSearchResponseV2> call, Response<FoodSearchResponseV2> resp) {
+                if (gen != generation || call.isCanceled()) return; // superseded
+                inFlight = null;
+                FoodSearchResponseV2 body = resp.body();
+                if (!resp.isSuccessful() || body == null || body.items == null) return;
+
+                cache.put(q, body.items);
+                listener.onSuggestions(q, body.items);
+            }
+
+            @Override
+            public void onFailure(Call<FoodSearchResponseV2> call, Throwable t) {
+                if (gen != generation) return;
+                inFlight = null; // typeahead is best-effort; the Search button still reports errors
+            }
+        });
+    }
+
+    private void cancelInFlight() {
+        if (inFlight != null) { inFlight.cancel(); inFlight = null; }
+    }
+
+    // ---- small utils ----
+    public static String normalize(CharSequence text) {
+        return text == null ? "" : text.toString().trim().toLowerCase(Locale.US).replaceAll("\\s+", " ");
+    }
+
+    // Keep items whose name/brand contains every query word as a word prefix
+    private static ArrayList<NormalizedFoodItem> filter(List<NormalizedFoodItem> items, String q) {
+        String[] words = q.split(" ");
+        ArrayList<NormalizedFoodItem> out = new ArrayList<>();
+        for (NormalizedFoodItem f : items) {
+            String hay = " " + normalize((f.brandName == null ? "" : f.brandName + " ") + (f.description == null ? "" : f.description))
+                    .replaceAll("[^\\p{L}\\p{N}]+", " ");
+            boolean all = true;
+            for (String w : words) {
+                if (!hay.contains(" " + w)) { all = false; break; }
+            }
+            if (all) out.add(f);
+        }
+        return out;
+    }
+}
@@ -17,15 +17,32 @@ public interface UsdaProxyService {
 
     // Search USDA (normalized): returns { totalHits, pageNumber, items[] }
     @GET("api/foods/search")
-    Call<com.TDavis.foodie_macrotracker.MainActivity.FoodSearchResponseV2> searchFoodsNormalized(
+    Call<com.TDavis.foodie_macrotracker.FoodModels.FoodSearchResponseV2> searchFoodsNormalized(
             @Query("q") String query,
             @Query("pageSize") Integer pageSize,
             @Query("pageNumber") Integer pageNumber
     );
 
+    // Food details (normalized): returns { item } with household measures from USDA foodPortions
+    @GET("api/foods/{fdcId}")
+    Call<com.TDavis.foodie_macrotracker.FoodModels.FoodDetailResponse> getFoodDetailNormalized(
+            @Path("fdcId") long fdcId
+    );
+
+    // Liveness ping (connection warm-up / keep-alive): returns { ok }
+    @GET("health")
+    Call<com.TDavis.foodie_macrotracker.FoodModels.HealthResponse> health();
+
     // Barcode lookup (normalized): returns { item }
     @GET("api/barcode/{code}")
-    Call<com.TDavis.foodie_macrotracker.MainActivity.BarcodeLookupResponse> getByBarcodeNormalized(
+    Call<com.TDavis.foodie_macrotracker.FoodModels.BarcodeLookupResponse> getByBarcodeNormalized(
             @Path("code") String code
     );
+
+    // Batch barcode lookup for scan sessions: codes comma-separated (max 20);
+    // returns { results: [{ code, item } | { code, notFound } | { code, error }] }
+    @GET("api/barcodes")
+    Call<com.TDavis.foodie_macrotracker.FoodModels.BarcodeBatchResponse> getByBarcodesNormalized(
+            @Query("codes") String codes
+    );
 }
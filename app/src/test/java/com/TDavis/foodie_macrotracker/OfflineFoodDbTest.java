@@ -0,0 +1,145 @@
+package com.TDavis.foodie_macrotracker;
+
+import com.TDavis.foodie_macrotracker.FoodModels.NormalizedFoodItem;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/** Search over a small image laid out like build-food-db.js writes it. */
+public class OfflineFoodDbTest {
+
+    // In build order (Foundation first, then shorter names); fdcId = 1000 + index
+    private static final String[] NAMES = {
+            "Eggs, Grade A, Large, egg whole",
+            "Eggplant, raw",
+            "Egg, white, raw, fresh",
+            "Eggnog",
+            "Chicken, broiler, breast, roasted",
+            "Crème fraîche",
+            "Rice, white, long-grain, cooked",
+            "Chicken egg noodles, cooked"};
+
+    private static OfflineFoodDb db;
+
+    @BeforeClass
+    public static void build() throws Exception {
+        db = OfflineFoodDb.wrap(image(NAMES));
+    }
+
+    @Test
+    public void tokenizeFoldsCaseAccentsAndPlurals() {
+        assertEquals(Arrays.asList("creme", "fraiche"), OfflineFoodDb.tokenize("Crème Fraîche"));
+        assertEquals(Arrays.asList("egg", "grade", "large"), OfflineFoodDb.tokenize("EGGS, grade A, large"));
+        assertEquals(Arrays.asList("glass", "rice"), OfflineFoodDb.tokenize("glass rices")); // -ss kept
+        assertEquals(Arrays.asList("bus"), OfflineFoodDb.tokenize("bus a 2")); // short words: not stemmed, or dropped
+        assertTrue(OfflineFoodDb.tokenize(" , - ").isEmpty());
+    }
+
+    @Test
+    public void everyTokenMustMatchAsPrefix() {
+        assertEquals(Arrays.asList(1004L), ids(db.search("chick breast", 10)));
+        assertEquals(Arrays.asList(1004L, 1007L), ids(db.search("chick", 10)));
+        assertEquals(Arrays.asList(1002L), ids(db.search("white egg", 10)));
+        assertEquals(Arrays.asList(1005L), ids(db.search("creme", 10)));
+        assertTrue(db.search("chicken rice", 10).isEmpty());
+        assertTrue(db.search("tofu", 10).isEmpty());
+    }
+
+    @Test
+    public void resultsKeepBuildOrderAndLimit() {
+        assertEquals(Arrays.asList(1000L, 1001L, 1002L, 1003L, 1007L), ids(db.search("egg", 10)));
+        assertEquals(Arrays.asList(1000L, 1001L), ids(db.search("egg", 2)));
+        assertEquals(ids(db.search("egg", 10)), ids(db.search("eggs egg", 10))); // one distinct token
+    }
+
+    @Test
+    public void repeatedQueriesDoNotLeakCounts() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Arrays.asList(1004L), ids(db.search("chicken roasted", 10)));
+            assertEquals(Arrays.asList(1006L), ids(db.search("rice white", 10)));
+            assertEquals(Arrays.asList(1002L), ids(db.search("egg white", 10)));
+        }
+    }
+
+    @Test
+    public void readsItemRecords() {
+        NormalizedFoodItem f = db.search("eggplant", 1).get(0);
+        assertEquals("Eggplant, raw", f.description);
+        assertEquals(101, f.servings.per100g.calories());
+        assertEquals(50.0, f.servings.perServing.grams(), 1e-9);
+        assertEquals("1 cup", f.units.get(2).label);
+        assertTrue(db.contains(1001));
+        assertFalse(db.contains(999));
+    }
+
+    /* ==============================  image  ============================== */
+
+    private static List<Long> ids(List<NormalizedFoodItem> items) {
+        ArrayList<Long> out = new ArrayList<>();
+        for (NormalizedFoodItem f : items) out.add(f.fdcId);
+        return out;
+    }
+
+    // Item i: kcal 100 + i, a "1 cup" unit of 200 g, a 50 g serving
+    private static ByteBuffer image(String[] names) {
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        int[][] nameRef = new int[names.length][];
+        TreeMap<String, LinkedHashSet<Integer>> postings = new TreeMap<>(); // ASCII tokens: String order = byte order
+        for (int i = 0; i < names.length; i++) {
+            nameRef[i] = put(strings, names[i]);
+            for (String t : OfflineFoodDb.tokenize(names[i])) postings.computeIfAbsent(t, k -> new LinkedHashSet<>()).add(i);
+        }
+        int[] cup = put(strings, "1 cup");
+        ArrayList<int[]> tokenRef = new ArrayList<>();
+        int postCount = 0;
+        for (Map.Entry<String, LinkedHashSet<Integer>> e : postings.entrySet()) {
+            tokenRef.add(put(strings, e.getKey()));
+            postCount += e.getValue().size();
+        }
+
+        int items = 32, units = items + names.length * 40, tokens = units + 12;
+        int post = tokens + postings.size() * 16, str = post + postCount * 4;
+        ByteBuffer b = ByteBuffer.allocate(str + strings.size()).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(0, 0x31424446).putInt(4, 1).putInt(8, names.length).putInt(12, postings.size())
+                .putInt(16, units).putInt(20, tokens).putInt(24, post).putInt(28, str);
+        for (int i = 0; i < names.length; i++) {
+            int o = items + i * 40;
+            b.putInt(o, 1000 + i).putInt(o + 4, nameRef[i][0]).putShort(o + 8, (short) nameRef[i][1])
+                    .putShort(o + 10, (short) 1).putInt(o + 12, 0)
+                    .putFloat(o + 16, 100 + i).putFloat(o + 20, 10).putFloat(o + 24, Float.NaN).putFloat(o + 28, 2)
+                    .putFloat(o + 32, 50);
+        }
+        b.putInt(units, cup[0]).putShort(units + 4, (short) cup[1]).putFloat(units + 8, 200);
+        int ti = 0, pi = 0;
+        for (LinkedHashSet<Integer> p : postings.values()) {
+            int[] ref = tokenRef.get(ti);
+            int o = tokens + ti++ * 16;
+            b.putInt(o, ref[0]).putShort(o + 4, (short) ref[1]).putInt(o + 8, pi).putInt(o + 12, p.size());
+            for (int item : p) b.putInt(post + pi++ * 4, item);
+        }
+        b.position(str);
+        b.put(strings.toByteArray());
+        b.position(0);
+        return b;
+    }
+
+    private static int[] put(ByteArrayOutputStream strings, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        int[] ref = {strings.size(), bytes.length};
+        strings.write(bytes, 0, bytes.length);
+        return ref;
+    }
+}
@@ -0,0 +1,115 @@
+package com.TDavis.foodie_macrotracker.net;
+
+import com.TDavis.foodie_macrotracker.net.RequestScheduler.Priority;
+import com.TDavis.foodie_macrotracker.net.RequestScheduler.RateLimitedException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.QueueDispatcher;
+
+import static org.junit.Assert.*;
+
+public class RequestSchedulerTest {
+
+    private final MockWebServer server = new MockWebServer();
+    private final RequestScheduler scheduler = new RequestScheduler();
+
+    @Before
+    public void setUp() throws IOException {
+        QueueDispatcher answers = new QueueDispatcher();
+        answers.setFailFast(new MockResponse().setBody("ok")); // once the enqueued responses are used up
+        server.setDispatcher(answers);
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void prefetchLeavesTheReserveToInteractive() throws IOException {
+        int spend = (int) (RequestScheduler.BURST - RequestScheduler.RESERVE);
+        for (int i = 0; i < spend; i++) assertOk(Priority.INTERACTIVE);
+
+        try {
+            get(Priority.PREFETCH).close();
+            fail("prefetch took a reserved token");
+        } catch (RateLimitedException e) {
+            assertFalse(e.fromServer);
+        }
+        assertOk(Priority.INTERACTIVE); // the reserve is the user's
+        assertOk(Priority.INTERACTIVE);
+
+        assertEquals(1, scheduler.dropped(Priority.PREFETCH));
+        assertEquals(0, scheduler.dropped(Priority.INTERACTIVE));
+        assertEquals(spend + 2, scheduler.admitted(Priority.INTERACTIVE));
+        assertEquals(spend + 2, server.getRequestCount());
+    }
+
+    @Test
+    public void interactiveWaitsForARefillInsteadOfFailing() throws IOException {
+        for (int i = 0; i < RequestScheduler.BURST; i++) assertOk(Priority.INTERACTIVE);
+        long t0 = System.currentTimeMillis();
+        assertOk(Priority.INTERACTIVE);
+        assertTrue(System.currentTimeMillis() - t0 >= 500); // ~1.1 s per token
+        assertEquals(0, scheduler.dropped(Priority.INTERACTIVE));
+    }
+
+    @Test
+    public void retryAfterBlocksEveryone() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+        long t0 = System.currentTimeMillis();
+        try {
+            get(Priority.INTERACTIVE).close();
+            fail("429 passed the gate");
+        } catch (RateLimitedException e) {
+            assertTrue(e.fromServer);
+            assertEquals(1000, e.retryAfterMs);
+        }
+        assertEquals(1, scheduler.rateLimitedResponses());
+        assertFalse(scheduler.hasHeadroom());
+
+        try {
+            get(Priority.PREFETCH).close();
+            fail("prefetch went out while blocked");
+        } catch (RateLimitedException e) {
+            assertFalse(e.fromServer);
+        }
+        assertOk(Priority.INTERACTIVE); // waits out Retry-After, then the bucket's first token
+        assertTrue(System.currentTimeMillis() - t0 >= 1000);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void retryAfterForms() {
+        Response.Builder b = new Response.Builder()
+                .request(new Request.Builder().url("http://localhost/").build())
+                .protocol(Protocol.HTTP_1_1).code(429).message("Too Many Requests");
+        assertEquals(7000, RequestScheduler.retryAfterMs(b.header("Retry-After", "7").build(), 0));
+        assertEquals(RequestScheduler.DEFAULT_RETRY_AFTER_MS, RequestScheduler.retryAfterMs(b.removeHeader("Retry-After").build(), 0));
+        long now = 1_700_000_000_000L;
+        assertEquals(30_000, RequestScheduler.retryAfterMs(b.header("Retry-After", "Tue, 14 Nov 2023 22:13:50 GMT").build(), now));
+    }
+
+    private void assertOk(Priority p) throws IOException {
+        try (Response r = get(p)) {
+            assertEquals(200, r.code());
+        }
+    }
+
+    private Response get(Priority p) throws IOException {
+        OkHttpClient client = new OkHttpClient.Builder().addNetworkInterceptor(scheduler.gate(p)).build();
+        return client.newCall(new Request.Builder().url(server.url("/api/foods/123")).build()).execute();
+    }
+}
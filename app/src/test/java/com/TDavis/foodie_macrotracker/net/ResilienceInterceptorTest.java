@@ -0,0 +1,129 @@
+package com.TDavis.foodie_macrotracker.net;
+
+import com.TDavis.foodie_macrotracker.net.RequestScheduler.Priority;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.CacheControl;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/** Wired like RetroFitProvider's interactive service, against a local server. */
+public class ResilienceInterceptorTest {
+
+    private final MockWebServer server = new MockWebServer();
+    private final LatencyTracker latency = new LatencyTracker();
+    private final RequestScheduler scheduler = new RequestScheduler();
+    private ResilienceInterceptor resilience;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server.start();
+        OkHttpClient plain = new OkHttpClient.Builder()
+                .callTimeout(30, TimeUnit.SECONDS)
+                .addNetworkInterceptor(scheduler.gate(Priority.INTERACTIVE))
+                .build();
+        resilience = new ResilienceInterceptor(latency, plain, scheduler);
+        client = plain.newBuilder().addInterceptor(resilience).build();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void concurrentSearchesWithLatencyHistoryDoNotStarve() throws Exception {
+        warm(50);
+        server.setDispatcher(new Dispatcher() {
+            @Override public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody("ok").setHeadersDelay(100, TimeUnit.MILLISECONDS);
+            }
+        });
+        int n = 5; // the caller dispatcher's per-host limit: every slot is a waiting caller
+        CountDownLatch done = new CountDownLatch(n);
+        ConcurrentLinkedQueue<String> bodies = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < n; i++) {
+            client.newCall(search("egg " + i)).enqueue(new Callback() {
+                @Override public void onResponse(Call call, Response response) throws IOException {
+                    try (Response r = response) { bodies.add(r.body().string()); }
+                    done.countDown();
+                }
+                @Override public void onFailure(Call call, IOException e) { done.countDown(); }
+            });
+        }
+        assertTrue("searches still waiting", done.await(5, TimeUnit.SECONDS));
+        assertEquals(n, bodies.size());
+        for (String b : bodies) assertEquals("ok", b);
+    }
+
+    @Test
+    public void hedgeWinnersBodyIsReadable() throws IOException {
+        warm(50);
+        server.enqueue(new MockResponse().setBody("slow").setHeadersDelay(2, TimeUnit.SECONDS));
+        server.enqueue(new MockResponse().setBody("fast"));
+        try (Response r = client.newCall(search("egg")).execute()) {
+            assertEquals("fast", r.body().string());
+        }
+        assertEquals(1, resilience.hedges());
+        assertEquals(1, resilience.hedgeWins());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void noHedgeWithoutLatencyHistory() throws IOException {
+        server.enqueue(new MockResponse().setBody("slow").setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        try (Response r = client.newCall(search("egg")).execute()) {
+            assertEquals("slow", r.body().string());
+        }
+        assertEquals(0, resilience.hedges());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void serverErrorsAreRetried() throws IOException {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setBody("ok"));
+        try (Response r = client.newCall(new Request.Builder().url(server.url("/api/foods/123")).build()).execute()) {
+            assertEquals("ok", r.body().string());
+        }
+        assertEquals(ResilienceInterceptor.MAX_RETRIES, resilience.retries());
+    }
+
+    @Test
+    public void cacheOnlyRequestsBypassRetries() throws IOException {
+        Request req = new Request.Builder().url(server.url("/api/foods/123")).cacheControl(CacheControl.FORCE_CACHE).build();
+        try (Response r = client.newCall(req).execute()) {
+            assertEquals(504, r.code()); // no cache: a miss
+        }
+        assertEquals(0, resilience.requests());
+        assertEquals(0, resilience.retries());
+        assertEquals(0, server.getRequestCount());
+    }
+
+    private Request search(String q) {
+        return new Request.Builder().url(server.url("/api/foods/search?q=" + q)).build();
+    }
+
+    private void warm(long ms) {
+        for (int i = 0; i < 20; i++) latency.record("search", ms);
+    }
+}
@@ -0,0 +1,38 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    jmh(project(":core"))
+    jmh(testFixtures(project(":core")))
+}
+
+// ./gradlew :benchmarks:jmh                          every benchmark
+// ./gradlew :benchmarks:jmh -Pjmh.includes=Decode    a subset (regex on benchmark names)
+//
+// Results are JMH JSON (one record per benchmark and @Param set, with score and error) in
+// build/results/jmh/results.json, or at -Pjmh.results=<path>, for regression tracking.
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    resultFormat.set("JSON")
+    resultsFile.set(providers.gradleProperty("jmh.results")
+        .map { layout.projectDirectory.file(it) }
+        .orElse(layout.buildDirectory.file("results/jmh/results.json")))
+    humanOutputFile.set(layout.buildDirectory.file("results/jmh/human.txt"))
+    providers.gradleProperty("jmh.includes").orNull?.let { includes.set(listOf(it)) }
+    fork.set(1)
+    warmupIterations.set(3)
+    warmup.set("1s")
+    iterations.set(5)
+    timeOnIteration.set("1s")
+}
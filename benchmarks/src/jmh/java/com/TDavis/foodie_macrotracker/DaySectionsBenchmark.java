@@ -0,0 +1,40 @@
+package com.TDavis.foodie_macrotracker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/** Grouping and totals for the day list, run on every refresh. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DaySectionsBenchmark {
+
+    @Param({"8", "40"})
+    public int entries;
+
+    private ArrayList<FoodEntry> day;
+
+    @Setup
+    public void setUp() {
+        day = Fixtures.day(entries);
+    }
+
+    @Benchmark
+    public DaySections sections() {
+        return DaySections.of(day);
+    }
+
+    @Benchmark
+    public DaySections.Totals totals() {
+        return DaySections.Totals.of(day);
+    }
+}
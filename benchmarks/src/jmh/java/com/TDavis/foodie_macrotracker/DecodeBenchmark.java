@@ -0,0 +1,56 @@
+package com.TDavis.foodie_macrotracker;
+
+import com.TDavis.foodie_macrotracker.FoodModels.FoodSearchResponseV2;
+import com.TDavis.foodie_macrotracker.net.MsgPackReader;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A search response body decoded both ways the app accepts it: JSON through Gson, and the
+ * proxy's MessagePack through the same Gson adapters ({@link MsgPackReader}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DecodeBenchmark {
+
+    @Param({"25", "100"})
+    public int items;
+
+    private final Gson gson = GsonProvider.get();
+    private TypeAdapter<FoodSearchResponseV2> adapter;
+    private byte[] json;
+    private byte[] msgPack;
+
+    @Setup
+    public void setUp() {
+        adapter = gson.getAdapter(FoodSearchResponseV2.class);
+        json = Fixtures.json(Fixtures.searchPage(items));
+        msgPack = Fixtures.msgPack(json);
+    }
+
+    @Benchmark
+    public FoodSearchResponseV2 json() throws IOException {
+        return adapter.read(gson.newJsonReader(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public FoodSearchResponseV2 msgPack() throws IOException {
+        return adapter.read(new MsgPackReader(msgPack));
+    }
+}
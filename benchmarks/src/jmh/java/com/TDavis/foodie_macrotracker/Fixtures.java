@@ -0,0 +1,175 @@
+package com.TDavis.foodie_macrotracker;
+
+import com.TDavis.foodie_macrotracker.FoodModels.FoodSearchResponseV2;
+import com.TDavis.foodie_macrotracker.FoodModels.NormalizedFoodItem;
+import com.TDavis.foodie_macrotracker.FoodModels.Per100g;
+import com.TDavis.foodie_macrotracker.FoodModels.PerServing;
+import com.TDavis.foodie_macrotracker.FoodModels.Servings;
+import com.TDavis.foodie_macrotracker.FoodModels.Unit;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/** Deterministic benchmark inputs at the sizes the app sees (same seed, same data). */
+final class Fixtures {
+
+    static final long SEED = 42;
+
+    private static final String[] FOODS = {
+            "Egg, whole, cooked", "Oatmeal", "Banana, raw", "Greek yogurt, plain", "Chicken breast, roasted",
+            "Rice, white, cooked", "Broccoli, steamed", "Salmon, baked", "Apple, raw", "Peanut butter",
+            "Whole wheat bread", "Black beans, canned", "Cheddar cheese", "Almonds", "Milk, 2%",
+            "Protein bar", "Pasta, cooked", "Ground beef, 90% lean", "Avocado", "Orange juice"};
+    private static final String[] BRANDS = {null, null, "Kroger", "Tyson", "Chobani", "Quaker", "Kind"};
+    private static final String[] TYPES = {"Foundation", "SR Legacy", "Survey (FNDDS)", "Branded"};
+    private static final String[] MEASURES = {
+            "1 cup", "1 cup, chopped", "1 tbsp", "1 tsp", "1 slice", "1 large", "1 medium", "1 small",
+            "1 piece", "1 fl oz", "0.5 cup", "1 serving", "1 bar", "1 can"};
+
+    private Fixtures() {}
+
+    /** A history as the app stores it: date -> that day's entries, `days` days of `entriesPerDay`. */
+    static LinkedHashMap<String, ArrayList<FoodEntry>> history(int days, int entriesPerDay) {
+        return generator(entriesPerDay).days(days).generate();
+    }
+
+    static ArrayList<FoodEntry> day(int entries) {
+        HistoryGenerator g = generator(entries);
+        return g.day(g.lastDay());
+    }
+
+    static HistoryGenerator generator(int entriesPerDay) {
+        return new HistoryGenerator(SEED).entriesPerDay(entriesPerDay, entriesPerDay).skippedDays(0);
+    }
+
+    /** A search page of `n` items with per-100 g values, a label serving and household measures. */
+    static FoodSearchResponseV2 searchPage(int n) {
+        Random r = new Random(SEED);
+        FoodSearchResponseV2 page = new FoodSearchResponseV2();
+        page.totalHits = n * 7;
+        page.pageNumber = 1;
+        page.items = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) page.items.add(item(r, i));
+        return page;
+    }
+
+    /** Units of one food as a detail payload has them: g, oz and several household measures. */
+    static List<Unit> units(int household) {
+        Random r = new Random(SEED);
+        ArrayList<Unit> out = new ArrayList<>();
+        out.add(Unit.GRAM);
+        out.add(Unit.OUNCE);
+        for (int m = 0; m < household; m++) out.add(Unit.of(MEASURES[m % MEASURES.length], 5 + r.nextInt(250)));
+        return out;
+    }
+
+    private static NormalizedFoodItem item(Random r, int i) {
+        NormalizedFoodItem f = new NormalizedFoodItem();
+        f.fdcId = 100_000 + i;
+        f.description = FOODS[r.nextInt(FOODS.length)] + (i % 3 == 0 ? ", with salt" : "");
+        f.brandName = BRANDS[r.nextInt(BRANDS.length)];
+        f.dataType = f.brandName != null ? "Branded" : TYPES[r.nextInt(TYPES.length - 1)];
+
+        Per100g p = new Per100g();
+        p.setCalories(40 + r.nextInt(500));
+        p.setProtein(r.nextInt(300) / 10.0);
+        p.setCarbs(r.nextInt(800) / 10.0);
+        p.setFat(r.nextInt(400) / 10.0);
+        f.servings = new Servings();
+        f.servings.per100g = p;
+        if (f.brandName != null) {
+            PerServing s = new PerServing();
+            double grams = 20 + r.nextInt(200);
+            s.setGrams(grams);
+            s.setCalories((int) Math.round(p.calories() * grams / 100));
+            s.setProtein(p.protein() * grams / 100);
+            s.setCarbs(p.carbs() * grams / 100);
+            s.setFat(p.fat() * grams / 100);
+            f.servings.perServing = s;
+        }
+
+        f.units = new ArrayList<>();
+        f.units.add(Unit.GRAM);
+        f.units.add(Unit.OUNCE);
+        int measures = 2 + (i % 10);
+        for (int m = 0; m < measures; m++) {
+            f.units.add(Unit.of(MEASURES[(i + m) % MEASURES.length], 5 + r.nextInt(250)));
+        }
+        return f;
+    }
+
+    /* ==============================  wire formats  ============================== */
+
+    static byte[] json(Object value) {
+        return GsonProvider.get().toJson(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** The same document as the proxy's MessagePack encoding (server/foodie-usda-proxy/src/wire.js). */
+    static byte[] msgPack(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        write(out, JsonParser.parseString(new String(json, StandardCharsets.UTF_8)));
+        return out.toByteArray();
+    }
+
+    private static void write(ByteArrayOutputStream out, JsonElement v) {
+        if (v == null || v.isJsonNull()) { out.write(0xc0); return; }
+        if (v.isJsonArray()) {
+            JsonArray a = v.getAsJsonArray();
+            header(out, a.size(), 0x90, 0xdc, 0xdd);
+            for (JsonElement e : a) write(out, e);
+            return;
+        }
+        if (v.isJsonObject()) {
+            JsonObject o = v.getAsJsonObject();
+            header(out, o.size(), 0x80, 0xde, 0xdf);
+            for (Map.Entry<String, JsonElement> e : o.entrySet()) {
+                string(out, e.getKey());
+                write(out, e.getValue());
+            }
+            return;
+        }
+        JsonPrimitive p = v.getAsJsonPrimitive();
+        if (p.isBoolean()) { out.write(p.getAsBoolean() ? 0xc3 : 0xc2); return; }
+        if (p.isString()) { string(out, p.getAsString()); return; }
+        double d = p.getAsDouble();
+        long n = (long) d;
+        if (n == d && Math.abs(n) <= 0xffffffffL) {
+            if (n >= 0 && n < 128) { out.write((int) n); return; }
+            if (n < 0 && n >= -32) { out.write((int) n & 0xff); return; }
+            if (n >= 0) { out.write(0xce); be(out, n, 4); return; }
+            if (n >= Integer.MIN_VALUE) { out.write(0xd2); be(out, n, 4); return; }
+        }
+        out.write(0xcb);
+        be(out, Double.doubleToLongBits(d), 8);
+    }
+
+    private static void header(ByteArrayOutputStream out, int n, int fix, int b16, int b32) {
+        if (n < 16) out.write(fix | n);
+        else if (n < 0x10000) { out.write(b16); be(out, n, 2); }
+        else { out.write(b32); be(out, n, 4); }
+    }
+
+    private static void string(ByteArrayOutputStream out, String s) {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        int n = b.length;
+        if (n < 32) out.write(0xa0 | n);
+        else if (n < 0x100) { out.write(0xd9); out.write(n); }
+        else if (n < 0x10000) { out.write(0xda); be(out, n, 2); }
+        else { out.write(0xdb); be(out, n, 4); }
+        out.write(b, 0, n);
+    }
+
+    private static void be(ByteArrayOutputStream out, long v, int bytes) {
+        for (int i = bytes - 1; i >= 0; i--) out.write((int) (v >>> (8 * i)) & 0xff);
+    }
+}
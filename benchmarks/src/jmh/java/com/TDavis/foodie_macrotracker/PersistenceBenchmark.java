@@ -0,0 +1,114 @@
+package com.TDavis.foodie_macrotracker;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * History persistence. {@link HistoryStore} (one file per day) next to the single date -> entries
+ * map older versions kept in prefs, where every save decoded, changed and re-encoded all days.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PersistenceBenchmark {
+
+    private static final Type HISTORY = new TypeToken<HashMap<String, ArrayList<FoodEntry>>>(){}.getType();
+    private static final Type DAY = new TypeToken<ArrayList<FoodEntry>>(){}.getType();
+
+    @Param({"30", "365"})
+    public int days;
+
+    @Param({"8"})
+    public int entriesPerDay;
+
+    private final Gson gson = GsonProvider.get();
+    private Map<String, ArrayList<FoodEntry>> history;
+    private String historyJson;
+    private String today, pastDay;
+    private ArrayList<FoodEntry> todayEntries;
+    private String todayJson;
+    private File dir;
+    private HistoryStore store;
+
+    @Setup
+    public void setUp() throws IOException {
+        HistoryGenerator g = Fixtures.generator(entriesPerDay).days(days);
+        history = g.generate();
+        historyJson = gson.toJson(history, HISTORY);
+        today = g.lastDay().toString();
+        pastDay = g.firstDay().toString();
+        todayEntries = history.get(today);
+        todayJson = gson.toJson(todayEntries, DAY);
+
+        dir = Files.createTempDirectory("history").toFile();
+        store = new HistoryStore(dir, Runnable::run);
+        g.writeTo(store);
+    }
+
+    @TearDown
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    /** saveData's history step: today's file only. */
+    @Benchmark
+    public void saveEntry() {
+        store.putDay(today, todayEntries);
+    }
+
+    /** Opening a past day: that day's file only. */
+    @Benchmark
+    public ArrayList<FoodEntry> loadDay() {
+        return store.day(pastDay);
+    }
+
+    /** The old saveData history step: decode every day, put today's list, encode every day. */
+    @Benchmark
+    public String saveEntrySingleMap() {
+        HashMap<String, ArrayList<FoodEntry>> h = gson.fromJson(historyJson, HISTORY);
+        h.put(today, todayEntries);
+        return gson.toJson(h, HISTORY);
+    }
+
+    @Benchmark
+    public String encodeHistory() {
+        return gson.toJson(history, HISTORY);
+    }
+
+    @Benchmark
+    public HashMap<String, ArrayList<FoodEntry>> decodeHistory() {
+        return gson.fromJson(historyJson, HISTORY);
+    }
+
+    /** The "entries" prefs value: today's list only. */
+    @Benchmark
+    public String encodeDay() {
+        return gson.toJson(todayEntries, DAY);
+    }
+
+    @Benchmark
+    public ArrayList<FoodEntry> decodeDay() {
+        return gson.fromJson(todayJson, DAY);
+    }
+}
@@ -0,0 +1,41 @@
+package com.TDavis.foodie_macrotracker;
+
+import com.TDavis.foodie_macrotracker.FoodModels.NormalizedFoodItem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Macro scaling as the form and the meal resolver run it, per keystroke and per item. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ScalingBenchmark {
+
+    private List<NormalizedFoodItem> page;
+    private final String[] quantities = {"1", "2.5", "", "0.25", "abc", " 3 "};
+
+    @Setup
+    public void setUp() {
+        page = Fixtures.searchPage(100).items;
+    }
+
+    /** A whole 100-item page at 150 g each. */
+    @Benchmark
+    public void scalePage(Blackhole bh) {
+        for (NormalizedFoodItem f : page) bh.consume(MacroScaling.scalePer100g(f.servings.per100g, 150));
+    }
+
+    @Benchmark
+    public void parseQuantity(Blackhole bh) {
+        for (String q : quantities) bh.consume(MacroScaling.parseQuantity(q));
+    }
+}
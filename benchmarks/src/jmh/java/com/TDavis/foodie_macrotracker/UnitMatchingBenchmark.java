@@ -0,0 +1,55 @@
+package com.TDavis.foodie_macrotracker;
+
+import com.TDavis.foodie_macrotracker.FoodModels.Unit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Unit lookups behind the form's spinner and multi-item meal text. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UnitMatchingBenchmark {
+
+    private static final String MEAL = "2 eggs, 1 cup oatmeal and a banana; 1 tbsp peanut butter + 250 ml milk";
+
+    private List<Unit> units;
+    private UnitRegistry registry;
+    private String lastLabel;
+
+    @Setup
+    public void setUp() {
+        units = Fixtures.units(10);
+        registry = UnitRegistry.of(units);
+        lastLabel = units.get(units.size() - 1).label;
+    }
+
+    /** Indexing a food's units when a detail arrives. */
+    @Benchmark
+    public UnitRegistry index() {
+        return UnitRegistry.of(units);
+    }
+
+    @Benchmark
+    public int indexOfLabel() {
+        return registry.indexOfLabel(lastLabel);
+    }
+
+    @Benchmark
+    public double gramsPerCup() {
+        return registry.gramsPer("cup");
+    }
+
+    @Benchmark
+    public List<MealParser.Item> parseMeal() {
+        return MealParser.parse(MEAL);
+    }
+}
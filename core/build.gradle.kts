@@ -0,0 +1,22 @@
+plugins {
+    `java-library`
+    `java-test-fixtures`
+}
+
+// Android-free app logic (models, decoding, persistence encoding, scaling, units, day sections),
+// so it can be benchmarked (:benchmarks) and tested on a plain JVM
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    api("com.google.code.gson:gson:2.13.1")
+    testImplementation(libs.junit)
+}
+
+// src/testFixtures: the synthetic history generator, shared by the tests and :benchmarks
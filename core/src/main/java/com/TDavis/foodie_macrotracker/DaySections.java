@@ -0,0 +1,74 @@
+package com.TDavis.foodie_macrotracker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * A day's entries grouped by meal type (Breakfast/Lunch/Dinner/Snack/Other), each section newest
+ * first with its own totals. One pass to group, one sort per section.
+ *
+ * Entries without a meal type go to Other. Unknown meal types keep a section of their own
+ * ({@link #get}) but are not among the listed {@link #ORDER} sections; the day's totals count them.
+ */
+final class DaySections {
+
+    static final List<String> ORDER = Collections.unmodifiableList(Arrays.asList("Breakfast", "Lunch", "Dinner", "Snack", "Other"));
+
+    /** Summed macros of some entries. */
+    static final class Totals {
+        int calories, protein, carbs, fat;
+
+        void add(FoodEntry e) { calories += e.calories; protein += e.protein; carbs += e.carbs; fat += e.fat; }
+
+        static Totals of(List<FoodEntry> entries) {
+            Totals t = new Totals();
+            if (entries != null) for (FoodEntry e : entries) t.add(e);
+            return t;
+        }
+    }
+
+    static final class Section {
+        final String name;
+        final ArrayList<FoodEntry> entries = new ArrayList<>(); // newest first
+        final Totals totals = new Totals();
+
+        Section(String name) { this.name = name; }
+    }
+
+    private final LinkedHashMap<String, Section> byName = new LinkedHashMap<>();
+    private final Totals day = new Totals();
+
+    private DaySections() {
+        for (String s : ORDER) byName.put(s, new Section(s));
+    }
+
+    static DaySections of(List<FoodEntry> entries) {
+        DaySections d = new DaySections();
+        if (entries != null) for (FoodEntry e : entries) {
+            String key = (e.mealType == null || e.mealType.trim().isEmpty()) ? "Other" : e.mealType;
+            Section s = d.byName.get(key);
+            if (s == null) { s = new Section(key); d.byName.put(key, s); }
+            s.entries.add(e);
+            s.totals.add(e);
+            d.day.add(e);
+        }
+        for (Section s : d.byName.values()) Collections.sort(s.entries, (a, b) -> Long.compare(b.createdAt, a.createdAt));
+        return d;
+    }
+
+    /** The {@link #ORDER} sections, empty ones included. */
+    List<Section> sections() {
+        ArrayList<Section> out = new ArrayList<>(ORDER.size());
+        for (String s : ORDER) out.add(byName.get(s));
+        return out;
+    }
+
+    /** Section by meal type; null if no entry has it (and it isn't one of {@link #ORDER}). */
+    Section get(String name) { return byName.get(name); }
+
+    /** Totals over every entry of the day. */
+    Totals total() { return day; }
+}
@@ -21,4 +21,9 @@ public class FoodEntry {
         this.createdAt = System.currentTimeMillis();
         this.mealType = mealType;
     }
+
+    /** The same food and macros as a new entry (copying a meal, logging a template). */
+    public FoodEntry copyTo(String date, String mealType) {
+        return new FoodEntry(name, calories, protein, carbs, fat, date, mealType);
+    }
 }
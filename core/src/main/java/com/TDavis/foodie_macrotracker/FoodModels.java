@@ -0,0 +1,103 @@
+package com.TDavis.foodie_macrotracker;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Models of the normalized proxy payloads (search, details, barcodes), shared by the app and the
+ * plain-JVM tools (benchmarks, tests). Decoded by {@link GsonProvider}.
+ */
+public final class FoodModels {
+
+    private FoodModels() {}
+
+    /** Immutable, so common units can be shared between items ({@link #of}). */
+    public static final class Unit {
+        public static final Unit GRAM = new Unit("gram (g)", 1.0);
+        public static final Unit OUNCE = new Unit("ounce (oz)", 28.3495);
+        private static final int MAX_INTERNED = 256;
+        private static final ConcurrentHashMap<String, Unit> INTERNED = new ConcurrentHashMap<>();
+
+        public final String label;
+        public final double gramsPerUnit;
+
+        public Unit(String label, double gramsPerUnit) { this.label = label; this.gramsPerUnit = gramsPerUnit; }
+
+        /** Shared instance for a label/weight pair (household measures repeat across results). */
+        public static Unit of(String label, double gramsPerUnit) {
+            if (label == null) return new Unit(null, gramsPerUnit);
+            if (gramsPerUnit == 1.0 && label.equals(GRAM.label)) return GRAM;
+            if (gramsPerUnit == OUNCE.gramsPerUnit && label.equals(OUNCE.label)) return OUNCE;
+            String key = label + '\u0000' + gramsPerUnit;
+            Unit u = INTERNED.get(key);
+            if (u != null) return u;
+            u = new Unit(label, gramsPerUnit);
+            if (INTERNED.size() >= MAX_INTERNED) return u; // plenty of variety: stop interning
+            Unit prev = INTERNED.putIfAbsent(key, u);
+            return prev != null ? prev : u;
+        }
+    }
+
+    /** Macro values as primitives; a missing value (null in JSON) is a cleared presence bit. */
+    public static class Macros {
+        private static final int CAL = 1, PRO = 1 << 1, CARB = 1 << 2, FAT = 1 << 3;
+        static final int GRAMS = 1 << 4;
+        int present;
+        private int calories;
+        private double protein, carbs, fat;
+
+        public boolean hasCalories() { return (present & CAL) != 0; }
+        public boolean hasProtein()  { return (present & PRO) != 0; }
+        public boolean hasCarbs()    { return (present & CARB) != 0; }
+        public boolean hasFat()      { return (present & FAT) != 0; }
+
+        public int calories()  { return calories; }
+        public double protein() { return protein; }
+        public double carbs()   { return carbs; }
+        public double fat()     { return fat; }
+
+        public void setCalories(int v) { calories = v; present |= CAL; }
+        public void setProtein(double v) { protein = v; present |= PRO; }
+        public void setCarbs(double v)   { carbs = v; present |= CARB; }
+        public void setFat(double v)     { fat = v; present |= FAT; }
+    }
+    public static class Per100g extends Macros {}
+    public static class PerServing extends Macros {
+        private double grams;
+        public boolean hasGrams() { return (present & GRAMS) != 0; }
+        public double grams() { return grams; }
+        public void setGrams(double v) { grams = v; present |= GRAMS; }
+    }
+    public static class Servings { public Per100g per100g; public PerServing perServing; }
+    public static class NormalizedFoodItem {
+        public long fdcId;
+        public String description;
+        public String brandName;
+        public String dataType; // USDA: Foundation, SR Legacy, Survey (FNDDS), Branded; null otherwise
+        public Servings servings;
+        public ArrayList<Unit> units;
+    }
+    public static class FoodSearchResponseV2 {
+        public int totalHits;
+        public int pageNumber;
+        public ArrayList<NormalizedFoodItem> items;
+    }
+    public static class BarcodeLookupResponse {
+        public NormalizedFoodItem item;
+    }
+    public static class BarcodeBatchResponse {
+        public ArrayList<BarcodeResult> results;
+    }
+    public static class BarcodeResult {
+        public String code;
+        public NormalizedFoodItem item; // null when not found or failed
+        public boolean notFound;
+        public String error;
+    }
+    public static class FoodDetailResponse {
+        public NormalizedFoodItem item;
+    }
+    public static class HealthResponse {
+        public boolean ok;
+    }
+}
@@ -0,0 +1,197 @@
+package com.TDavis.foodie_macrotracker;
+
+import com.TDavis.foodie_macrotracker.FoodModels.Macros;
+import com.TDavis.foodie_macrotracker.FoodModels.NormalizedFoodItem;
+import com.TDavis.foodie_macrotracker.FoodModels.Per100g;
+import com.TDavis.foodie_macrotracker.FoodModels.PerServing;
+import com.TDavis.foodie_macrotracker.FoodModels.Servings;
+import com.TDavis.foodie_macrotracker.FoodModels.Unit;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * The app's one Gson instance: proxy responses (Retrofit) and everything persisted as JSON.
+ *
+ * Food models use hand-written streaming adapters instead of reflection. They read only the
+ * fields the app uses and skip the rest (source, code, ...), share {@link Unit} instances via
+ * {@link Unit#of}, and keep macros as primitives with presence bits. Written JSON has the same
+ * shape reflective Gson produced (absent values omitted), so stored data stays readable.
+ */
+public final class GsonProvider {
+
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(Unit.class, new UnitAdapter().nullSafe())
+            .registerTypeAdapter(Per100g.class, new MacrosAdapter<>(false, Per100g::new).nullSafe())
+            .registerTypeAdapter(PerServing.class, new MacrosAdapter<>(true, PerServing::new).nullSafe())
+            .registerTypeAdapter(Servings.class, new ServingsAdapter().nullSafe())
+            .registerTypeAdapter(NormalizedFoodItem.class, new ItemAdapter().nullSafe())
+            .create();
+
+    private GsonProvider() {}
+
+    public static Gson get() { return GSON; }
+
+    /* ==============================  adapters  ============================== */
+
+    static final class UnitAdapter extends TypeAdapter<Unit> {
+        @Override public Unit read(JsonReader in) throws IOException {
+            String label = null;
+            double grams = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "label": label = optString(in); break;
+                    case "gramsPerUnit": grams = optDouble(in, 0); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return Unit.of(label, grams);
+        }
+
+        @Override public void write(JsonWriter out, Unit u) throws IOException {
+            out.beginObject();
+            if (u.label != null) out.name("label").value(u.label);
+            out.name("gramsPerUnit").value(u.gramsPerUnit);
+            out.endObject();
+        }
+    }
+
+    interface Factory<T> { T create(); }
+
+    static final class MacrosAdapter<T extends Macros> extends TypeAdapter<T> {
+        private final boolean perServing;
+        private final Factory<T> factory;
+
+        MacrosAdapter(boolean perServing, Factory<T> factory) {
+            this.perServing = perServing;
+            this.factory = factory;
+        }
+
+        @Override public T read(JsonReader in) throws IOException {
+            T m = factory.create();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) { in.nextNull(); continue; } // absent
+                switch (name) {
+                    case "calories": m.setCalories((int) Math.round(in.nextDouble())); break;
+                    case "protein":  m.setProtein(in.nextDouble()); break;
+                    case "carbs":    m.setCarbs(in.nextDouble()); break;
+                    case "fat":      m.setFat(in.nextDouble()); break;
+                    case "grams":
+                        if (perServing) ((PerServing) m).setGrams(in.nextDouble()); else in.skipValue();
+                        break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return m;
+        }
+
+        @Override public void write(JsonWriter out, T m) throws IOException {
+            out.beginObject();
+            if (m.hasCalories()) out.name("calories").value(m.calories());
+            if (m.hasProtein())  out.name("protein").value(m.protein());
+            if (m.hasCarbs())    out.name("carbs").value(m.carbs());
+            if (m.hasFat())      out.name("fat").value(m.fat());
+            if (perServing && ((PerServing) m).hasGrams()) out.name("grams").value(((PerServing) m).grams());
+            out.endObject();
+        }
+    }
+
+    static final class ServingsAdapter extends TypeAdapter<Servings> {
+        private final MacrosAdapter<Per100g> per100g = new MacrosAdapter<>(false, Per100g::new);
+        private final MacrosAdapter<PerServing> perServing = new MacrosAdapter<>(true, PerServing::new);
+
+        @Override public Servings read(JsonReader in) throws IOException {
+            Servings s = new Servings();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) { in.nextNull(); continue; }
+                switch (name) {
+                    case "per100g": s.per100g = per100g.read(in); break;
+                    case "perServing": s.perServing = perServing.read(in); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return s;
+        }
+
+        @Override public void write(JsonWriter out, Servings s) throws IOException {
+            out.beginObject();
+            if (s.per100g != null) { out.name("per100g"); per100g.write(out, s.per100g); }
+            if (s.perServing != null) { out.name("perServing"); perServing.write(out, s.perServing); }
+            out.endObject();
+        }
+    }
+
+    static final class ItemAdapter extends TypeAdapter<NormalizedFoodItem> {
+        private final UnitAdapter units = new UnitAdapter();
+        private final ServingsAdapter servings = new ServingsAdapter();
+
+        @Override public NormalizedFoodItem read(JsonReader in) throws IOException {
+            NormalizedFoodItem f = new NormalizedFoodItem();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) { in.nextNull(); continue; }
+                switch (name) {
+                    case "fdcId": f.fdcId = in.nextLong(); break;
+                    case "description": f.description = in.nextString(); break;
+                    case "brandName": f.brandName = in.nextString(); break;
+                    case "dataType": f.dataType = in.nextString(); break;
+                    case "servings": f.servings = servings.read(in); break;
+                    case "units":
+                        ArrayList<Unit> list = new ArrayList<>();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            if (in.peek() == JsonToken.NULL) in.nextNull(); else list.add(units.read(in));
+                        }
+                        in.endArray();
+                        f.units = list;
+                        break;
+                    default: in.skipValue(); // source, code, ...
+                }
+            }
+            in.endObject();
+            return f;
+        }
+
+        @Override public void write(JsonWriter out, NormalizedFoodItem f) throws IOException {
+            out.beginObject();
+            out.name("fdcId").value(f.fdcId);
+            if (f.description != null) out.name("description").value(f.description);
+            if (f.brandName != null) out.name("brandName").value(f.brandName);
+            if (f.dataType != null) out.name("dataType").value(f.dataType);
+            if (f.servings != null) { out.name("servings"); servings.write(out, f.servings); }
+            if (f.units != null) {
+                out.name("units").beginArray();
+                for (Unit u : f.units) {
+                    if (u == null) out.nullValue(); else units.write(out, u);
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+    }
+
+    private static String optString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) { in.nextNull(); return null; }
+        return in.nextString();
+    }
+
+    private static double optDouble(JsonReader in, double fallback) throws IOException {
+        if (in.peek() == JsonToken.NULL) { in.nextNull(); return fallback; }
+        return in.nextDouble();
+    }
+}
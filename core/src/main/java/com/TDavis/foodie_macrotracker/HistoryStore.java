@@ -0,0 +1,206 @@
+package com.TDavis.foodie_macrotracker;
+
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Logged entries by day, one small JSON file per day ("2025-08-14.json"), so saving an entry
+ * rewrites only its day and opening a day reads only that day, however many years are stored.
+ *
+ * Writes go to a background thread, one at a time, each through a temp file and a rename. Until a
+ * write lands, reads of that day are answered from the pending copy; a failed write stays pending
+ * and is retried with the next one. {@link #putDayNow} and {@link #importAll} write on the
+ * caller's thread instead, so the caller knows when its own copy can go. Only {@link #dates} and
+ * {@link #all} (first-run seeding, migration) touch every day.
+ *
+ * One instance per directory ({@link #in}); thread-safe.
+ */
+final class HistoryStore {
+
+    private static final Type DAY = new TypeToken<ArrayList<FoodEntry>>(){}.getType();
+    private static final Pattern DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+    private static final String SUFFIX = ".json";
+    private static final String DELETED = ""; // pending value for a day emptied before it was written
+
+    private static final HashMap<String, HistoryStore> OPEN = new HashMap<>();
+
+    private final File dir;
+    private final Executor writer;
+    private final HashMap<String, String> pending = new HashMap<>(); // date -> JSON not yet on disk
+    private final Object disk = new Object(); // one write at a time: the writer thread and putDayNow
+
+    HistoryStore(File dir, Executor writer) {
+        this.dir = dir;
+        this.writer = writer;
+    }
+
+    /** The store for `dir`, shared by every caller in the process (pending writes stay visible). */
+    static synchronized HistoryStore in(File dir) {
+        String key = dir.getAbsolutePath();
+        HistoryStore s = OPEN.get(key);
+        if (s == null) {
+            s = new HistoryStore(dir, Executors.newSingleThreadExecutor());
+            OPEN.put(key, s);
+        }
+        return s;
+    }
+
+    /** That day's entries in logged order; empty when nothing was logged. */
+    ArrayList<FoodEntry> day(String date) {
+        String json;
+        synchronized (pending) { json = pending.get(check(date)); }
+        if (json == null) json = read(file(date));
+        ArrayList<FoodEntry> out = (json == null || json.isEmpty()) ? null : GsonProvider.get().fromJson(json, DAY);
+        return out == null ? new ArrayList<>() : out;
+    }
+
+    /** Replace a day's entries; an empty list removes the day. */
+    void putDay(String date, List<FoodEntry> entries) {
+        synchronized (pending) { pending.put(check(date), encode(entries)); }
+        writer.execute(this::flushPending);
+    }
+
+    /**
+     * {@link #putDay}, written before it returns: true once the day is on disk. On false the day
+     * stays pending like a failed background write.
+     */
+    boolean putDayNow(String date, List<FoodEntry> entries) {
+        String json = encode(entries);
+        synchronized (pending) { pending.put(check(date), json); }
+        flush(date);
+        synchronized (pending) { return !json.equals(pending.get(date)); }
+    }
+
+    /** Whether `date` is a yyyy-MM-dd day name this store accepts. */
+    static boolean isDate(String date) { return date != null && DATE.matcher(date).matches(); }
+
+    /** Dates with entries, oldest first. Lists the directory. */
+    List<String> dates() {
+        TreeSet<String> out = new TreeSet<>();
+        String[] names = dir.list();
+        if (names != null) for (String n : names) {
+            if (!n.endsWith(SUFFIX)) continue;
+            String d = n.substring(0, n.length() - SUFFIX.length());
+            if (DATE.matcher(d).matches()) out.add(d);
+        }
+        synchronized (pending) {
+            for (Map.Entry<String, String> e : pending.entrySet()) {
+                if (e.getValue().isEmpty()) out.remove(e.getKey()); else out.add(e.getKey());
+            }
+        }
+        return new ArrayList<>(out);
+    }
+
+    /** Every day, oldest first. Reads the whole history: seeding and migration only. */
+    LinkedHashMap<String, ArrayList<FoodEntry>> all() {
+        LinkedHashMap<String, ArrayList<FoodEntry>> out = new LinkedHashMap<>();
+        for (String d : dates()) {
+            ArrayList<FoodEntry> day = day(d);
+            if (!day.isEmpty()) out.put(d, day);
+        }
+        return out;
+    }
+
+    /**
+     * One-time import of the old single-map history; days already stored are kept. Writes on the
+     * calling thread and reads each file back: true once every imported day is on disk, false if
+     * any write failed (run it again later; days that made it are skipped then).
+     */
+    boolean importAll(Map<String, ? extends List<FoodEntry>> history) {
+        if (history == null) return true;
+        List<String> existing = dates();
+        boolean ok = true;
+        for (Map.Entry<String, ? extends List<FoodEntry>> e : history.entrySet()) {
+            if (e.getKey() == null || !DATE.matcher(e.getKey()).matches()) continue;
+            if (Collections.binarySearch(existing, e.getKey()) >= 0) continue;
+            if (e.getValue() == null || e.getValue().isEmpty()) continue;
+            String json = encode(e.getValue());
+            File f = file(e.getKey());
+            synchronized (disk) {
+                if (!write(f, json) || !json.equals(read(f))) ok = false;
+            }
+        }
+        return ok;
+    }
+
+    /* ==============================  internals  ============================== */
+
+    private static String encode(List<FoodEntry> entries) {
+        return (entries == null || entries.isEmpty()) ? DELETED : GsonProvider.get().toJson(entries, DAY);
+    }
+
+    // Every pending day, so one that failed before is retried along with the newest
+    private void flushPending() {
+        ArrayList<String> dates;
+        synchronized (pending) { dates = new ArrayList<>(pending.keySet()); }
+        for (String d : dates) flush(d);
+    }
+
+    private void flush(String date) {
+        synchronized (disk) {
+            String json;
+            synchronized (pending) { json = pending.get(date); }
+            if (json == null) return; // a later write of the same day already landed
+            File f = file(date);
+            if (json.isEmpty()) {
+                if (f.exists() && !f.delete()) return; // keep it pending; the next write retries
+            } else if (!write(f, json)) {
+                return;
+            }
+            synchronized (pending) {
+                if (json.equals(pending.get(date))) pending.remove(date);
+            }
+        }
+    }
+
+    private File file(String date) { return new File(dir, date + SUFFIX); }
+
+    private static String check(String date) {
+        if (!isDate(date)) throw new IllegalArgumentException("Not a yyyy-MM-dd date: " + date);
+        return date;
+    }
+
+    private static String read(File f) {
+        if (!f.isFile()) return null;
+        StringBuilder sb = new StringBuilder((int) Math.min(f.length(), 1 << 16));
+        try (Reader in = new InputStreamReader(new FileInputStream(f), StandardCharsets.UTF_8)) {
+            char[] buf = new char[4096];
+            for (int n; (n = in.read(buf)) != -1; ) sb.append(buf, 0, n);
+            return sb.toString();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private boolean write(File f, String json) {
+        if (!dir.isDirectory() && !dir.mkdirs()) return false;
+        File tmp = new File(dir, f.getName() + ".tmp");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            out.write(json);
+        } catch (IOException e) {
+            tmp.delete();
+            return false;
+        }
+        return tmp.renameTo(f) || (f.delete() && tmp.renameTo(f));
+    }
+}
@@ -0,0 +1,28 @@
+package com.TDavis.foodie_macrotracker;
+
+import com.TDavis.foodie_macrotracker.FoodModels.Per100g;
+
+/** Quantity x unit -> macros, from a food's per-100 g values (the form, multi-item meals). */
+final class MacroScaling {
+
+    private MacroScaling() {}
+
+    /** Quantity field value; empty, unreadable or non-positive counts as 1. */
+    static double parseQuantity(CharSequence s) {
+        double qty;
+        try { qty = Double.parseDouble(String.valueOf(s == null ? "" : s).trim()); } catch (NumberFormatException e) { qty = 1.0; }
+        return qty > 0 ? qty : 1.0;
+    }
+
+    /** {kcal, protein, carbs, fat} in `grams` of a food, rounded like the form shows them; NaN = unknown. */
+    static double[] scalePer100g(Per100g b, double grams) {
+        double k = grams / 100.0;
+        return new double[] {
+                b.hasCalories() ? Math.round(b.calories() * k) : Double.NaN,
+                b.hasProtein()  ? r1(b.protein() * k)  : Double.NaN,
+                b.hasCarbs()    ? r1(b.carbs() * k)    : Double.NaN,
+                b.hasFat()      ? r1(b.fat() * k)      : Double.NaN };
+    }
+
+    static double r1(double v) { return Math.round(v * 10.0) / 10.0; }
+}
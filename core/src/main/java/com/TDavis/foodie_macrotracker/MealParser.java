@@ -0,0 +1,215 @@
+package com.TDavis.foodie_macrotracker;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits free text like "2 eggs, 1 cup rice, 150 g chicken breast" into items of
+ * quantity + unit + food.
+ *
+ * - Items are separated by commas (not between digits), semicolons, new lines, "+" and "and"
+ *   when a quantity follows it (so "mac and cheese" stays one food).
+ * - Quantities: 2, 1.5, 1,5, 1/2, 1 1/2, ½, and words (a, an, one … twelve, half, dozen).
+ * - Units are mapped to their canonical name by {@link UnitRegistry#canonical} (g, cup, tbsp, or
+ *   a household word like slice or large), plus the two-word fluid ounce ("fl oz", "fl. oz",
+ *   "fluid ounces" -> floz); none means "this many of the food".
+ */
+final class MealParser {
+
+    /** One parsed item. unit is canonical, or null for a plain count. */
+    static final class Item {
+        final String amount;   // quantity + unit as typed, e.g. "1 cup"
+        final double quantity;
+        final boolean hasQty;  // quantity typed; otherwise 1 is assumed
+        final String unit;
+        final String food;
+
+        Item(String amount, double quantity, boolean hasQty, String unit, String food) {
+            this.amount = amount;
+            this.quantity = quantity;
+            this.hasQty = hasQty;
+            this.unit = unit;
+            this.food = food;
+        }
+
+        @Override public String toString() { return (amount.isEmpty() ? "" : amount + " ") + food; }
+    }
+
+    private static final Pattern SEPARATORS = Pattern.compile("(?:[;\\n+]|(?<!\\d),|,(?!\\d))+"); // "1,5" is a number
+    private static final Pattern AND = Pattern.compile("\\s+(?:and|&)\\s+", Pattern.CASE_INSENSITIVE);
+    private static final Pattern NUMBER = Pattern.compile(
+            "^(\\d+\\s+\\d+/\\d+|\\d+/\\d+|\\d+(?:[.,]\\d+)?\\s*[½¼¾⅓⅔]?|[½¼¾⅓⅔])\\s*");
+    private static final Pattern WORD = Pattern.compile("^([a-z]+)\\.?(?:\\s+|$)");
+    private static final Pattern FL_OZ = Pattern.compile("^(?:fl\\.?\\s*oz|fluid\\s+(?:oz|ounces?))\\.?(?:\\s+|$)");
+
+    private static final Map<String, Double> QUANTITY_WORDS = new HashMap<>();
+    static {
+        String[] numbers = {"one", "two", "three", "four", "five", "six", "seven", "eight", "nine", "ten", "eleven", "twelve"};
+        for (int i = 0; i < numbers.length; i++) QUANTITY_WORDS.put(numbers[i], (double) (i + 1));
+        QUANTITY_WORDS.put("a", 1.0);
+        QUANTITY_WORDS.put("an", 1.0);
+        QUANTITY_WORDS.put("half", 0.5);
+        QUANTITY_WORDS.put("dozen", 12.0);
+    }
+
+    private MealParser() {}
+
+    /** Items in input order; blank parts are skipped. */
+    static List<Item> parse(String input) {
+        List<Item> out = new ArrayList<>();
+        if (input == null) return out;
+        for (String part : SEPARATORS.split(input)) {
+            for (String piece : splitOnAnd(part.trim())) {
+                Item it = parseItem(piece);
+                if (it != null) out.add(it);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Whether parsed text is a meal rather than one food: at least two items with a typed quantity
+     * (a unit is only read after one). Commas alone don't make a meal, so "Rice, white, cooked"
+     * stays a search.
+     */
+    static boolean isMeal(List<Item> items) {
+        int counted = 0;
+        for (Item it : items) if (it.hasQty && ++counted == 2) return true;
+        return false;
+    }
+
+    /** Search form of a food name: "eggs" -> "egg", "tomatoes" -> "tomato", "berries" -> "berry". */
+    static String singular(String food) {
+        StringBuilder sb = new StringBuilder();
+        for (String w : food.split("\\s+")) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(singularWord(w));
+        }
+        return sb.toString();
+    }
+
+    /* ==============================  internals  ============================== */
+
+    // "rice and 2 eggs" -> two items; "mac and cheese" -> one
+    private static List<String> splitOnAnd(String part) {
+        List<String> out = new ArrayList<>();
+        Matcher m = AND.matcher(part);
+        int start = 0;
+        while (m.find()) {
+            String rest = part.substring(m.end()).toLowerCase(Locale.US);
+            if (startsWithQuantity(rest)) {
+                out.add(part.substring(start, m.start()));
+                start = m.end();
+            }
+        }
+        out.add(part.substring(start));
+        return out;
+    }
+
+    private static boolean startsWithQuantity(String s) {
+        if (NUMBER.matcher(s).find()) return true;
+        Matcher w = WORD.matcher(s);
+        return w.find() && QUANTITY_WORDS.containsKey(w.group(1));
+    }
+
+    private static Item parseItem(String raw) {
+        String s = raw.trim().replaceAll("\\s+", " ");
+        if (s.isEmpty()) return null;
+        String lower = s.toLowerCase(Locale.US);
+        int pos = 0;
+
+        // Quantity
+        double qty = 1;
+        boolean hasQty = false;
+        Matcher n = NUMBER.matcher(lower);
+        if (n.find()) {
+            qty = parseNumber(n.group(1).trim());
+            pos = n.end();
+            hasQty = true;
+        } else {
+            Matcher w = WORD.matcher(lower);
+            if (w.find() && QUANTITY_WORDS.containsKey(w.group(1))) {
+                qty = QUANTITY_WORDS.get(w.group(1));
+                pos = w.end();
+                hasQty = true;
+                // "half a cup", "a dozen eggs"
+                Matcher w2 = WORD.matcher(lower.substring(pos));
+                if (w2.find() && QUANTITY_WORDS.containsKey(w2.group(1))) {
+                    qty *= QUANTITY_WORDS.get(w2.group(1));
+                    pos += w2.end();
+                }
+            }
+        }
+
+        // Unit (only after a quantity, so "large fries" keeps its word)
+        String unit = null;
+        if (hasQty) {
+            Matcher fl = FL_OZ.matcher(lower.substring(pos));
+            Matcher u = WORD.matcher(lower.substring(pos));
+            if (fl.find() && pos + fl.end() < lower.length()) {
+                unit = "floz";
+                pos += fl.end();
+            } else if (u.find() && UnitRegistry.canonical(u.group(1)) != null && pos + u.end() < lower.length()) {
+                unit = UnitRegistry.canonical(u.group(1));
+                pos += u.end();
+            }
+        }
+        String amount = s.substring(0, pos).trim();
+
+        String food = s.substring(pos).trim();
+        if (food.toLowerCase(Locale.US).startsWith("of ")) food = food.substring(3).trim();
+        if (food.isEmpty() || qty <= 0 || Double.isNaN(qty)) return null;
+        return new Item(amount, qty, hasQty, unit, food);
+    }
+
+    private static double parseNumber(String t) {
+        double v = 0;
+        for (String part : t.split("\\s+")) {
+            if (part.isEmpty()) continue;
+            char last = part.charAt(part.length() - 1);
+            double frac = vulgar(last);
+            if (!Double.isNaN(frac)) {
+                v += frac;
+                part = part.substring(0, part.length() - 1);
+                if (part.isEmpty()) continue;
+            }
+            int slash = part.indexOf('/');
+            try {
+                if (slash > 0) {
+                    double den = Double.parseDouble(part.substring(slash + 1));
+                    v += den == 0 ? Double.NaN : Double.parseDouble(part.substring(0, slash)) / den;
+                } else {
+                    v += Double.parseDouble(part.replace(',', '.'));
+                }
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return v;
+    }
+
+    private static double vulgar(char c) {
+        switch (c) {
+            case '½': return 0.5;
+            case '¼': return 0.25;
+            case '¾': return 0.75;
+            case '⅓': return 1.0 / 3;
+            case '⅔': return 2.0 / 3;
+            default:  return Double.NaN;
+        }
+    }
+
+    private static String singularWord(String w) {
+        String l = w.toLowerCase(Locale.US);
+        if (l.length() <= 3 || l.endsWith("ss") || l.endsWith("us")) return w;
+        if (l.endsWith("ies")) return w.substring(0, w.length() - 3) + "y";
+        if (l.endsWith("oes") || l.endsWith("ches") || l.endsWith("shes")) return w.substring(0, w.length() - 2);
+        if (l.endsWith("s")) return w.substring(0, w.length() - 1);
+        return w;
+    }
+}
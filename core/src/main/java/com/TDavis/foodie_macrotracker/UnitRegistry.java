@@ -0,0 +1,266 @@
+package com.TDavis.foodie_macrotracker;
+
+import com.TDavis.foodie_macrotracker.FoodModels.Unit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The units of one food, indexed for lookups by label and by measure, plus the conversions
+ * between them.
+ *
+ * Labels are normalized once when a unit is added ("1 Cup, chopped" -> "1 cup chopped"), and
+ * each gets its measure ("cup") and leading amount (1). That gives three kinds of conversion:
+ * - mass units (g, kg, oz, lb) have fixed grams;
+ * - household measures (slice, large, serving, "1 cup chopped") carry grams from the data;
+ * - volume units (ml, l, cup, tbsp, tsp, fl oz) use the food's density, taken from its first
+ *   volume measure. With a density known, volume units the food lacks are added to the list.
+ *
+ * Lookups are hash hits; the index is rebuilt only when units change. Main thread only.
+ */
+final class UnitRegistry {
+
+    // Canonical measure words (shared with MealParser) and their fixed sizes
+    private static final Map<String, String> CANONICAL = new HashMap<>();
+    private static final Map<String, Double> MASS_GRAMS = new HashMap<>();
+    private static final Map<String, Double> VOLUME_ML = new HashMap<>();
+    static {
+        alias("g", "g", "gr", "gm", "gram", "grams", "gramme", "grammes");
+        alias("kg", "kg", "kilo", "kilos", "kilogram", "kilograms");
+        alias("oz", "oz", "ounce", "ounces");
+        alias("lb", "lb", "lbs", "pound", "pounds");
+        alias("ml", "ml", "milliliter", "milliliters", "millilitre", "millilitres");
+        alias("l", "l", "liter", "liters", "litre", "litres");
+        alias("cup", "cup", "cups");
+        alias("tbsp", "tbsp", "tbs", "tablespoon", "tablespoons");
+        alias("tsp", "tsp", "teaspoon", "teaspoons");
+        alias("floz", "floz", "fl.oz");
+        alias("slice", "slice", "slices");
+        alias("piece", "piece", "pieces", "pc", "pcs");
+        alias("serving", "serving", "servings");
+        alias("scoop", "scoop", "scoops");
+        alias("can", "can", "cans");
+        alias("bar", "bar", "bars");
+        alias("small", "small");
+        alias("medium", "medium");
+        alias("large", "large");
+
+        MASS_GRAMS.put("g", 1.0);
+        MASS_GRAMS.put("kg", 1000.0);
+        MASS_GRAMS.put("oz", 28.3495);
+        MASS_GRAMS.put("lb", 453.592);
+
+        // US customary, as USDA measures use
+        VOLUME_ML.put("ml", 1.0);
+        VOLUME_ML.put("l", 1000.0);
+        VOLUME_ML.put("cup", 236.588);
+        VOLUME_ML.put("tbsp", 14.7868);
+        VOLUME_ML.put("tsp", 4.92892);
+        VOLUME_ML.put("floz", 29.5735);
+    }
+
+    // Volume units offered when the food has a density but not the measure itself
+    private static final String[] DERIVED = {"ml", "cup", "tbsp", "tsp"};
+    private static final String[] DERIVED_LABELS = {"milliliter (ml)", "cup", "tablespoon (tbsp)", "teaspoon (tsp)"};
+
+    private static void alias(String canonical, String... spellings) {
+        for (String s : spellings) CANONICAL.put(s, canonical);
+    }
+
+    /** Canonical measure for a word ("Cups" -> "cup", "grams" -> "g"); null if not a unit. */
+    static String canonical(String word) {
+        return word == null ? null : CANONICAL.get(word.toLowerCase(Locale.US));
+    }
+
+    /** Grams in one of a mass unit (g, kg, oz, lb); 0 for anything else. */
+    static double massGrams(String canonical) {
+        Double g = canonical == null ? null : MASS_GRAMS.get(canonical);
+        return g == null ? 0 : g;
+    }
+
+    /** Millilitres in one of a volume unit (ml, l, cup, tbsp, tsp, floz); 0 for anything else. */
+    static double volumeMl(String canonical) {
+        Double ml = canonical == null ? null : VOLUME_ML.get(canonical);
+        return ml == null ? 0 : ml;
+    }
+
+    /* ==============================  per food  ============================== */
+
+    private final ArrayList<Unit> base = new ArrayList<>();   // the food's own units, in order
+    private final ArrayList<Unit> all = new ArrayList<>();    // base + derived volume units
+    private final HashMap<String, Integer> byLabel = new HashMap<>();   // normalized label -> index
+    private final HashMap<String, Integer> byMeasure = new HashMap<>(); // canonical measure -> first index
+    private final HashMap<String, Double> gramsPerMeasure = new HashMap<>(); // canonical -> grams in 1
+    private double density = Double.NaN; // g per ml
+
+    private UnitRegistry() {}
+
+    static UnitRegistry of(List<Unit> units) {
+        UnitRegistry r = new UnitRegistry();
+        if (units != null) for (Unit u : units) if (u != null) r.base.add(u);
+        r.reindex();
+        return r;
+    }
+
+    public int size() { return all.size(); }
+    public Unit get(int i) { return all.get(i); }
+    public List<Unit> units() { return Collections.unmodifiableList(all); }
+
+    /** Index of the unit with this label (case and spacing ignored); -1 if none. */
+    public int indexOfLabel(String label) {
+        Integer i = label == null ? null : byLabel.get(normalize(label));
+        return i == null ? -1 : i;
+    }
+
+    /** Index of the first unit measured in `canonical` ("cup" finds "1 cup chopped"); -1 if none. */
+    public int indexOfMeasure(String canonical) {
+        Integer i = canonical == null ? null : byMeasure.get(canonical);
+        return i == null ? -1 : i;
+    }
+
+    /** The "serving" unit: an exact "serving" label, else any serving measure; -1 if none. */
+    public int servingIndex() {
+        int i = indexOfLabel("serving");
+        return i >= 0 ? i : indexOfMeasure("serving");
+    }
+
+    /** g per ml from the food's own volume measures; NaN when it has none. */
+    public double density() { return density; }
+
+    /**
+     * Grams in one `canonical` unit for this food: fixed for mass, from the food's measure for
+     * household units, through the density for volume; 0 when it can't be converted.
+     */
+    public double gramsPer(String canonical) {
+        if (canonical == null) return 0;
+        double g = massGrams(canonical);
+        if (g > 0) return g;
+        Double own = gramsPerMeasure.get(canonical);
+        if (own != null) return own;
+        double ml = volumeMl(canonical);
+        return (ml > 0 && !Double.isNaN(density)) ? ml * density : 0;
+    }
+
+    /** Grams in one of the first household measure (not g/oz or a derived volume unit); 0 if none. */
+    public double firstHouseholdGrams() {
+        for (Unit u : base) {
+            Parsed p = parse(u.label);
+            if (u.gramsPerUnit <= 0 || (p.measure != null && massGrams(p.measure) > 0)) continue;
+            return u.gramsPerUnit / p.amount;
+        }
+        return 0;
+    }
+
+    /** Make sure a "serving" unit exists (first, 0 g if unknown); grams > 0 also updates an existing one. */
+    public void putServing(double grams) {
+        int idx = servingIndex();
+        if (idx < 0) {
+            base.add(0, Unit.of("serving", Math.max(0, grams)));
+        } else if (grams > 0) {
+            base.set(idx, Unit.of(base.get(idx).label, grams)); // keep label, take the API's weight
+        } else {
+            return;
+        }
+        reindex();
+    }
+
+    /** Add units whose labels aren't here yet; true if any were added. */
+    public boolean addAll(List<Unit> more) {
+        if (more == null) return false;
+        HashSet<String> have = new HashSet<>();
+        for (Unit u : base) have.add(normalize(u.label)); // derived volume units give way to real measures
+        boolean added = false;
+        for (Unit u : more) {
+            if (u == null || u.label == null || u.gramsPerUnit <= 0 || !have.add(normalize(u.label))) continue;
+            base.add(u);
+            added = true;
+        }
+        if (added) reindex();
+        return added;
+    }
+
+    /* ==============================  internals  ============================== */
+
+    private static final class Parsed {
+        double amount = 1;
+        String measure; // canonical, or null
+    }
+
+    private void reindex() {
+        byLabel.clear();
+        byMeasure.clear();
+        gramsPerMeasure.clear();
+        density = Double.NaN;
+        all.clear();
+        all.addAll(base);
+
+        for (int i = 0; i < base.size(); i++) index(i, base.get(i));
+
+        // Volume units the food doesn't list itself, through its density
+        if (!Double.isNaN(density)) {
+            for (int d = 0; d < DERIVED.length; d++) {
+                if (byMeasure.containsKey(DERIVED[d]) || byLabel.containsKey(DERIVED_LABELS[d])) continue;
+                Unit u = Unit.of(DERIVED_LABELS[d], VOLUME_ML.get(DERIVED[d]) * density);
+                all.add(u);
+                index(all.size() - 1, u);
+            }
+        }
+    }
+
+    private void index(int i, Unit u) {
+        String norm = normalize(u.label);
+        if (!byLabel.containsKey(norm)) byLabel.put(norm, i);
+        Parsed p = parse(u.label);
+        if (p.measure == null || u.gramsPerUnit <= 0) return;
+        if (byMeasure.containsKey(p.measure)) return;
+        byMeasure.put(p.measure, i);
+        double perOne = u.gramsPerUnit / p.amount;
+        if (massGrams(p.measure) == 0) gramsPerMeasure.put(p.measure, perOne);
+        double ml = volumeMl(p.measure);
+        if (ml > 0 && Double.isNaN(density)) density = perOne / ml;
+    }
+
+    static String normalize(String label) {
+        return label == null ? "" : label.trim().toLowerCase(Locale.US).replaceAll("[\\s,]+", " ");
+    }
+
+    // "1 cup, chopped" -> 1 x cup; "0.5 cup" -> 0.5 x cup; "large (50g)" -> 1 x large;
+    // "1 fl oz", "1 fl. oz", "1 fluid ounce", "1 floz" -> floz
+    private static Parsed parse(String label) {
+        Parsed p = new Parsed();
+        String[] words = normalize(label).split("[\\s()]+");
+        int start = 0;
+        if (words.length > 0) {
+            double a = amount(words[0]);
+            if (a > 0) { p.amount = a; start = 1; }
+        }
+        for (int i = start; i < words.length; i++) {
+            String w = words[i];
+            boolean fluid = w.equals("fl") || w.equals("fl.") || w.equals("fluid");
+            if (fluid && i + 1 < words.length && "oz".equals(canonical(words[i + 1]))) {
+                p.measure = "floz";
+                return p;
+            }
+            String c = canonical(w);
+            if (c != null) { p.measure = c; return p; }
+        }
+        return p;
+    }
+
+    private static double amount(String w) {
+        try {
+            int slash = w.indexOf('/');
+            double v = slash > 0
+                    ? Double.parseDouble(w.substring(0, slash)) / Double.parseDouble(w.substring(slash + 1))
+                    : Double.parseDouble(w);
+            return Double.isInfinite(v) || Double.isNaN(v) ? 0 : v;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.TDavis.foodie_macrotracker.net;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Pull-parser over a MessagePack document that looks like a {@link JsonReader} to Gson.
+ * Covers the types the proxy emits (nil, bool, int, float, str, array, map with string keys).
+ * Map keys are only ever read as names, so Map-typed model fields are not supported.
+ */
+public final class MsgPackReader extends JsonReader {
+
+    private final byte[] buf;
+    private int pos;
+
+    // Open containers: values left to read (a map counts key and value separately)
+    private int[] remaining = new int[16];
+    private boolean[] isMap = new boolean[16];
+    private int depth;
+    private boolean done;
+
+    // Last number read
+    private long numLong;
+    private double numDouble;
+    private boolean numIsLong;
+
+    public MsgPackReader(byte[] buf) {
+        super(new StringReader(""));
+        this.buf = buf;
+    }
+
+    @Override
+    public JsonToken peek() throws IOException {
+        if (depth > 0) {
+            int d = depth - 1;
+            if (remaining[d] == 0) return isMap[d] ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+            if (isMap[d] && (remaining[d] & 1) == 0) return JsonToken.NAME;
+        } else if (done) {
+            return JsonToken.END_DOCUMENT;
+        }
+        int b = at(pos);
+        if (b <= 0x7f || b >= 0xe0) return JsonToken.NUMBER;
+        if (b <= 0x8f || b == 0xde || b == 0xdf) return JsonToken.BEGIN_OBJECT;
+        if (b <= 0x9f || b == 0xdc || b == 0xdd) return JsonToken.BEGIN_ARRAY;
+        if (b <= 0xbf || (b >= 0xd9 && b <= 0xdb)) return JsonToken.STRING;
+        if (b == 0xc0) return JsonToken.NULL;
+        if (b == 0xc2 || b == 0xc3) return JsonToken.BOOLEAN;
+        if (b >= 0xca && b <= 0xd3) return JsonToken.NUMBER;
+        throw new IOException("Unsupported MessagePack type 0x" + Integer.toHexString(b) + " at byte " + pos);
+    }
+
+    @Override public boolean hasNext() throws IOException {
+        JsonToken t = peek();
+        return t != JsonToken.END_OBJECT && t != JsonToken.END_ARRAY && t != JsonToken.END_DOCUMENT;
+    }
+
+    @Override public void beginObject() throws IOException {
+        expect(JsonToken.BEGIN_OBJECT);
+        int b = at(pos++);
+        int n = b == 0xde ? u16() : b == 0xdf ? u32() : b & 0x0f;
+        consumed();
+        push(true, 2 * n);
+    }
+
+    @Override public void endObject() throws IOException {
+        expect(JsonToken.END_OBJECT);
+        depth--;
+    }
+
+    @Override public void beginArray() throws IOException {
+        expect(JsonToken.BEGIN_ARRAY);
+        int b = at(pos++);
+        int n = b == 0xdc ? u16() : b == 0xdd ? u32() : b & 0x0f;
+        consumed();
+        push(false, n);
+    }
+
+    @Override public void endArray() throws IOException {
+        expect(JsonToken.END_ARRAY);
+        depth--;
+    }
+
+    @Override public String nextName() throws IOException {
+        expect(JsonToken.NAME);
+        remaining[depth - 1]--;
+        return readString();
+    }
+
+    @Override public String nextString() throws IOException {
+        JsonToken t = peek();
+        String s;
+        if (t == JsonToken.STRING) s = readString();
+        else if (t == JsonToken.NUMBER) { readNumber(); s = numIsLong ? Long.toString(numLong) : Double.toString(numDouble); }
+        else throw unexpected(JsonToken.STRING, t);
+        consumed();
+        return s;
+    }
+
+    @Override public boolean nextBoolean() throws IOException {
+        expect(JsonToken.BOOLEAN);
+        boolean v = at(pos++) == 0xc3;
+        consumed();
+        return v;
+    }
+
+    @Override public void nextNull() throws IOException {
+        expect(JsonToken.NULL);
+        pos++;
+        consumed();
+    }
+
+    @Override public double nextDouble() throws IOException {
+        JsonToken t = peek();
+        double v;
+        if (t == JsonToken.NUMBER) { readNumber(); v = numIsLong ? numLong : numDouble; }
+        else if (t == JsonToken.STRING) v = Double.parseDouble(readString());
+        else throw unexpected(JsonToken.NUMBER, t);
+        consumed();
+        return v;
+    }
+
+    @Override public long nextLong() throws IOException {
+        JsonToken t = peek();
+        long v;
+        if (t == JsonToken.NUMBER) {
+            readNumber();
+            if (numIsLong) v = numLong;
+            else if (numDouble == (long) numDouble) v = (long) numDouble;
+            else throw new NumberFormatException("Expected a long but was " + numDouble + " at byte " + pos);
+        } else if (t == JsonToken.STRING) {
+            v = Long.parseLong(readString());
+        } else {
+            throw unexpected(JsonToken.NUMBER, t);
+        }
+        consumed();
+        return v;
+    }
+
+    @Override public int nextInt() throws IOException {
+        int start = pos;
+        long v = nextLong();
+        if (v != (int) v) throw new NumberFormatException("Expected an int but was " + v + " at byte " + start);
+        return (int) v;
+    }
+
+    @Override public void skipValue() throws IOException {
+        JsonToken t = peek();
+        if (t == JsonToken.NAME) { nextName(); return; }
+        if (t == JsonToken.END_OBJECT || t == JsonToken.END_ARRAY || t == JsonToken.END_DOCUMENT) {
+            throw new IllegalStateException("Nothing to skip at byte " + pos);
+        }
+        skipRaw();
+        consumed();
+    }
+
+    @Override public String getPath() { return "$ (MessagePack byte " + pos + ")"; }
+
+    @Override public String toString() { return "MsgPackReader at byte " + pos; }
+
+    @Override public void close() { done = true; depth = 0; }
+
+    /* ---------- internals ---------- */
+
+    private void consumed() {
+        if (depth == 0) done = true; else remaining[depth - 1]--;
+    }
+
+    private void push(boolean map, int n) {
+        if (depth == remaining.length) {
+            remaining = java.util.Arrays.copyOf(remaining, depth * 2);
+            isMap = java.util.Arrays.copyOf(isMap, depth * 2);
+        }
+        isMap[depth] = map;
+        remaining[depth++] = n;
+    }
+
+    private void expect(JsonToken want) throws IOException {
+        JsonToken t = peek();
+        if (t != want) throw unexpected(want, t);
+    }
+
+    private IllegalStateException unexpected(JsonToken want, JsonToken got) {
+        return new IllegalStateException("Expected " + want + " but was " + got + " at byte " + pos);
+    }
+
+    private String readString() throws IOException {
+        int b = at(pos++);
+        int n = b == 0xd9 ? at(pos++) : b == 0xda ? u16() : b == 0xdb ? u32() : b & 0x1f;
+        need(n);
+        String s = new String(buf, pos, n, StandardCharsets.UTF_8);
+        pos += n;
+        return s;
+    }
+
+    private void readNumber() throws IOException {
+        int b = at(pos++);
+        numIsLong = true;
+        if (b <= 0x7f) { numLong = b; return; }
+        if (b >= 0xe0) { numLong = b - 0x100; return; }
+        switch (b) {
+            case 0xcc: numLong = at(pos++); return;
+            case 0xcd: numLong = u16(); return;
+            case 0xce: numLong = u32() & 0xffffffffL; return;
+            case 0xcf: numLong = s64(); return; // uint64 above Long.MAX_VALUE never comes from the proxy
+            case 0xd0: numLong = (byte) at(pos++); return;
+            case 0xd1: numLong = (short) u16(); return;
+            case 0xd2: numLong = u32(); return;
+            case 0xd3: numLong = s64(); return;
+            case 0xca: numIsLong = false; numDouble = Float.intBitsToFloat(u32()); return;
+            case 0xcb: numIsLong = false; numDouble = Double.longBitsToDouble(s64()); return;
+            default: throw new IOException("Not a number at byte " + (pos - 1));
+        }
+    }
+
+    // Skip one complete encoded value (containers included) without decoding it
+    private void skipRaw() throws IOException {
+        int b = at(pos++);
+        int n;
+        if (b <= 0x7f || b >= 0xe0 || b == 0xc0 || b == 0xc2 || b == 0xc3) return;
+        if (b <= 0x8f) { skipN(2 * (b & 0x0f)); return; }
+        if (b <= 0x9f) { skipN(b & 0x0f); return; }
+        if (b <= 0xbf) { n = b & 0x1f; need(n); pos += n; return; }
+        switch (b) {
+            case 0xcc: case 0xd0: pos += 1; return;
+            case 0xcd: case 0xd1: pos += 2; return;
+            case 0xce: case 0xd2: case 0xca: pos += 4; return;
+            case 0xcf: case 0xd3: case 0xcb: pos += 8; return;
+            case 0xd9: n = at(pos++); break;
+            case 0xda: n = u16(); break;
+            case 0xdb: n = u32(); break;
+            case 0xdc: skipN(u16()); return;
+            case 0xdd: skipN(u32()); return;
+            case 0xde: skipN(2 * u16()); return;
+            case 0xdf: skipN(2 * u32()); return;
+            default: throw new IOException("Unsupported MessagePack type 0x" + Integer.toHexString(b) + " at byte " + (pos - 1));
+        }
+        need(n);
+        pos += n;
+    }
+
+    private void skipN(int n) throws IOException {
+        for (int i = 0; i < n; i++) skipRaw();
+    }
+
+    private int at(int i) throws IOException {
+        if (i >= buf.length) throw new IOException("Truncated MessagePack body");
+        return buf[i] & 0xff;
+    }
+
+    private void need(int n) throws IOException {
+        if (n < 0 || pos + n > buf.length) throw new IOException("Truncated MessagePack body");
+    }
+
+    private int u16() throws IOException {
+        need(2);
+        int v = ((buf[pos] & 0xff) << 8) | (buf[pos + 1] & 0xff);
+        pos += 2;
+        return v;
+    }
+
+    private int u32() throws IOException {
+        need(4);
+        int v = ((buf[pos] & 0xff) << 24) | ((buf[pos + 1] & 0xff) << 16) | ((buf[pos + 2] & 0xff) << 8) | (buf[pos + 3] & 0xff);
+        pos += 4;
+        return v;
+    }
+
+    private long s64() throws IOException {
+        long hi = u32() & 0xffffffffL;
+        return (hi << 32) | (u32() & 0xffffffffL);
+    }
+}
@@ -0,0 +1,95 @@
+package com.TDavis.foodie_macrotracker;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DaySectionsTest {
+
+    @Test
+    public void sectionsInMealOrderEmptyOnesIncluded() {
+        DaySections d = DaySections.of(Arrays.asList(entry("Toast", "Dinner", 100, 1)));
+        List<DaySections.Section> s = d.sections();
+        assertEquals(DaySections.ORDER.size(), s.size());
+        for (int i = 0; i < s.size(); i++) assertEquals(DaySections.ORDER.get(i), s.get(i).name);
+        assertTrue(s.get(0).entries.isEmpty());
+        assertEquals(1, s.get(2).entries.size());
+    }
+
+    @Test
+    public void newestFirstWithinASection() {
+        FoodEntry early = entry("Oatmeal", "Breakfast", 150, 1_000);
+        FoodEntry late = entry("Coffee", "Breakfast", 5, 3_000);
+        FoodEntry middle = entry("Banana", "Breakfast", 90, 2_000);
+        DaySections.Section b = DaySections.of(Arrays.asList(early, late, middle)).get("Breakfast");
+        assertEquals(Arrays.asList(late, middle, early), b.entries);
+    }
+
+    @Test
+    public void batchLoggedTogetherKeepsItsOrder() {
+        // logEntries: createdAt one ms apart, descending
+        ArrayList<FoodEntry> batch = new ArrayList<>();
+        for (int i = 0; i < 4; i++) batch.add(entry("Item " + i, "Lunch", 10, 5_000 - i));
+        ArrayList<FoodEntry> shuffled = new ArrayList<>(Arrays.asList(batch.get(2), batch.get(0), batch.get(3), batch.get(1)));
+        assertEquals(batch, DaySections.of(shuffled).get("Lunch").entries);
+    }
+
+    @Test
+    public void missingMealTypeGoesToOther() {
+        FoodEntry none = entry("Gum", null, 5, 1);
+        FoodEntry blank = entry("Mints", "  ", 10, 2);
+        DaySections d = DaySections.of(Arrays.asList(none, blank));
+        assertEquals(Arrays.asList(blank, none), d.get("Other").entries);
+        assertEquals(15, d.get("Other").totals.calories);
+    }
+
+    @Test
+    public void unknownMealTypeHasItsOwnSectionAndCountsInTheDay() {
+        DaySections d = DaySections.of(Arrays.asList(entry("Shake", "Pre-workout", 200, 1), entry("Egg", "Breakfast", 70, 2)));
+        assertNotNull(d.get("Pre-workout"));
+        for (DaySections.Section s : d.sections()) assertNotEquals("Pre-workout", s.name);
+        assertEquals(270, d.total().calories);
+        assertNull(d.get("Brunch"));
+    }
+
+    @Test
+    public void totalsPerSectionAndDay() {
+        List<FoodEntry> day = new HistoryGenerator(3).entriesPerDay(20, 20).skippedDays(0).day(LocalDate.of(2025, 5, 5));
+        DaySections d = DaySections.of(day);
+        DaySections.Totals all = DaySections.Totals.of(day);
+        int calories = 0, protein = 0, count = 0;
+        for (DaySections.Section s : d.sections()) {
+            DaySections.Totals t = DaySections.Totals.of(s.entries);
+            assertEquals(t.calories, s.totals.calories);
+            assertEquals(t.fat, s.totals.fat);
+            calories += s.totals.calories;
+            protein += s.totals.protein;
+            count += s.entries.size();
+            for (int i = 1; i < s.entries.size(); i++) {
+                assertTrue(s.entries.get(i - 1).createdAt >= s.entries.get(i).createdAt);
+            }
+        }
+        assertEquals(day.size(), count);
+        assertEquals(all.calories, calories);
+        assertEquals(all.protein, protein);
+        assertEquals(all.carbs, d.total().carbs);
+    }
+
+    @Test
+    public void noEntries() {
+        DaySections d = DaySections.of(null);
+        assertEquals(0, d.total().calories);
+        for (DaySections.Section s : d.sections()) assertTrue(s.entries.isEmpty());
+    }
+
+    private static FoodEntry entry(String name, String meal, int calories, long createdAt) {
+        FoodEntry e = new FoodEntry(name, calories, 1, 2, 3, "2025-05-05", meal);
+        e.createdAt = createdAt;
+        return e;
+    }
+}
@@ -0,0 +1,147 @@
+package com.TDavis.foodie_macrotracker;
+
+import com.TDavis.foodie_macrotracker.FoodModels.FoodSearchResponseV2;
+import com.TDavis.foodie_macrotracker.FoodModels.NormalizedFoodItem;
+import com.TDavis.foodie_macrotracker.FoodModels.Per100g;
+import com.TDavis.foodie_macrotracker.FoodModels.PerServing;
+import com.TDavis.foodie_macrotracker.FoodModels.Unit;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Stored JSON must survive the switch from reflective Gson to the streaming adapters: what the old
+ * models wrote decodes with {@link GsonProvider} and re-encodes to the identical string.
+ */
+public class GsonProviderTest {
+
+    /** The models as they were before the adapters, written by plain reflective Gson. */
+    static class OldUnit { String label; double gramsPerUnit; }
+    static class OldPer100g { Integer calories; Double protein, carbs, fat; }
+    static class OldPerServing { Integer calories; Double protein, carbs, fat; Double grams; }
+    static class OldServings { OldPer100g per100g; OldPerServing perServing; }
+    static class OldItem {
+        long fdcId;
+        String description;
+        String brandName;
+        String dataType;
+        OldServings servings;
+        ArrayList<OldUnit> units;
+    }
+    static class OldPage { int totalHits; int pageNumber; ArrayList<OldItem> items; }
+
+    private final Gson reflective = new Gson();
+    private final Gson gson = GsonProvider.get();
+
+    private <T> void assertRoundTrip(Object old, Class<T> type) {
+        String json = reflective.toJson(old);
+        assertEquals(json, gson.toJson(gson.fromJson(json, type)));
+    }
+
+    @Test
+    public void unit() {
+        assertRoundTrip(unit("1 cup, chopped", 91.0), Unit.class);
+        assertRoundTrip(unit("gram (g)", 1.0), Unit.class);     // shared GRAM instance
+        assertRoundTrip(unit("ounce (oz)", 28.3495), Unit.class);
+        assertRoundTrip(unit(null, 0), Unit.class);              // label absent
+        assertSame(Unit.GRAM, gson.fromJson(reflective.toJson(unit("gram (g)", 1.0)), Unit.class));
+    }
+
+    @Test
+    public void macrosWithEveryField() {
+        assertRoundTrip(per100g(52, 0.3, 13.8, 0.2), Per100g.class);
+        assertRoundTrip(perServing(180, 7.0, 24.5, 6.0, 40.0), PerServing.class);
+    }
+
+    @Test
+    public void macrosWithAbsentFields() {
+        assertRoundTrip(new OldPer100g(), Per100g.class);
+        assertRoundTrip(per100g(null, 1.5, null, 0.0), Per100g.class);
+        assertRoundTrip(per100g(0, null, null, null), Per100g.class);
+        assertRoundTrip(perServing(null, null, 3.0, null, null), PerServing.class);
+        assertRoundTrip(perServing(90, null, null, null, 28.0), PerServing.class);
+
+        Per100g p = gson.fromJson(reflective.toJson(per100g(null, 1.5, null, 0.0)), Per100g.class);
+        assertFalse(p.hasCalories());
+        assertTrue(p.hasProtein());
+        assertFalse(p.hasCarbs());
+        assertTrue(p.hasFat());
+    }
+
+    @Test
+    public void itemsAndPages() {
+        OldItem full = item(171705, "Egg, whole, cooked", null, "SR Legacy");
+        full.servings.per100g = per100g(155, 12.6, 1.1, 10.6);
+        full.units = new ArrayList<>(Arrays.asList(unit("gram (g)", 1.0), unit("1 large", 50.0), unit(null, 0)));
+        assertRoundTrip(full, NormalizedFoodItem.class);
+
+        OldItem branded = item(2_100_000, "Protein bar", "Kind", "Branded");
+        branded.servings.per100g = per100g(null, 20.0, null, null);
+        branded.servings.perServing = perServing(200, 10.0, null, 8.0, 50.0);
+        assertRoundTrip(branded, NormalizedFoodItem.class);
+
+        OldItem bare = new OldItem();   // only the always-written fdcId
+        assertRoundTrip(bare, NormalizedFoodItem.class);
+
+        OldPage page = new OldPage();
+        page.totalHits = 3;
+        page.pageNumber = 1;
+        page.items = new ArrayList<>(Arrays.asList(full, branded, bare));
+        assertRoundTrip(page, FoodSearchResponseV2.class);
+    }
+
+    @Test
+    public void foodEntries() {
+        Type list = new TypeToken<ArrayList<FoodEntry>>(){}.getType();
+        ArrayList<FoodEntry> day = new HistoryGenerator(7).day(LocalDate.of(2025, 6, 1));
+        day.add(new FoodEntry("Unnamed", 0, 0, 0, 0, "2025-06-01", null));
+        String json = reflective.toJson(day, list);
+        assertEquals(json, gson.toJson(gson.fromJson(json, list), list));
+    }
+
+    /* ==============================  builders  ============================== */
+
+    private static OldUnit unit(String label, double grams) {
+        OldUnit u = new OldUnit();
+        u.label = label;
+        u.gramsPerUnit = grams;
+        return u;
+    }
+
+    private static OldPer100g per100g(Integer cal, Double pro, Double carb, Double fat) {
+        OldPer100g p = new OldPer100g();
+        p.calories = cal;
+        p.protein = pro;
+        p.carbs = carb;
+        p.fat = fat;
+        return p;
+    }
+
+    private static OldPerServing perServing(Integer cal, Double pro, Double carb, Double fat, Double grams) {
+        OldPerServing p = new OldPerServing();
+        p.calories = cal;
+        p.protein = pro;
+        p.carbs = carb;
+        p.fat = fat;
+        p.grams = grams;
+        return p;
+    }
+
+    private static OldItem item(long fdcId, String description, String brand, String dataType) {
+        OldItem f = new OldItem();
+        f.fdcId = fdcId;
+        f.description = description;
+        f.brandName = brand;
+        f.dataType = dataType;
+        f.servings = new OldServings();
+        return f;
+    }
+}
@@ -0,0 +1,200 @@
+package com.TDavis.foodie_macrotracker;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * Per-operation cost of the day-to-day history work, measured on generated histories of
+ * 1 month, 1 year and 10 years. Each operation must stay flat or logarithmic: cost at a size may
+ * grow by at most {@link #SLACK} + log2(size ratio) over the 1-month cost (about 10x at 10 years,
+ * where a pass over the history would be about 120x).
+ *
+ * Times are the fastest of several batches, so a busy machine slows a run down without failing it.
+ */
+public class HistoryScalingTest {
+
+    private static final int[] DAYS = {30, 365, 3650};
+    private static final double SLACK = 3;
+    private static final long SEED = 7;
+
+    @ClassRule
+    public static TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final History[] histories = new History[DAYS.length];
+
+    /** One generated history written to a store, plus what the operations start from. */
+    private static final class History {
+        final int days;
+        final HistoryGenerator generator;
+        final HistoryStore store;
+        final String today;
+        final ArrayList<FoodEntry> todayEntries;
+        final String[] pastDates;
+
+        History(int days, File dir) {
+            this.days = days;
+            generator = new HistoryGenerator(SEED).days(days);
+            store = new HistoryStore(dir, Runnable::run);
+            generator.writeTo(store);
+            today = generator.lastDay().toString();
+            todayEntries = store.day(today);
+            pastDates = new String[64];
+            for (int i = 0; i < pastDates.length; i++) pastDates[i] = generator.lastDay().minusDays((i * 7L) % days).toString();
+        }
+    }
+
+    @BeforeClass
+    public static void generate() throws IOException {
+        for (int i = 0; i < DAYS.length; i++) histories[i] = new History(DAYS[i], tmp.newFolder("h" + DAYS[i]));
+    }
+
+    @Test
+    public void generatorIsDeterministic() {
+        HistoryGenerator a = new HistoryGenerator(SEED).years(10);
+        HistoryGenerator b = new HistoryGenerator(SEED).months(1);
+        LocalDate d = a.lastDay().minusDays(3);
+        Gson gson = GsonProvider.get();
+        assertEquals(gson.toJson(a.day(d)), gson.toJson(b.day(d)));
+        assertEquals(gson.toJson(b.generate()), gson.toJson(new HistoryGenerator(SEED).months(1).generate()));
+        assertNotEquals(gson.toJson(b.generate()), gson.toJson(new HistoryGenerator(SEED + 1).months(1).generate()));
+    }
+
+    @Test
+    public void generatorFollowsSettings() {
+        HistoryGenerator g = new HistoryGenerator(SEED).days(200).entriesPerDay(2, 4).skippedDays(0)
+                .mealMix(1, 0, 0, 0, 0).vocabulary(java.util.Arrays.asList("Toast", "Tea"));
+        HashMap<String, ArrayList<FoodEntry>> h = new HashMap<>(g.generate());
+        assertEquals(200, h.size());
+        for (ArrayList<FoodEntry> day : h.values()) {
+            assertTrue(day.size() >= 2 && day.size() <= 4);
+            for (FoodEntry e : day) {
+                assertEquals("Breakfast", e.mealType);
+                assertTrue(e.name.equals("Toast") || e.name.equals("Tea"));
+            }
+        }
+        assertEquals(3653, new HistoryGenerator(SEED).years(10).skippedDays(0).generate().size());
+    }
+
+    /** saveData: today's list with one more entry written back. */
+    @Test
+    public void savingAnEntryIsFlat() {
+        FoodEntry added = new FoodEntry("Banana, raw", 105, 1, 27, 0, null, "Snack");
+        assertScales("save one entry", h -> {
+            ArrayList<FoodEntry> today = new ArrayList<>(h.todayEntries);
+            today.add(added);
+            return () -> h.store.putDay(h.today, today);
+        });
+    }
+
+    /** refreshForDate on a past day. */
+    @Test
+    public void loadingADayIsFlat() {
+        assertScales("load a day", h -> {
+            int[] i = {0};
+            return () -> h.store.day(h.pastDates[i[0]++ & 63]);
+        });
+    }
+
+    /** Previous-day arrow a week back, each day grouped into meal sections. */
+    @Test
+    public void navigatingDaysIsFlat() {
+        assertScales("navigate 7 days", h -> () -> {
+            LocalDate d = LocalDate.parse(h.today);
+            for (int k = 0; k < 7; k++) {
+                d = d.minusDays(1);
+                DaySections.of(h.store.day(d.toString()));
+            }
+        });
+    }
+
+    /** A day's totals, as the header and progress bars show them. */
+    @Test
+    public void dayTotalsAreFlat() {
+        assertScales("day totals", h -> {
+            int[] i = {0};
+            return () -> DaySections.Totals.of(h.store.day(h.pastDates[i[0]++ & 63]));
+        });
+    }
+
+    /** The check above fails on the old saveData, which re-encoded one map of every day. */
+    @Test
+    public void singleMapSaveIsCaught() {
+        Type mapType = new TypeToken<HashMap<String, ArrayList<FoodEntry>>>(){}.getType();
+        Gson gson = GsonProvider.get();
+        long[] costs = costs(h -> {
+            String[] blob = {gson.toJson(h.generator.generate(), mapType)};
+            return () -> {
+                HashMap<String, ArrayList<FoodEntry>> all = gson.fromJson(blob[0], mapType);
+                all.put(h.today, h.todayEntries);
+                blob[0] = gson.toJson(all, mapType);
+            };
+        });
+        assertTrue("single-map save should grow with history: " + describe(costs), exceedsBound(costs));
+    }
+
+    /* ==============================  measuring  ============================== */
+
+    private static void assertScales(String what, Function<History, Runnable> op) {
+        long[] costs = costs(op);
+        assertFalse(what + " grows with history: " + describe(costs), exceedsBound(costs));
+    }
+
+    private static boolean exceedsBound(long[] costs) {
+        for (int i = 1; i < DAYS.length; i++) {
+            double bound = SLACK + Math.log((double) DAYS[i] / DAYS[0]) / Math.log(2);
+            if (costs[i] > costs[0] * bound) return true;
+        }
+        return false;
+    }
+
+    private static long[] costs(Function<History, Runnable> op) {
+        long[] out = new long[DAYS.length];
+        for (int i = 0; i < DAYS.length; i++) out[i] = nanosPerOp(op.apply(histories[i]));
+        return out;
+    }
+
+    // Warm up, then the fastest of several batches of about 5 ms each
+    private static long nanosPerOp(Runnable op) {
+        long warmEnd = System.nanoTime() + 100_000_000L;
+        int warm = 0;
+        while (warm < 200 && (warm < 3 || System.nanoTime() < warmEnd)) { op.run(); warm++; }
+
+        long t = System.nanoTime();
+        op.run();
+        long one = Math.max(1, System.nanoTime() - t);
+        int batch = (int) Math.max(1, Math.min(10_000, 5_000_000L / one));
+
+        long best = Long.MAX_VALUE;
+        for (int b = 0; b < 7; b++) {
+            long start = System.nanoTime();
+            for (int k = 0; k < batch; k++) op.run();
+            best = Math.min(best, (System.nanoTime() - start) / batch);
+        }
+        return Math.max(1, best);
+    }
+
+    private static String describe(long[] costs) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < DAYS.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(DAYS[i]).append(" days ").append(costs[i] / 1000.0).append(" us");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,149 @@
+package com.TDavis.foodie_macrotracker;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HistoryStoreTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File dir;
+
+    @Before
+    public void setUp() {
+        dir = new File(tmp.getRoot(), "history");
+    }
+
+    @Test
+    public void dayRoundTrips() {
+        HistoryStore store = new HistoryStore(dir, Runnable::run);
+        List<FoodEntry> day = new HistoryGenerator(1).day(LocalDate.of(2025, 3, 4));
+        store.putDay("2025-03-04", day);
+
+        ArrayList<FoodEntry> read = new HistoryStore(dir, Runnable::run).day("2025-03-04");
+        assertEquals(day.size(), read.size());
+        for (int i = 0; i < day.size(); i++) {
+            assertEquals(day.get(i).name, read.get(i).name);
+            assertEquals(day.get(i).calories, read.get(i).calories);
+            assertEquals(day.get(i).createdAt, read.get(i).createdAt);
+            assertEquals(day.get(i).mealType, read.get(i).mealType);
+        }
+        assertTrue(store.day("2025-03-05").isEmpty());
+    }
+
+    @Test
+    public void emptyDayIsRemoved() {
+        HistoryStore store = new HistoryStore(dir, Runnable::run);
+        store.putDay("2025-03-04", new HistoryGenerator(1).day(LocalDate.of(2025, 3, 4)));
+        store.putDay("2025-03-04", new ArrayList<>());
+        assertTrue(store.day("2025-03-04").isEmpty());
+        assertEquals(0, store.dates().size());
+        assertFalse(new File(dir, "2025-03-04.json").exists());
+    }
+
+    @Test
+    public void pendingWritesAreVisible() {
+        ArrayDeque<Runnable> queued = new ArrayDeque<>();
+        HistoryStore store = new HistoryStore(dir, queued::add);
+        List<FoodEntry> day = new HistoryGenerator(1).day(LocalDate.of(2025, 3, 4));
+        store.putDay("2025-03-04", day);
+        store.putDay("2025-03-04", day.subList(0, 1));
+
+        assertFalse(new File(dir, "2025-03-04.json").exists());
+        assertEquals(1, store.day("2025-03-04").size());
+        assertEquals(Arrays.asList("2025-03-04"), store.dates());
+
+        while (!queued.isEmpty()) queued.poll().run();
+        assertEquals(1, new HistoryStore(dir, Runnable::run).day("2025-03-04").size());
+    }
+
+    @Test
+    public void importKeepsStoredDays() {
+        HistoryStore store = new HistoryStore(dir, Runnable::run);
+        LinkedHashMap<String, ArrayList<FoodEntry>> legacy = new HistoryGenerator(2).days(10).generate();
+        String kept = legacy.keySet().iterator().next();
+        ArrayList<FoodEntry> newer = new ArrayList<>(legacy.get(kept).subList(0, 1));
+        store.putDay(kept, newer);
+
+        assertTrue(store.importAll(legacy));
+        assertEquals(new ArrayList<>(legacy.keySet()), store.dates());
+        assertEquals(1, store.day(kept).size());
+        assertEquals(legacy.size(), store.all().size());
+    }
+
+    @Test
+    public void importIsOnDiskWhenItReturns() {
+        ArrayDeque<Runnable> queued = new ArrayDeque<>(); // the writer never runs
+        HistoryStore store = new HistoryStore(dir, queued::add);
+        LinkedHashMap<String, ArrayList<FoodEntry>> legacy = new HistoryGenerator(2).days(10).generate();
+
+        assertTrue(store.importAll(legacy));
+        assertTrue(queued.isEmpty());
+        HistoryStore reopened = new HistoryStore(dir, Runnable::run);
+        for (String d : legacy.keySet()) {
+            assertTrue(d, new File(dir, d + ".json").isFile());
+            assertEquals(d, legacy.get(d).size(), reopened.day(d).size());
+        }
+    }
+
+    @Test
+    public void failedImportReportsItAndCanBeRetried() throws Exception {
+        LinkedHashMap<String, ArrayList<FoodEntry>> legacy = new HistoryGenerator(2).days(5).generate();
+        assertTrue(dir.getParentFile().isDirectory());
+        assertTrue(dir.createNewFile()); // a file where the directory should be: every write fails
+        assertFalse(new HistoryStore(dir, Runnable::run).importAll(legacy));
+
+        assertTrue(dir.delete());
+        HistoryStore store = new HistoryStore(dir, Runnable::run);
+        assertTrue(store.importAll(legacy));
+        assertEquals(legacy.size(), store.dates().size());
+    }
+
+    @Test
+    public void rolloverWritesTheFinishedDayBeforeItIsCleared() {
+        // MainActivity.loadData on a new day: yesterday's last save never reached its file
+        ArrayDeque<Runnable> queued = new ArrayDeque<>(); // the background write was lost with the process
+        HistoryStore before = new HistoryStore(dir, queued::add);
+        List<FoodEntry> yesterday = new HistoryGenerator(4).day(LocalDate.of(2025, 3, 4));
+        before.putDay("2025-03-04", yesterday.subList(0, 1));
+        before.putDay("2025-03-04", yesterday);
+        assertFalse(new File(dir, "2025-03-04.json").exists());
+
+        HistoryStore after = new HistoryStore(dir, queued::add); // next launch; the writer never runs
+        assertTrue(after.putDayNow("2025-03-04", yesterday));
+        after.putDay("2025-03-05", new ArrayList<>());     // today's cleared entries
+        assertEquals(yesterday.size(), new HistoryStore(dir, Runnable::run).day("2025-03-04").size());
+    }
+
+    @Test
+    public void failedWriteIsRetriedWithTheNextOne() throws Exception {
+        assertTrue(dir.createNewFile()); // a file where the directory should be: writes fail
+        HistoryStore store = new HistoryStore(dir, Runnable::run);
+        List<FoodEntry> day = new HistoryGenerator(4).day(LocalDate.of(2025, 3, 4));
+        assertFalse(store.putDayNow("2025-03-04", day));
+        assertEquals(day.size(), store.day("2025-03-04").size()); // still pending, still readable
+
+        assertTrue(dir.delete());
+        store.putDay("2025-03-05", day.subList(0, 1));
+        assertTrue(new File(dir, "2025-03-04.json").isFile());
+        assertTrue(new File(dir, "2025-03-05.json").isFile());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonDates() {
+        new HistoryStore(dir, Runnable::run).day("../prefs");
+    }
+}
@@ -0,0 +1,103 @@
+package com.TDavis.foodie_macrotracker;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MealParserTest {
+
+    @Test
+    public void commaSeparatedNamesAreOneFood() {
+        for (String q : new String[]{"Rice, white, cooked", "Chicken breast, roasted", "Milk, 2%",
+                "Egg, whole, cooked", "Ground beef, 90% lean", "mac and cheese", "Beans, canned and drained"}) {
+            assertFalse(q, MealParser.isMeal(MealParser.parse(q)));
+        }
+    }
+
+    @Test
+    public void oneQuantifiedItemIsNotAMeal() {
+        assertFalse(MealParser.isMeal(MealParser.parse("2 eggs")));
+        assertFalse(MealParser.isMeal(MealParser.parse("1 cup rice, white, cooked")));
+        assertFalse(MealParser.isMeal(MealParser.parse("Milk, 1% fat")));
+    }
+
+    @Test
+    public void quantifiedItemsAreAMeal() {
+        assertTrue(MealParser.isMeal(MealParser.parse("2 eggs, 1 cup rice")));
+        assertTrue(MealParser.isMeal(MealParser.parse("150 g chicken breast + a banana")));
+        assertTrue(MealParser.isMeal(MealParser.parse("rice and 2 eggs and half a cup of milk")));
+        assertTrue(MealParser.isMeal(MealParser.parse("1 slice toast\n2 tbsp peanut butter")));
+    }
+
+    @Test
+    public void itemsKeepQuantityUnitAndFood() {
+        List<MealParser.Item> meal = MealParser.parse("2 eggs, 1 1/2 cups rice; 150 g of chicken breast, an apple");
+        assertEquals(4, meal.size());
+        assertItem(meal.get(0), 2, null, "eggs");
+        assertItem(meal.get(1), 1.5, "cup", "rice");
+        assertItem(meal.get(2), 150, "g", "chicken breast");
+        assertItem(meal.get(3), 1, null, "apple");
+        assertEquals("1 1/2 cups", meal.get(1).amount);
+    }
+
+    @Test
+    public void quantitiesInEveryForm() {
+        assertEquals(1.5, MealParser.parse("1,5 cups milk").get(0).quantity, 1e-9);
+        assertEquals(0.5, MealParser.parse("½ cup oats").get(0).quantity, 1e-9);
+        assertEquals(2.5, MealParser.parse("2½ tbsp butter").get(0).quantity, 1e-9);
+        assertEquals(12, MealParser.parse("a dozen eggs").get(0).quantity, 1e-9);
+        assertEquals(0.5, MealParser.parse("half a cup rice").get(0).quantity, 1e-9);
+        assertEquals(3, MealParser.parse("three slices bread").get(0).quantity, 1e-9);
+    }
+
+    @Test
+    public void unquantifiedItemsAssumeOne() {
+        MealParser.Item it = MealParser.parse("large fries").get(0);
+        assertFalse(it.hasQty);
+        assertEquals(1, it.quantity, 0);
+        assertNull(it.unit);
+        assertEquals("large fries", it.food);
+        assertEquals("", it.amount);
+    }
+
+    @Test
+    public void fluidOunces() {
+        for (String q : new String[]{"8 fl oz orange juice", "8 floz orange juice", "8 fl. oz orange juice",
+                "8 FL OZ orange juice", "8 fl.oz orange juice", "8 fluid ounces orange juice", "8fl oz orange juice"}) {
+            assertItem(MealParser.parse(q).get(0), 8, "floz", "orange juice");
+        }
+        assertItem(MealParser.parse("2 oz cheddar").get(0), 2, "oz", "cheddar");
+        assertItem(MealParser.parse("1 flan").get(0), 1, null, "flan");
+        assertTrue(MealParser.isMeal(MealParser.parse("12 fl oz cola, 1 slice pizza")));
+    }
+
+    @Test
+    public void unitNeedsAFoodAfterIt() {
+        assertItem(MealParser.parse("2 cups").get(0), 2, null, "cups");
+    }
+
+    @Test
+    public void blankPartsAreSkipped() {
+        assertEquals(2, MealParser.parse(" 2 eggs ,, ; 1 toast ").size());
+        assertTrue(MealParser.parse(null).isEmpty());
+        assertTrue(MealParser.parse(" , ").isEmpty());
+    }
+
+    @Test
+    public void singular() {
+        assertEquals("egg", MealParser.singular("eggs"));
+        assertEquals("tomato", MealParser.singular("tomatoes"));
+        assertEquals("blueberry", MealParser.singular("blueberries"));
+        assertEquals("peach", MealParser.singular("peaches"));
+        assertEquals("hummus", MealParser.singular("hummus"));
+        assertEquals("swiss cheese", MealParser.singular("swiss cheese"));
+    }
+
+    private static void assertItem(MealParser.Item it, double qty, String unit, String food) {
+        assertEquals(qty, it.quantity, 1e-9);
+        assertEquals(unit, it.unit);
+        assertEquals(food, it.food);
+    }
+}
@@ -0,0 +1,99 @@
+package com.TDavis.foodie_macrotracker;
+
+import com.TDavis.foodie_macrotracker.FoodModels.Unit;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class UnitRegistryTest {
+
+    private static final double CUP_ML = 236.588, FLOZ_ML = 29.5735;
+
+    @Test
+    public void canonicalSpellings() {
+        assertEquals("g", UnitRegistry.canonical("Grams"));
+        assertEquals("cup", UnitRegistry.canonical("cups"));
+        assertEquals("tbsp", UnitRegistry.canonical("Tablespoon"));
+        assertEquals("floz", UnitRegistry.canonical("floz"));
+        assertEquals("floz", UnitRegistry.canonical("fl.oz"));
+        assertNull(UnitRegistry.canonical("fries"));
+        assertNull(UnitRegistry.canonical(null));
+    }
+
+    @Test
+    public void massUnitsAreFixed() {
+        UnitRegistry r = UnitRegistry.of(Arrays.asList(Unit.GRAM, Unit.of("1 large", 50)));
+        assertEquals(1, r.gramsPer("g"), 0);
+        assertEquals(1000, r.gramsPer("kg"), 0);
+        assertEquals(28.3495, r.gramsPer("oz"), 0);
+        assertEquals(453.592, r.gramsPer("lb"), 0);
+        assertEquals(50, r.gramsPer("large"), 1e-9);
+        assertTrue(Double.isNaN(r.density()));
+        assertEquals(0, r.gramsPer("cup"), 0); // no volume measure: no density
+    }
+
+    @Test
+    public void densityFromTheFirstVolumeMeasure() {
+        UnitRegistry r = UnitRegistry.of(Arrays.asList(Unit.GRAM, Unit.of("1 cup, chopped", 160), Unit.of("1 tbsp", 30)));
+        double density = 160 / CUP_ML;
+        assertEquals(density, r.density(), 1e-12);
+        assertEquals(160, r.gramsPer("cup"), 1e-9);
+        assertEquals(30, r.gramsPer("tbsp"), 1e-9);              // the food's own measure wins
+        assertEquals(4.92892 * density, r.gramsPer("tsp"), 1e-9); // through the density
+        assertEquals(density, r.gramsPer("ml"), 1e-12);
+        assertEquals(1000 * density, r.gramsPer("l"), 1e-9);
+        assertEquals(FLOZ_ML * density, r.gramsPer("floz"), 1e-9);
+    }
+
+    @Test
+    public void fluidOunceLabels() {
+        for (String label : new String[]{"1 fl oz", "1 FL OZ", "1 fl. oz", "1 fluid ounce", "1 floz", "1 fl.oz"}) {
+            UnitRegistry r = UnitRegistry.of(Arrays.asList(Unit.GRAM, Unit.of(label, 31)));
+            assertEquals(label, -1, r.indexOfMeasure("oz")); // not the mass ounce
+            assertEquals(label, 1, r.indexOfMeasure("floz"));
+            assertEquals(label, 31 / FLOZ_ML, r.density(), 1e-12);
+            assertEquals(label, 31 * CUP_ML / FLOZ_ML, r.gramsPer("cup"), 1e-9);
+        }
+    }
+
+    @Test
+    public void fractionalAmountsScaleTheMeasure() {
+        UnitRegistry r = UnitRegistry.of(Arrays.asList(Unit.of("0.5 cup", 120), Unit.of("2 slices", 60)));
+        assertEquals(240, r.gramsPer("cup"), 1e-9);
+        assertEquals(30, r.gramsPer("slice"), 1e-9);
+        assertEquals(240 / CUP_ML, r.density(), 1e-12);
+        assertEquals(120, UnitRegistry.of(Arrays.asList(Unit.of("1/4 cup", 30))).gramsPer("cup"), 1e-9);
+    }
+
+    @Test
+    public void derivedVolumeUnitsAreAdded() {
+        UnitRegistry r = UnitRegistry.of(Arrays.asList(Unit.GRAM, Unit.of("1 tbsp", 15)));
+        assertTrue(r.indexOfLabel("cup") >= 0);
+        assertTrue(r.indexOfLabel("milliliter (ml)") >= 0);
+        assertTrue(r.indexOfLabel("teaspoon (tsp)") >= 0);
+        assertEquals(-1, r.indexOfLabel("tablespoon (tbsp)")); // the food has its own
+        assertEquals(15 * CUP_ML / 14.7868, r.get(r.indexOfLabel("cup")).gramsPerUnit, 1e-9);
+
+        UnitRegistry none = UnitRegistry.of(Arrays.asList(Unit.GRAM, Unit.of("1 slice", 25)));
+        assertEquals(2, none.size());
+    }
+
+    @Test
+    public void servingAndLookups() {
+        UnitRegistry r = UnitRegistry.of(Arrays.asList(Unit.GRAM, Unit.OUNCE, Unit.of("1 Medium", 118)));
+        assertEquals(2, r.indexOfLabel(" 1  medium "));
+        assertEquals(118, r.firstHouseholdGrams(), 1e-9);
+        assertEquals(-1, r.servingIndex());
+        r.putServing(40);
+        assertEquals(0, r.servingIndex());
+        assertEquals(40, r.gramsPer("serving"), 1e-9);
+        r.putServing(55);
+        assertEquals(55, r.get(r.servingIndex()).gramsPerUnit, 1e-9);
+        assertFalse(r.addAll(Arrays.asList(Unit.of("1 medium", 100))));
+        assertTrue(r.addAll(Arrays.asList(Unit.of("1 large", 136))));
+        assertEquals(136, r.gramsPer("large"), 1e-9);
+    }
+}
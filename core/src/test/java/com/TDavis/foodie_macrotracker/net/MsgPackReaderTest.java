@@ -0,0 +1,133 @@
+package com.TDavis.foodie_macrotracker.net;
+
+import com.TDavis.foodie_macrotracker.FoodModels.BarcodeBatchResponse;
+import com.TDavis.foodie_macrotracker.FoodModels.FoodDetailResponse;
+import com.TDavis.foodie_macrotracker.FoodModels.FoodSearchResponseV2;
+import com.TDavis.foodie_macrotracker.FoodModels.HealthResponse;
+import com.TDavis.foodie_macrotracker.GsonProvider;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonToken;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fixtures are the proxy's own encodings (server/foodie-usda-proxy/scripts/msgpack-fixtures.js):
+ * each payload as JSON and as MessagePack, which must decode to the same document.
+ */
+public class MsgPackReaderTest {
+
+    private final Gson gson = GsonProvider.get();
+
+    @Test
+    public void everyEncodingMatchesJson() throws IOException {
+        for (String name : new String[]{"scalars", "search-page", "detail", "barcodes", "health"}) {
+            JsonElement json = JsonParser.parseString(new String(fixture(name + ".json"), StandardCharsets.UTF_8));
+            MsgPackReader in = new MsgPackReader(fixture(name + ".msgpack"));
+            assertEquals(name, json, JsonParser.parseReader(in));
+            assertEquals(name, JsonToken.END_DOCUMENT, in.peek());
+        }
+    }
+
+    @Test
+    public void modelsDecodeAsFromJson() throws IOException {
+        assertSameModel("search-page", FoodSearchResponseV2.class);
+        assertSameModel("detail", FoodDetailResponse.class);
+        assertSameModel("barcodes", BarcodeBatchResponse.class);
+        assertSameModel("health", HealthResponse.class);
+
+        FoodSearchResponseV2 page = gson.fromJson(new MsgPackReader(fixture("search-page.msgpack")), FoodSearchResponseV2.class);
+        assertEquals(Math.min(25, page.totalHits), page.items.size()); // more than 15: array16 header
+        BarcodeBatchResponse batch = gson.fromJson(new MsgPackReader(fixture("barcodes.msgpack")), BarcodeBatchResponse.class);
+        assertEquals(236.588, batch.results.get(0).item.servings.perServing.grams(), 1e-9); // 8 fl oz
+        assertTrue(batch.results.get(1).notFound);
+        assertNull(batch.results.get(1).item);
+        assertEquals("Open Food Facts timed out", batch.results.get(2).error);
+    }
+
+    @Test
+    public void numbers() throws IOException {
+        MsgPackReader in = new MsgPackReader(fixture("scalars.msgpack"));
+        in.beginObject();
+        assertEquals("fixint", in.nextName());
+        assertEquals(5, in.nextInt());
+        assertEquals("zero", in.nextName());
+        assertEquals(0L, in.nextLong());
+        assertEquals("maxFixint", in.nextName());
+        assertEquals(127, in.nextInt());
+        assertEquals("uint32", in.nextName());
+        assertEquals(128, in.nextInt());
+        assertEquals("bigUint32", in.nextName());
+        assertEquals(4_000_000_000L, in.nextLong());
+        assertEquals("negFixint", in.nextName());
+        assertEquals(-7, in.nextInt());
+        assertEquals("minNegFixint", in.nextName());
+        assertEquals(-32, in.nextInt());
+        assertEquals("int32", in.nextName());
+        assertEquals(-1000, in.nextInt());
+        assertEquals("minInt32", in.nextName());
+        assertEquals(Integer.MIN_VALUE, in.nextInt());
+        assertEquals("belowInt32", in.nextName());
+        assertEquals(-3_000_000_000L, in.nextLong());     // float64 holding a whole number
+        assertEquals("aboveUint32", in.nextName());
+        assertEquals(1e15, in.nextDouble(), 0);
+        assertEquals("fraction", in.nextName());
+        assertEquals("0.1", in.nextString());
+        assertEquals("negFraction", in.nextName());
+        try {
+            in.nextLong();
+            fail("fraction read as a long");
+        } catch (NumberFormatException expected) {
+        }
+    }
+
+    @Test
+    public void skipsUnreadValues() throws IOException {
+        MsgPackReader in = new MsgPackReader(fixture("scalars.msgpack"));
+        in.beginObject();
+        String last = null;
+        while (in.hasNext()) {
+            last = in.nextName();
+            if (last.equals("unicode")) assertEquals("Crème brûlée — 🍓", in.nextString());
+            else in.skipValue();
+        }
+        in.endObject();
+        assertEquals("nested", last);
+        assertEquals(JsonToken.END_DOCUMENT, in.peek());
+    }
+
+    @Test
+    public void truncatedBodyFails() throws IOException {
+        byte[] full = fixture("detail.msgpack");
+        byte[] cut = java.util.Arrays.copyOf(full, full.length - 3);
+        try {
+            gson.fromJson(new MsgPackReader(cut), FoodDetailResponse.class);
+            fail("truncated body decoded");
+        } catch (RuntimeException expected) { // Gson wraps the IOException
+        }
+    }
+
+    private void assertSameModel(String name, Class<?> type) throws IOException {
+        Object fromJson = gson.fromJson(new String(fixture(name + ".json"), StandardCharsets.UTF_8), type);
+        Object fromMsgPack = gson.fromJson(new MsgPackReader(fixture(name + ".msgpack")), type);
+        assertEquals(name, gson.toJson(fromJson), gson.toJson(fromMsgPack));
+    }
+
+    private static byte[] fixture(String name) throws IOException {
+        try (InputStream in = MsgPackReaderTest.class.getResourceAsStream("/msgpack/" + name)) {
+            assertNotNull("missing fixture " + name, in);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[8192];
+            for (int n; (n = in.read(buf)) != -1; ) out.write(buf, 0, n);
+            return out.toByteArray();
+        }
+    }
+}
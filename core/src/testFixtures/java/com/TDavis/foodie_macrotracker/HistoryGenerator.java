@@ -0,0 +1,160 @@
+package com.TDavis.foodie_macrotracker;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic food logs for tests and benchmarks, as the app stores them (date -> entries).
+ *
+ * Deterministic: a day depends only on the seed, its date and the settings, so the same day has
+ * the same entries whether 1 month or 10 years are generated. Realistic enough for cost
+ * measurements: a few favourite foods make up most entries, meal types follow the configured
+ * mix and times fall in each meal's hours, portions vary, and some days have nothing logged.
+ *
+ * Defaults: 1 year ending 2025-12-31, 3 to 9 entries a day, 5% of days skipped, a typical meal
+ * mix and {@link #DEFAULT_VOCABULARY}.
+ */
+final class HistoryGenerator {
+
+    static final List<String> DEFAULT_VOCABULARY = Collections.unmodifiableList(Arrays.asList(
+            "Egg, whole, cooked", "Oatmeal", "Banana, raw", "Greek yogurt, plain", "Coffee with milk",
+            "Chicken breast, roasted", "Rice, white, cooked", "Broccoli, steamed", "Salmon, baked",
+            "Apple, raw", "Peanut butter", "Whole wheat bread", "Black beans, canned", "Cheddar cheese",
+            "Almonds", "Milk, 2%", "Protein bar", "Pasta, cooked", "Ground beef, 90% lean", "Avocado",
+            "Orange juice", "Turkey sandwich", "Caesar salad", "Pepperoni pizza", "Tortilla chips",
+            "Hummus", "Baby carrots", "Blueberries", "Granola", "Cottage cheese", "Tofu, firm",
+            "Sweet potato, baked", "Quinoa, cooked", "Spinach, raw", "Dark chocolate", "Ice cream, vanilla",
+            "Beef burrito", "Chicken noodle soup", "Bagel with cream cheese", "Trail mix"));
+
+    private static final String[] MEALS = {"Breakfast", "Lunch", "Dinner", "Snack", "Other"};
+    private static final int[][] MEAL_HOURS = {{6, 10}, {11, 14}, {17, 21}, {9, 23}, {0, 24}}; // [from, to)
+
+    private final long seed;
+    private LocalDate end = LocalDate.of(2025, 12, 31);
+    private int days = 365;
+    private int minPerDay = 3, maxPerDay = 9;
+    private double skippedDays = 0.05;
+    private double[] mealMix = {0.22, 0.25, 0.28, 0.22, 0.03};
+    private List<String> vocabulary = DEFAULT_VOCABULARY;
+
+    HistoryGenerator(long seed) { this.seed = seed; }
+
+    HistoryGenerator days(int days) {
+        if (days < 1) throw new IllegalArgumentException("days < 1");
+        this.days = days;
+        return this;
+    }
+
+    HistoryGenerator months(int months) { return days(Math.max(1, Math.round(months * 30.44f))); }
+
+    HistoryGenerator years(int years) { return days(Math.max(1, Math.round(years * 365.25f))); }
+
+    /** Last generated day (inclusive). */
+    HistoryGenerator endingOn(LocalDate end) {
+        this.end = end;
+        return this;
+    }
+
+    HistoryGenerator entriesPerDay(int min, int max) {
+        if (min < 1 || max < min) throw new IllegalArgumentException("entries per day: " + min + ".." + max);
+        this.minPerDay = min;
+        this.maxPerDay = max;
+        return this;
+    }
+
+    /** Share of days with nothing logged, 0 to 1. */
+    HistoryGenerator skippedDays(double share) {
+        if (share < 0 || share >= 1) throw new IllegalArgumentException("skipped share: " + share);
+        this.skippedDays = share;
+        return this;
+    }
+
+    /** Relative weights of Breakfast, Lunch, Dinner, Snack and Other (need not sum to 1). */
+    HistoryGenerator mealMix(double breakfast, double lunch, double dinner, double snack, double other) {
+        double[] mix = {breakfast, lunch, dinner, snack, other};
+        double sum = 0;
+        for (double w : mix) {
+            if (w < 0) throw new IllegalArgumentException("negative meal weight");
+            sum += w;
+        }
+        if (sum <= 0) throw new IllegalArgumentException("meal weights sum to 0");
+        for (int i = 0; i < mix.length; i++) mix[i] /= sum;
+        this.mealMix = mix;
+        return this;
+    }
+
+    /** Food names, most used first: entries favour the start of the list. */
+    HistoryGenerator vocabulary(List<String> names) {
+        if (names == null || names.isEmpty()) throw new IllegalArgumentException("empty vocabulary");
+        this.vocabulary = new ArrayList<>(names);
+        return this;
+    }
+
+    /** Every generated day with entries, oldest first. */
+    LinkedHashMap<String, ArrayList<FoodEntry>> generate() {
+        LinkedHashMap<String, ArrayList<FoodEntry>> out = new LinkedHashMap<>();
+        for (LocalDate d = firstDay(); !d.isAfter(end); d = d.plusDays(1)) {
+            ArrayList<FoodEntry> day = day(d);
+            if (!day.isEmpty()) out.put(d.toString(), day);
+        }
+        return out;
+    }
+
+    /** Write the generated days into `store`, one day at a time (a long history is never all in memory). */
+    void writeTo(HistoryStore store) {
+        for (LocalDate d = firstDay(); !d.isAfter(end); d = d.plusDays(1)) {
+            ArrayList<FoodEntry> day = day(d);
+            if (!day.isEmpty()) store.putDay(d.toString(), day);
+        }
+    }
+
+    /** First generated day. */
+    LocalDate firstDay() { return end.minusDays(days - 1); }
+
+    /** Last generated day (the "today" of the history). */
+    LocalDate lastDay() { return end; }
+
+    /** The entries of one day, in logged order; empty for a skipped day. */
+    ArrayList<FoodEntry> day(LocalDate date) {
+        Random r = new Random(seed * 0x9E3779B97F4A7C15L + date.toEpochDay());
+        ArrayList<FoodEntry> out = new ArrayList<>();
+        if (r.nextDouble() < skippedDays) return out;
+
+        int n = minPerDay + r.nextInt(maxPerDay - minPerDay + 1);
+        long midnight = date.atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+        for (int i = 0; i < n; i++) {
+            int meal = pickMeal(r.nextDouble());
+            int food = (int) (Math.pow(r.nextDouble(), 2.5) * vocabulary.size()); // a few favourites dominate
+            String name = vocabulary.get(food);
+
+            // Per-food base portion (stable across days), scaled by today's portion size
+            Random base = new Random(seed ^ name.hashCode());
+            double portion = 0.5 + r.nextDouble() * 1.5;
+            int cal = (int) Math.round((80 + base.nextInt(520)) * portion);
+            int pro = (int) Math.round(base.nextInt(40) * portion);
+            int car = (int) Math.round(base.nextInt(80) * portion);
+            int fat = (int) Math.round(base.nextInt(30) * portion);
+
+            FoodEntry e = new FoodEntry(name, cal, pro, car, fat, date.toString(), MEALS[meal]);
+            int[] hours = MEAL_HOURS[meal];
+            e.createdAt = midnight + hours[0] * 3_600_000L + (long) (r.nextDouble() * (hours[1] - hours[0]) * 3_600_000L);
+            out.add(e);
+        }
+        Collections.sort(out, (a, b) -> Long.compare(a.createdAt, b.createdAt));
+        return out;
+    }
+
+    private int pickMeal(double u) {
+        for (int i = 0; i < mealMix.length; i++) {
+            u -= mealMix[i];
+            if (u < 0) return i;
+        }
+        return mealMix.length - 1;
+    }
+}
@@ -0,0 +1,126 @@
+// Bytes on the wire and encode/decode time for each response format the proxy can send,
+// measured on stand-in search pages and a detail payload.
+//
+//   npm run bench:wire            # table
+//   npm run bench:wire -- --json  # one JSON object per line, for scripts / CI
+//
+// Decode here is Node's (JSON.parse vs. a straightforward MessagePack reader); the app-side
+// decode path (Gson vs. the streaming MessagePack reader) is measured by the JVM benchmarks.
+
+import zlib from "node:zlib";
+import assert from "node:assert/strict";
+import { encodeMsgPack } from "../src/wire.js";
+import { CATALOG, searchPage } from "./standin-server.js";
+import { normalizeFood } from "../src/normalize.js";
+
+const JSON_OUT = process.argv.includes("--json");
+const ITERATIONS = 300;
+
+/* ======================  Reference MessagePack decoder  ====================== */
+
+function decodeMsgPack(buf) {
+  let pos = 0;
+  const str = (n) => {
+    const s = buf.toString("utf8", pos, pos + n);
+    pos += n;
+    return s;
+  };
+  const arr = (n) => {
+    const a = new Array(n);
+    for (let i = 0; i < n; i++) a[i] = read();
+    return a;
+  };
+  const map = (n) => {
+    const o = {};
+    for (let i = 0; i < n; i++) {
+      const k = read();
+      o[k] = read();
+    }
+    return o;
+  };
+  const read = () => {
+    const b = buf[pos++];
+    if (b < 0x80) return b;
+    if (b >= 0xe0) return b - 0x100;
+    if ((b & 0xf0) === 0x80) return map(b & 0x0f);
+    if ((b & 0xf0) === 0x90) return arr(b & 0x0f);
+    if ((b & 0xe0) === 0xa0) return str(b & 0x1f);
+    let v;
+    switch (b) {
+      case 0xc0: return null;
+      case 0xc2: return false;
+      case 0xc3: return true;
+      case 0xcb: v = buf.readDoubleBE(pos); pos += 8; return v;
+      case 0xce: v = buf.readUInt32BE(pos); pos += 4; return v;
+      case 0xd2: v = buf.readInt32BE(pos); pos += 4; return v;
+      case 0xd9: v = buf[pos++]; return str(v);
+      case 0xda: v = buf.readUInt16BE(pos); pos += 2; return str(v);
+      case 0xdb: v = buf.readUInt32BE(pos); pos += 4; return str(v);
+      case 0xdc: v = buf.readUInt16BE(pos); pos += 2; return arr(v);
+      case 0xdd: v = buf.readUInt32BE(pos); pos += 4; return arr(v);
+      case 0xde: v = buf.readUInt16BE(pos); pos += 2; return map(v);
+      case 0xdf: v = buf.readUInt32BE(pos); pos += 4; return map(v);
+      default: throw new Error(`Unsupported MessagePack byte 0x${b.toString(16)}`);
+    }
+  };
+  return read();
+}
+
+/* ======================  Measurement  ====================== */
+
+function timeUs(fn) {
+  for (let i = 0; i < 20; i++) fn(); // warm up the JIT
+  const t0 = process.hrtime.bigint();
+  for (let i = 0; i < ITERATIONS; i++) fn();
+  return Number(process.hrtime.bigint() - t0) / 1000 / ITERATIONS;
+}
+
+const FORMATS = {
+  json: {
+    encode: (p) => Buffer.from(JSON.stringify(p), "utf8"),
+    decode: (b) => JSON.parse(b.toString("utf8")),
+  },
+  msgpack: { encode: encodeMsgPack, decode: decodeMsgPack },
+};
+const COMPRESSIONS = {
+  identity: { compress: (b) => b, decompress: (b) => b },
+  gzip: { compress: (b) => zlib.gzipSync(b, { level: 6 }), decompress: (b) => zlib.gunzipSync(b) },
+  br: {
+    compress: (b) => zlib.brotliCompressSync(b, { params: { [zlib.constants.BROTLI_PARAM_QUALITY]: 5 } }),
+    decompress: (b) => zlib.brotliDecompressSync(b),
+  },
+};
+
+const payloads = {
+  "search q=chicken size=25": searchPage("chicken", 25, 1),
+  "search q=a size=200": searchPage("a", 200, 1),
+  "detail": { item: normalizeFood(CATALOG.find((f) => f.foodPortions?.length > 1)) },
+};
+
+const rows = [];
+for (const [payloadName, payload] of Object.entries(payloads)) {
+  let baseline = 0;
+  for (const [fmt, { encode, decode }] of Object.entries(FORMATS)) {
+    const raw = encode(payload);
+    assert.deepEqual(decode(raw), JSON.parse(JSON.stringify(payload)), `${fmt} round trip`);
+    for (const [enc, { compress, decompress }] of Object.entries(COMPRESSIONS)) {
+      const wire = compress(raw);
+      if (!baseline) baseline = wire.length; // json + identity is the current path
+      rows.push({
+        payload: payloadName,
+        format: fmt,
+        encoding: enc,
+        bytes: wire.length,
+        vsJson: +(wire.length / baseline).toFixed(3),
+        encodeUs: +timeUs(() => compress(encode(payload))).toFixed(1),
+        decodeUs: +timeUs(() => decode(decompress(wire))).toFixed(1),
+      });
+    }
+  }
+}
+
+if (JSON_OUT) {
+  for (const r of rows) console.log(JSON.stringify(r));
+} else {
+  console.table(rows);
+}
@@ -0,0 +1,228 @@
+// Builds the app's bundled offline food database (app/src/main/assets/foods.bin)
+// from USDA FoodData Central JSON downloads (Foundation Foods and/or SR Legacy):
+//
+//   npm run build:fooddb -- FoodData_Central_foundation_food_json.json FoodData_Central_sr_legacy_food_json.json
+//
+// Items are normalized with the same normalizeFood() the proxy uses, so the app
+// gets the NormalizedFoodItem shape it already knows. Layout must match OfflineFoodDb.java.
+
+import fs from "node:fs";
+import path from "node:path";
+import { fileURLToPath } from "node:url";
+import { normalizeFood } from "../src/normalize.js";
+
+const here = path.dirname(fileURLToPath(import.meta.url));
+const DEFAULT_OUT = path.resolve(here, "../../../app/src/main/assets/foods.bin");
+
+const MAGIC = 0x31424446; // "FDB1" little-endian
+const VERSION = 1;
+const HEADER_SIZE = 32;
+const ITEM_SIZE = 40;
+const UNIT_SIZE = 12;
+const TOKEN_SIZE = 16;
+
+// Foundation entries often only carry Atwater energy, not nutrient 1008
+const ENERGY_FALLBACK_IDS = [2047, 2048];
+
+const DATA_TYPE_RANK = { Foundation: 0, "SR Legacy": 1, "Survey (FNDDS)": 2 };
+
+/* ======================  Tokenizer (mirror of OfflineFoodDb.tokenize)  ====================== */
+
+export function tokenize(text) {
+  const folded = String(text || "")
+    .normalize("NFD")
+    .replace(/[\u0300-\u036f]/g, "")
+    .toLowerCase();
+  const out = [];
+  for (const raw of folded.split(/[^a-z0-9]+/)) {
+    if (raw.length < 2) continue;
+    out.push(stem(raw));
+  }
+  return out;
+}
+
+// Very light plural folding: "eggs" -> "egg", keeps "cheese", "glass"
+function stem(t) {
+  return t.length > 3 && t.endsWith("s") && !t.endsWith("ss") ? t.slice(0, -1) : t;
+}
+
+/* ======================  Input  ====================== */
+
+function readFoods(file) {
+  const json = JSON.parse(fs.readFileSync(file, "utf8"));
+  // FDC downloads wrap the array: { FoundationFoods: [...] } / { SRLegacyFoods: [...] }
+  if (Array.isArray(json)) return json;
+  for (const key of Object.keys(json)) {
+    if (Array.isArray(json[key])) return json[key];
+  }
+  return [];
+}
+
+function withEnergyFallback(food) {
+  const nutrients = food.foodNutrients || [];
+  const hasKcal = nutrients.some((n) => (n.nutrient?.id ?? n.nutrientId) === 1008);
+  if (hasKcal) return food;
+  for (const id of ENERGY_FALLBACK_IDS) {
+    const hit = nutrients.find((n) => (n.nutrient?.id ?? n.nutrientId) === id);
+    if (hit) {
+      return { ...food, foodNutrients: [...nutrients, { nutrient: { id: 1008 }, amount: hit.amount ?? hit.value }] };
+    }
+  }
+  return food;
+}
+
+/* ======================  Build  ====================== */
+
+export function buildDatabase(foods) {
+  // Normalize + dedupe by fdcId
+  const byId = new Map();
+  for (const raw of foods) {
+    if (!raw || !raw.fdcId || raw.dataType === "Branded") continue; // branded stays on the proxy
+    const item = normalizeFood(withEnergyFallback(raw));
+    if (!item.description) continue;
+    byId.set(item.fdcId, item);
+  }
+
+  // Pre-rank: Foundation before SR Legacy, then shorter (more generic) names first.
+  // Postings are stored in item order, so this order is the default result order.
+  const items = [...byId.values()].sort(
+    (a, b) =>
+      (DATA_TYPE_RANK[a.dataType] ?? 9) - (DATA_TYPE_RANK[b.dataType] ?? 9) ||
+      a.description.length - b.description.length ||
+      a.description.localeCompare(b.description)
+  );
+
+  // String pool with simple interning (many measure labels repeat)
+  const strings = [];
+  const stringIndex = new Map();
+  let stringBytes = 0;
+  const intern = (s) => {
+    if (stringIndex.has(s)) return stringIndex.get(s);
+    const buf = Buffer.from(s, "utf8").subarray(0, 0xffff);
+    const ref = { off: stringBytes, len: buf.length };
+    strings.push(buf);
+    stringBytes += buf.length;
+    stringIndex.set(s, ref);
+    return ref;
+  };
+
+  // Units: only household measures; the app adds gram/oz/serving itself
+  const units = [];
+  const itemRecords = items.map((item, idx) => {
+    const measures = (item.units || []).filter(
+      (u) => u.label !== "gram (g)" && u.label !== "ounce (oz)" && u.label !== "serving"
+    );
+    const unitStart = units.length;
+    for (const m of measures) units.push({ label: intern(m.label), grams: m.gramsPerUnit });
+    const p = item.servings?.per100g || {};
+    return {
+      idx,
+      fdcId: item.fdcId,
+      name: intern(item.description),
+      unitStart,
+      unitCount: Math.min(measures.length, 0xffff),
+      kcal: p.calories,
+      protein: p.protein,
+      carbs: p.carbs,
+      fat: p.fat,
+      servingGrams: item.servings?.perServing?.grams,
+      dataType: DATA_TYPE_RANK[item.dataType] ?? 9,
+    };
+  });
+
+  // Token -> sorted item indices
+  const postings = new Map();
+  items.forEach((item, idx) => {
+    for (const t of new Set(tokenize(item.description))) {
+      if (!postings.has(t)) postings.set(t, []);
+      postings.get(t).push(idx);
+    }
+  });
+  // Byte-order sort (tokens are ASCII) so the app can binary-search raw bytes
+  const tokens = [...postings.keys()].sort((a, b) => (a < b ? -1 : a > b ? 1 : 0));
+  const tokenRecords = [];
+  let postingCount = 0;
+  for (const t of tokens) {
+    tokenRecords.push({ str: intern(t), postOff: postingCount, postCount: postings.get(t).length });
+    postingCount += postings.get(t).length;
+  }
+
+  // Offsets
+  const itemsOffset = HEADER_SIZE;
+  const unitsOffset = itemsOffset + items.length * ITEM_SIZE;
+  const tokensOffset = unitsOffset + units.length * UNIT_SIZE;
+  const postingsOffset = tokensOffset + tokenRecords.length * TOKEN_SIZE;
+  const stringsOffset = postingsOffset + postingCount * 4;
+  const total = stringsOffset + stringBytes;
+
+  const out = Buffer.alloc(total);
+  out.writeUInt32LE(MAGIC, 0);
+  out.writeInt32LE(VERSION, 4);
+  out.writeInt32LE(items.length, 8);
+  out.writeInt32LE(tokenRecords.length, 12);
+  out.writeInt32LE(unitsOffset, 16);
+  out.writeInt32LE(tokensOffset, 20);
+  out.writeInt32LE(postingsOffset, 24);
+  out.writeInt32LE(stringsOffset, 28);
+
+  const f32 = (v) => (v == null || Number.isNaN(v) ? NaN : v);
+  for (const r of itemRecords) {
+    const o = itemsOffset + r.idx * ITEM_SIZE;
+    out.writeInt32LE(r.fdcId, o);
+    out.writeInt32LE(r.name.off, o + 4);
+    out.writeUInt16LE(r.name.len, o + 8);
+    out.writeUInt16LE(r.unitCount, o + 10);
+    out.writeInt32LE(r.unitStart, o + 12);
+    out.writeFloatLE(f32(r.kcal), o + 16);
+    out.writeFloatLE(f32(r.protein), o + 20);
+    out.writeFloatLE(f32(r.carbs), o + 24);
+    out.writeFloatLE(f32(r.fat), o + 28);
+    out.writeFloatLE(f32(r.servingGrams), o + 32);
+    out.writeUInt8(r.dataType, o + 36);
+  }
+  units.forEach((u, i) => {
+    const o = unitsOffset + i * UNIT_SIZE;
+    out.writeInt32LE(u.label.off, o);
+    out.writeUInt16LE(u.label.len, o + 4);
+    out.writeFloatLE(u.grams, o + 8);
+  });
+  tokenRecords.forEach((t, i) => {
+    const o = tokensOffset + i * TOKEN_SIZE;
+    out.writeInt32LE(t.str.off, o);
+    out.writeUInt16LE(t.str.len, o + 4);
+    out.writeInt32LE(t.postOff, o + 8);
+    out.writeInt32LE(t.postCount, o + 12);
+  });
+  let p = postingsOffset;
+  for (const t of tokens) {
+    for (const idx of postings.get(t)) {
+      out.writeInt32LE(idx, p);
+      p += 4;
+    }
+  }
+  let s = stringsOffset;
+  for (const buf of strings) {
+    buf.copy(out, s);
+    s += buf.length;
+  }
+
+  return { buffer: out, itemCount: items.length, tokenCount: tokenRecords.length };
+}
+
+/* ======================  CLI  ====================== */
+
+if (process.argv[1] && path.resolve(process.argv[1]) === fileURLToPath(import.meta.url)) {
+  const args = process.argv.slice(2);
+  const outIdx = args.indexOf("--out");
+  const out = outIdx >= 0 ? path.resolve(args.splice(outIdx, 2)[1]) : DEFAULT_OUT;
+  if (args.length === 0) {
+    console.error("usage: build-food-db.js <fdc-foundation.json> [<fdc-sr-legacy.json> ...] [--out foods.bin]");
+    process.exit(1);
+  }
+
+  const foods = args.flatMap(readFoods);
+  const { buffer, itemCount, tokenCount } = buildDatabase(foods);
+  fs.mkdirSync(path.dirname(out), { recursive: true });
+  fs.writeFileSync(out, buffer);
+  console.log(`Wrote ${out}: ${itemCount} foods, ${tokenCount} tokens, ${(buffer.length / 1024).toFixed(1)} KiB`);
+}
@@ -0,0 +1,73 @@
+// Writes the app-side decoder's test fixtures: each payload as JSON and as the proxy's
+// MessagePack encoding, into core/src/test/resources/msgpack/<name>.{json,msgpack}.
+// MsgPackReaderTest decodes both and expects the same document.
+//
+//   npm run fixtures:msgpack
+//
+// Re-run after changing the encoder in src/wire.js and commit the regenerated files.
+
+import fs from "node:fs";
+import path from "node:path";
+import { fileURLToPath } from "node:url";
+import { encodeMsgPack } from "../src/wire.js";
+import { normalizeFood, normalizeOFF } from "../src/normalize.js";
+import { CATALOG, searchPage } from "./standin-server.js";
+
+const OUT = path.resolve(path.dirname(fileURLToPath(import.meta.url)), "../../../core/src/test/resources/msgpack");
+
+const offProduct = {
+  product_name: "Cold brew coffee",
+  brands: "Stand-in Roasters",
+  serving_quantity: "8",
+  serving_size_unit: "fl oz",
+  nutriments: { "energy-kcal_100g": 2, proteins_100g: 0.1, carbohydrates_100g: 0, fat_100g: 0 },
+};
+
+const FIXTURES = {
+  "search-page": searchPage("chicken", 25, 1), // 20 items: array16 header
+  "detail": { item: normalizeFood(CATALOG.find((f) => f.foodPortions?.length > 1)) },
+  "barcodes": {
+    results: [
+      { code: "0000000012345", item: normalizeOFF(offProduct) },
+      { code: "0000000000000", notFound: true },
+      { code: "4006381333931", error: "Open Food Facts timed out" },
+    ],
+  },
+  "health": { ok: true },
+  // Every encoding the proxy emits
+  "scalars": {
+    fixint: 5,
+    zero: 0,
+    maxFixint: 127,
+    uint32: 128,
+    bigUint32: 4000000000,
+    negFixint: -7,
+    minNegFixint: -32,
+    int32: -1000,
+    minInt32: -2147483648,
+    belowInt32: -3000000000, // float64
+    aboveUint32: 1e15,       // float64
+    fraction: 0.1,
+    negFraction: -2.5,
+    empty: "",
+    fixstr: "x".repeat(31),
+    str8: "y".repeat(32),
+    str16: "z".repeat(300),
+    unicode: "Crème brûlée — 🍓",
+    nil: null,
+    yes: true,
+    no: false,
+    emptyList: [],
+    emptyMap: {},
+    list16: Array.from({ length: 16 }, (_, i) => i),
+    map16: Object.fromEntries(Array.from({ length: 16 }, (_, i) => [`k${i}`, i * 1.5])),
+    nested: [[[1]], { a: { b: [null, "c"] } }],
+  },
+};
+
+fs.mkdirSync(OUT, { recursive: true });
+for (const [name, payload] of Object.entries(FIXTURES)) {
+  fs.writeFileSync(path.join(OUT, `${name}.json`), JSON.stringify(payload));
+  fs.writeFileSync(path.join(OUT, `${name}.msgpack`), encodeMsgPack(payload));
+  console.log(name);
+}
@@ -0,0 +1,189 @@
+// Local stand-in for the proxy: same routes and response shapes, a deterministic synthetic
+// catalog instead of USDA / Open Food Facts, and the same JSON / MessagePack + gzip / brotli
+// negotiation (src/wire.js). No API key, no network, no dependencies beyond Node.
+//
+//   npm run standin -- --port 8787 [--latency 40]
+//
+// Also importable by tests and benchmarks: createStandIn(), searchPage(), CATALOG.
+
+import http from "node:http";
+import path from "node:path";
+import { fileURLToPath } from "node:url";
+import { normalizeFood, normalizeOFF } from "../src/normalize.js";
+import { encodeResponse, notModified } from "../src/wire.js";
+
+/* ======================  Synthetic catalog  ====================== */
+
+// Small seeded PRNG so every run (and every machine) sees the same foods
+function mulberry32(seed) {
+  return () => {
+    seed |= 0;
+    seed = (seed + 0x6d2b79f5) | 0;
+    let t = Math.imul(seed ^ (seed >>> 15), 1 | seed);
+    t = (t + Math.imul(t ^ (t >>> 7), 61 | t)) ^ t;
+    return ((t ^ (t >>> 14)) >>> 0) / 4294967296;
+  };
+}
+
+const BASES = [
+  "chicken breast", "greek yogurt", "oats", "banana", "apple", "egg", "brown rice", "salmon",
+  "almonds", "peanut butter", "cheddar cheese", "whole milk", "broccoli", "sweet potato",
+  "black beans", "tofu", "ground beef", "avocado", "spinach", "whole wheat bread",
+];
+const STYLES = ["raw", "cooked", "roasted", "grilled", "plain", "low fat", "organic", "unsalted", "frozen", "canned"];
+const BRANDS = ["Acme Foods", "Green Valley", "Sunrise Farms", "Blue Harbor", "Maple Street"];
+const PORTIONS = [
+  { measureUnit: { name: "cup" }, gramWeight: 140 },
+  { measureUnit: { name: "tbsp" }, gramWeight: 16 },
+  { measureUnit: { name: "oz" }, gramWeight: 28 },
+  { portionDescription: "1 medium", gramWeight: 118 },
+  { portionDescription: "1 slice", gramWeight: 32 },
+];
+
+function buildCatalog(seed = 42) {
+  const rnd = mulberry32(seed);
+  const foods = [];
+  let fdcId = 100000;
+  for (const base of BASES) {
+    for (const style of STYLES) {
+      const kcal = 40 + Math.round(rnd() * 560);
+      const protein = Math.round(rnd() * 300) / 10;
+      const carbs = Math.round(rnd() * 700) / 10;
+      const fat = Math.round(rnd() * 400) / 10;
+      const nutrients = [
+        { nutrient: { id: 1008 }, amount: kcal },
+        { nutrient: { id: 1003 }, amount: protein },
+        { nutrient: { id: 1005 }, amount: carbs },
+        { nutrient: { id: 1004 }, amount: fat },
+      ];
+      // Generic (SR Legacy) item with household measures
+      const portions = PORTIONS.filter(() => rnd() < 0.5).map((p) => ({ amount: 1, ...p }));
+      foods.push({ fdcId: fdcId++, dataType: "SR Legacy", description: `${base}, ${style}`, foodNutrients: nutrients, foodPortions: portions });
+      // Branded variant with a label serving
+      const serving = 20 + Math.round(rnd() * 180);
+      const k = serving / 100;
+      foods.push({
+        fdcId: fdcId++,
+        dataType: "Branded",
+        description: `${base} ${style}`.toUpperCase(),
+        brandOwner: BRANDS[Math.floor(rnd() * BRANDS.length)],
+        servingSize: serving,
+        servingSizeUnit: "g",
+        labelNutrients: {
+          calories: { value: Math.round(kcal * k) },
+          protein: { value: Math.round(protein * k * 10) / 10 },
+          carbohydrates: { value: Math.round(carbs * k * 10) / 10 },
+          fat: { value: Math.round(fat * k * 10) / 10 },
+        },
+        foodNutrients: nutrients,
+      });
+    }
+  }
+  return foods;
+}
+
+export const CATALOG = buildCatalog();
+const BY_ID = new Map(CATALOG.map((f) => [String(f.fdcId), f]));
+
+// Barcodes: every branded food gets a 13-digit code derived from its fdcId
+const BY_CODE = new Map(
+  CATALOG.filter((f) => f.dataType === "Branded").map((f) => [
+    String(f.fdcId).padStart(13, "0"),
+    {
+      code: String(f.fdcId).padStart(13, "0"),
+      product_name: f.description.toLowerCase(),
+      brands: f.brandOwner,
+      serving_quantity: f.servingSize,
+      serving_size_unit: "g",
+      nutriments: {
+        "energy-kcal_serving": f.labelNutrients.calories.value,
+        proteins_serving: f.labelNutrients.protein.value,
+        carbohydrates_serving: f.labelNutrients.carbohydrates.value,
+        fat_serving: f.labelNutrients.fat.value,
+      },
+    },
+  ])
+);
+
+/** One normalized search page, like /api/foods/search (search payloads carry no portions). */
+export function searchPage(q, pageSize = 25, pageNumber = 1) {
+  const words = String(q || "").toLowerCase().split(/\s+/).filter(Boolean);
+  const hits = CATALOG.filter((f) => words.some((w) => f.description.toLowerCase().includes(w)));
+  const start = (pageNumber - 1) * pageSize;
+  const items = hits.slice(start, start + pageSize).map(({ foodPortions, ...rest }) => normalizeFood(rest));
+  return { totalHits: hits.length, pageNumber, items };
+}
+
+/* ======================  Server  ====================== */
+
+export function createStandIn({ latencyMs = 0 } = {}) {
+  return http.createServer((req, res) => {
+    const url = new URL(req.url, "http://standin");
+    const reply = (status, payload, extraHeaders = {}) => {
+      const { body, headers } = encodeResponse(payload, {
+        accept: req.headers.accept,
+        acceptEncoding: req.headers["accept-encoding"],
+      });
+      setTimeout(() => {
+        if (status === 200 && notModified(req.headers["if-none-match"], headers.ETag)) {
+          // What Express's res.send does for the real proxy: same validators, no body
+          res.writeHead(304, { ETag: headers.ETag, Vary: headers.Vary, ...extraHeaders });
+          return res.end();
+        }
+        res.writeHead(status, { ...headers, ...extraHeaders });
+        res.end(body);
+      }, latencyMs);
+    };
+    const cache = (seconds) => ({ "Cache-Control": `public, max-age=${seconds}` });
+
+    if (url.pathname === "/health") return reply(200, { ok: true });
+
+    if (url.pathname === "/api/foods/search") {
+      const q = (url.searchParams.get("q") || "").trim();
+      if (!q) return reply(400, { error: "Missing query ?q=" });
+      const pageSize = Math.min(Math.max(parseInt(url.searchParams.get("pageSize") || "25", 10), 1), 200);
+      const pageNumber = Math.max(parseInt(url.searchParams.get("pageNumber") || "1", 10), 1);
+      return reply(200, searchPage(q, pageSize, pageNumber), cache(3600));
+    }
+
+    let m = url.pathname.match(/^\/api\/foods\/(\d+)$/);
+    if (m) {
+      const food = BY_ID.get(m[1]);
+      return food ? reply(200, { item: normalizeFood(food) }, cache(86400)) : reply(404, { error: "Not found" });
+    }
+
+    m = url.pathname.match(/^\/api\/barcode\/(\d+)$/);
+    if (m) {
+      const product = BY_CODE.get(m[1].padStart(13, "0"));
+      return product
+        ? reply(200, { item: normalizeOFF(product) }, cache(86400))
+        : reply(404, { error: "Product not found" }, cache(3600));
+    }
+
+    if (url.pathname === "/api/barcodes") {
+      const codes = [...new Set((url.searchParams.get("codes") || "").split(",").map((c) => c.trim()).filter(Boolean))];
+      if (!codes.length || codes.length > 20) return reply(400, { error: "Expected 1-20 ?codes=" });
+      const results = codes.map((code) => {
+        const product = BY_CODE.get(code.padStart(13, "0"));
+        return product ? { code, item: normalizeOFF(product) } : { code, notFound: true };
+      });
+      return reply(200, { results }, cache(results.some((r) => r.notFound) ? 3600 : 86400));
+    }
+
+    reply(404, { error: "Not found" });
+  });
+}
+
+/* ======================  CLI  ====================== */
+
+if (process.argv[1] && path.resolve(process.argv[1]) === fileURLToPath(import.meta.url)) {
+  const arg = (name, fallback) => {
+    const i = process.argv.indexOf(name);
+    return i >= 0 ? process.argv[i + 1] : fallback;
+  };
+  const port = parseInt(arg("--port", "8787"), 10);
+  const latencyMs = parseInt(arg("--latency", "0"), 10);
+  createStandIn({ latencyMs }).listen(port, () =>
+    console.log(`Stand-in proxy on http://localhost:${port} (${CATALOG.length} foods, ${latencyMs} ms latency)`)
+  );
+}
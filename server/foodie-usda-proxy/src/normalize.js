@@ -0,0 +1,249 @@
+/* ======================  Normalization helpers  ====================== */
+// Shared by the proxy (server.js) and the offline database build (scripts/build-food-db.js).
+
+// USDA nutrient IDs (per 100 g)
+export const N_IDS = { kcal: 1008, protein: 1003, carbs: 1005, fat: 1004 };
+
+// rounders
+export const r1 = (x) => (x == null ? null : Math.round(x * 10) / 10);
+export const r0 = (x) => (x == null ? null : Math.round(x));
+
+// Build a clean "measures" list from USDA foodPortions
+export function extractMeasures(food) {
+  const portions = food.foodPortions || [];
+  const seen = new Set();
+  const measures = [];
+
+  for (const p of portions) {
+    const pieces = [];
+    if (p.amount) pieces.push(String(p.amount));           // "1"
+    if (p.modifier) pieces.push(p.modifier);               // "chopped"
+    if (p.measureUnit?.name) pieces.push(p.measureUnit.name); // "cup"
+    if (!p.measureUnit && p.portionDescription) pieces.push(p.portionDescription);
+
+    let label = pieces.join(" ").trim();
+    if (!label) label = p.portionDescription || "serving";
+
+    const grams = p.gramWeight;
+    if (!grams || grams <= 0) continue;
+
+    const key = `${label}|${grams}`;
+    if (seen.has(key)) continue;
+    seen.add(key);
+    measures.push({ label, gramsPerUnit: grams });
+  }
+  return measures;
+}
+
+// Extract macros per 100 g from USDA foodNutrients (works for both detail & search payloads)
+export function per100gFromFoodNutrients(foodNutrients) {
+  const map = {};
+  for (const fn of foodNutrients || []) {
+    // search payload uses { nutrientId, value }; detail uses { nutrient: { id }, amount }
+    const id = fn.nutrient?.id ?? fn.nutrientId;
+    const amt = fn.amount ?? fn.value;
+    if (id === N_IDS.kcal) map.calories = amt;
+    if (id === N_IDS.protein) map.protein = amt;
+    if (id === N_IDS.carbs) map.carbs = amt;
+    if (id === N_IDS.fat) map.fat = amt;
+  }
+  return map;
+}
+
+// Extract per-serving (branded) from labelNutrients
+export function perServingFromLabel(labelNutrients) {
+  if (!labelNutrients) return {};
+  const g = (n) => (labelNutrients[n] && labelNutrients[n].value) ?? null;
+  return {
+    calories: g("calories"),
+    protein: g("protein"),
+    carbs: g("carbohydrates"),
+    fat: g("fat"),
+  };
+}
+
+// Normalize one USDA food object into a unified shape
+export function normalizeFood(food) {
+  const dataType = food.dataType;
+  const base = {
+    source: "USDA",
+    fdcId: food.fdcId,
+    description: food.description || food.brandName || "",
+    brandName: food.brandName || food.brandOwner || null,
+    dataType,
+  };
+
+  const units = [
+    { label: "gram (g)", gramsPerUnit: 1 },
+    { label: "ounce (oz)", gramsPerUnit: 28.3495 },
+  ];
+
+  // Add USDA household measures if present (detail payloads)
+  const measures = extractMeasures(food);
+  for (const m of measures) units.push(m);
+
+  let per100g = {};
+  let perServing = {};
+  let servingGrams = null;
+
+  if (dataType === "Branded") {
+    // Branded: labelNutrients are per serving
+    perServing = perServingFromLabel(food.labelNutrients);
+
+    // Serving grams, if USDA declares serving in grams
+    if (typeof food.servingSize === "number") {
+      const u = (food.servingSizeUnit || "").toLowerCase();
+      if (u === "g" || u === "gram" || u === "grams") servingGrams = food.servingSize;
+    }
+
+    // Compute per 100 g if we know grams, else fallback to foodNutrients if present
+    if (servingGrams && servingGrams > 0) {
+      const k = 100 / servingGrams;
+      per100g = {
+        calories: perServing.calories != null ? perServing.calories * k : null,
+        protein: perServing.protein != null ? perServing.protein * k : null,
+        carbs: perServing.carbs != null ? perServing.carbs * k : null,
+        fat: perServing.fat != null ? perServing.fat * k : null,
+      };
+    } else if (food.foodNutrients) {
+      per100g = per100gFromFoodNutrients(food.foodNutrients);
+    }
+  } else {
+    // Foundation/Survey/SR Legacy usually provide per 100 g
+    per100g = per100gFromFoodNutrients(food.foodNutrients);
+
+    // If we have a portion with gramWeight, derive a perServing
+    if (measures.length) {
+      servingGrams = measures[0].gramsPerUnit;
+      perServing = {
+        calories: per100g.calories != null ? per100g.calories * (servingGrams / 100) : null,
+        protein: per100g.protein != null ? per100g.protein * (servingGrams / 100) : null,
+        carbs: per100g.carbs != null ? per100g.carbs * (servingGrams / 100) : null,
+        fat: per100g.fat != null ? per100g.fat * (servingGrams / 100) : null,
+      };
+    }
+  }
+
+  if (servingGrams && servingGrams > 0) {
+    units.push({ label: "serving", gramsPerUnit: servingGrams });
+  }
+
+  return {
+    ...base,
+    servings: {
+      per100g: {
+        calories: r0(per100g.calories),
+        protein: r1(per100g.protein),
+        carbs: r1(per100g.carbs),
+        fat: r1(per100g.fat),
+      },
+      perServing: servingGrams
+        ? {
+            grams: servingGrams,
+            calories: r0(perServing.calories),
+            protein: r1(perServing.protein),
+            carbs: r1(perServing.carbs),
+            fat: r1(perServing.fat),
+          }
+        : null,
+    },
+    units, // [{label, gramsPerUnit}]
+  };
+}
+
+/* ---------- OFF normalization (best effort) so client sees same shape ---------- */
+
+// OFF gives liquids' nutriments per 100 ml, so a volume serving converts 1 ml : 1 g on that basis
+const OFF_MASS = { g: 1, gram: 1, grams: 1, oz: 28.3495, ounce: 28.3495, ounces: 28.3495 };
+const OFF_VOLUME = { ml: 1, cl: 10, dl: 100, l: 1000, "fl oz": 29.5735 };
+
+// { grams, volume } for the product's serving, or null when it can't be read
+export function parseOFFServing(p) {
+  const convert = (qty, unit) => {
+    // "fl oz", "fl. oz", "fl.oz", "floz", "FL OZ" -> "fl oz"
+    const u = unit.toLowerCase().replace(/\./g, " ").trim().replace(/\s+/g, " ").replace(/^fl ?oz$/, "fl oz");
+    if (u in OFF_MASS) return { grams: qty * OFF_MASS[u], volume: false };
+    if (u in OFF_VOLUME) return { grams: qty * OFF_VOLUME[u], volume: true };
+    return null;
+  };
+  // prefer structured fields
+  const qty = parseFloat(p.serving_quantity);
+  if (!Number.isNaN(qty) && qty > 0 && p.serving_size_unit) {
+    const s = convert(qty, p.serving_size_unit);
+    if (s) return s;
+  }
+  // fallback: parse "30 g", "1 oz", "250 ml" from serving_size string
+  if (p.serving_size) {
+    const m = String(p.serving_size).match(/([\d.]+)\s*(g|grams?|oz|ounces?|ml|cl|dl|l|fl\.?\s*oz)\b/i);
+    if (m) return convert(parseFloat(m[1]), m[2]);
+  }
+  return null;
+}
+
+export function normalizeOFF(product) {
+  const n = product.nutriments || {};
+  const pick = (serv, per100) => (n[serv] ?? n[per100] ?? null);
+
+  const perServ = {
+    calories: pick("energy-kcal_serving", "energy-kcal_100g"),
+    protein: pick("proteins_serving", "proteins_100g"),
+    carbs: pick("carbohydrates_serving", "carbohydrates_100g"),
+    fat: pick("fat_serving", "fat_100g"),
+  };
+
+  const per100 = {
+    calories: n["energy-kcal_100g"] ?? null,
+    protein: n["proteins_100g"] ?? null,
+    carbs: n["carbohydrates_100g"] ?? null,
+    fat: n["fat_100g"] ?? null,
+  };
+
+  let per100g = { ...per100 };
+  let perServing = { ...perServ };
+  const serving = parseOFFServing(product);
+  const servingGrams = serving?.grams ?? null;
+
+  // If we have per-serving values and grams, compute per100g
+  if (servingGrams && (perServ.calories || perServ.protein || perServ.carbs || perServ.fat)) {
+    const k = 100 / servingGrams;
+    per100g = {
+      calories: perServ.calories != null ? perServ.calories * k : per100.calories,
+      protein: perServ.protein != null ? perServ.protein * k : per100.protein,
+      carbs: perServ.carbs != null ? perServ.carbs * k : per100.carbs,
+      fat: perServ.fat != null ? perServ.fat * k : per100.fat,
+    };
+  }
+
+  const units = [
+    { label: "gram (g)", gramsPerUnit: 1 },
+    { label: "ounce (oz)", gramsPerUnit: 28.3495 },
+  ];
+  if (servingGrams) units.push({ label: "serving", gramsPerUnit: servingGrams });
+  // Drinks: on OFF's per-100 ml basis 1 ml counts as 1 g; the app derives cups/tbsp from this
+  if (serving?.volume) units.push({ label: "milliliter (ml)", gramsPerUnit: 1 });
+
+  return {
+    source: "OFF",
+    code: product.code || null,
+    description: product.product_name || product.generic_name || "",
+    brandName: product.brands || null,
+    servings: {
+      per100g: {
+        calories: r0(per100g.calories),
+        protein: r1(per100g.protein),
+        carbs: r1(per100g.carbs),
+        fat: r1(per100g.fat),
+      },
+      perServing: servingGrams
+        ? {
+            grams: servingGrams,
+            calories: r0(perServing.calories),
+            protein: r1(perServing.protein),
+            carbs: r1(perServing.carbs),
+            fat: r1(perServing.fat),
+          }
+        : null,
+    },
+    units,
+  };
+}
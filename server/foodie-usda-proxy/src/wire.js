@@ -0,0 +1,178 @@
+// Response encoding for the app: JSON or MessagePack (negotiated via Accept),
+// compressed with brotli or gzip (negotiated via Accept-Encoding).
+// Framework-agnostic so the stand-in test server can use it without Express.
+
+import zlib from "node:zlib";
+import { createHash } from "node:crypto";
+
+export const MSGPACK_TYPE = "application/x-msgpack";
+const JSON_TYPE = "application/json; charset=utf-8";
+const MIN_COMPRESS_BYTES = 1024; // tiny bodies (health, errors) aren't worth it
+
+/* ======================  MessagePack encoder (subset the app reads)  ====================== */
+
+export function encodeMsgPack(value) {
+  const chunks = [];
+  let size = 0;
+  const push = (buf) => {
+    chunks.push(buf);
+    size += buf.length;
+  };
+  const u8 = (...bytes) => push(Buffer.from(bytes));
+
+  const write = (v) => {
+    if (v === null || v === undefined) return u8(0xc0);
+    if (v === false) return u8(0xc2);
+    if (v === true) return u8(0xc3);
+    if (typeof v === "number") return writeNumber(v);
+    if (typeof v === "string") return writeString(v);
+    if (Array.isArray(v)) {
+      writeHeader(v.length, 0x90, 0xdc, 0xdd);
+      for (const item of v) write(item);
+      return;
+    }
+    if (typeof v === "object") {
+      // undefined fields are dropped, like JSON.stringify does
+      const keys = Object.keys(v).filter((k) => v[k] !== undefined);
+      writeHeader(keys.length, 0x80, 0xde, 0xdf);
+      for (const k of keys) {
+        writeString(k);
+        write(v[k]);
+      }
+      return;
+    }
+    throw new TypeError(`Cannot encode ${typeof v}`);
+  };
+
+  const writeHeader = (n, fix, b16, b32) => {
+    if (n < 16) return u8(fix | n);
+    if (n < 0x10000) {
+      const b = Buffer.alloc(3);
+      b[0] = b16;
+      b.writeUInt16BE(n, 1);
+      return push(b);
+    }
+    const b = Buffer.alloc(5);
+    b[0] = b32;
+    b.writeUInt32BE(n, 1);
+    push(b);
+  };
+
+  const writeString = (s) => {
+    const bytes = Buffer.from(s, "utf8");
+    const n = bytes.length;
+    if (n < 32) u8(0xa0 | n);
+    else if (n < 0x100) u8(0xd9, n);
+    else if (n < 0x10000) {
+      const b = Buffer.alloc(3);
+      b[0] = 0xda;
+      b.writeUInt16BE(n, 1);
+      push(b);
+    } else {
+      const b = Buffer.alloc(5);
+      b[0] = 0xdb;
+      b.writeUInt32BE(n, 1);
+      push(b);
+    }
+    push(bytes);
+  };
+
+  const writeNumber = (n) => {
+    if (Number.isInteger(n) && Math.abs(n) <= 0xffffffff) {
+      if (n >= 0 && n < 128) return u8(n);
+      if (n < 0 && n >= -32) return u8(n & 0xff);
+      const b = Buffer.alloc(5);
+      if (n >= 0) {
+        b[0] = 0xce;
+        b.writeUInt32BE(n, 1);
+      } else if (n >= -0x80000000) {
+        b[0] = 0xd2;
+        b.writeInt32BE(n, 1);
+      } else {
+        return writeFloat(n);
+      }
+      return push(b);
+    }
+    writeFloat(n);
+  };
+
+  const writeFloat = (n) => {
+    const b = Buffer.alloc(9);
+    b[0] = 0xcb;
+    b.writeDoubleBE(n, 1);
+    push(b);
+  };
+
+  write(value);
+  return Buffer.concat(chunks, size);
+}
+
+/* ======================  Negotiation  ====================== */
+
+// Is `type` listed in the Accept header with a non-zero q?
+function accepts(header, type) {
+  return String(header || "")
+    .split(",")
+    .map((part) => part.trim().split(";"))
+    .some(([t, ...params]) => {
+      if (t.trim().toLowerCase() !== type) return false;
+      const q = params.map((p) => p.trim()).find((p) => p.startsWith("q="));
+      return !q || parseFloat(q.slice(2)) > 0;
+    });
+}
+
+/**
+ * Encode a payload for a request's Accept / Accept-Encoding headers.
+ * Returns { body: Buffer, headers: {...} } — JSON unless MessagePack was asked for. The ETag is
+ * over the encoded body, so each format/encoding is its own representation (hence Vary).
+ */
+export function encodeResponse(payload, { accept, acceptEncoding } = {}) {
+  const msgpack = accepts(accept, MSGPACK_TYPE);
+  let body = msgpack ? encodeMsgPack(payload) : Buffer.from(JSON.stringify(payload), "utf8");
+  const headers = {
+    "Content-Type": msgpack ? MSGPACK_TYPE : JSON_TYPE,
+    Vary: "Accept, Accept-Encoding",
+  };
+
+  if (body.length >= MIN_COMPRESS_BYTES) {
+    if (accepts(acceptEncoding, "br")) {
+      body = zlib.brotliCompressSync(body, {
+        params: { [zlib.constants.BROTLI_PARAM_QUALITY]: 5, [zlib.constants.BROTLI_PARAM_SIZE_HINT]: body.length },
+      });
+      headers["Content-Encoding"] = "br";
+    } else if (accepts(acceptEncoding, "gzip")) {
+      body = zlib.gzipSync(body, { level: 6 });
+      headers["Content-Encoding"] = "gzip";
+    }
+  }
+  headers["Content-Length"] = String(body.length);
+  headers.ETag = etag(body);
+  return { body, headers };
+}
+
+// Weak validator in Express's format: W/"<length hex>-<sha1 base64, 27 chars>"
+function etag(body) {
+  const hash = createHash("sha1").update(body).digest("base64").slice(0, 27);
+  return `W/"${body.length.toString(16)}-${hash}"`;
+}
+
+/** Does an If-None-Match header match `tag`? (weak comparison, as for GET revalidation) */
+export function notModified(ifNoneMatch, tag) {
+  if (!ifNoneMatch || !tag) return false;
+  if (ifNoneMatch.trim() === "*") return true;
+  const bare = (t) => t.trim().replace(/^W\//, "");
+  return ifNoneMatch.split(",").some((t) => bare(t) === bare(tag));
+}
+
+/**
+ * Express helper: like res.json(payload), but negotiated. res.send keeps our ETag and answers a
+ * matching If-None-Match with an empty 304, so the app's HTTP cache can revalidate cheaply.
+ */
+export function send(req, res, payload) {
+  const { body, headers } = encodeResponse(payload, {
+    accept: req.get("Accept"),
+    acceptEncoding: req.get("Accept-Encoding"),
+  });
+  res.set(headers);
+  res.send(body);
+}
@@ -21,3 +21,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "Foodie-MacroTracker"
 include(":app")
+include(":core")
+include(":benchmarks")